@@ -0,0 +1,341 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.openhab.binding.homematic.internal.common.HomematicConfig;
+import org.openhab.binding.homematic.internal.communicator.client.BinRpcClient;
+import org.openhab.binding.homematic.internal.communicator.client.RpcClient;
+import org.openhab.binding.homematic.internal.communicator.client.XmlRpcClient;
+import org.openhab.binding.homematic.internal.communicator.message.BinRpcMessage;
+import org.openhab.binding.homematic.internal.communicator.message.XmlRpcRequest;
+import org.openhab.binding.homematic.internal.communicator.message.XmlRpcResponse;
+import org.openhab.binding.homematic.internal.communicator.parser.EventParser;
+import org.openhab.binding.homematic.internal.communicator.server.BinRpcServer;
+import org.openhab.binding.homematic.internal.communicator.server.RpcEventListener;
+import org.openhab.binding.homematic.internal.communicator.server.RpcServer;
+import org.openhab.binding.homematic.internal.communicator.server.XmlRpcServer;
+import org.openhab.binding.homematic.internal.model.HmChannel;
+import org.openhab.binding.homematic.internal.model.HmDatapoint;
+import org.openhab.binding.homematic.internal.model.HmDatapointInfo;
+import org.openhab.binding.homematic.internal.model.HmDevice;
+import org.openhab.binding.homematic.internal.model.HmInterface;
+import org.openhab.binding.homematic.internal.model.HmParamsetType;
+import org.openhab.binding.homematic.internal.model.HmValueType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Load test for the RPC clients, the callback servers and the message decoding against a {@link SimulatedGateway}.
+ * Reports events/sec, command round trip latency and the allocated bytes of the message decoding. The load can be
+ * changed with the system properties homematic.loadtest.devices, homematic.loadtest.events,
+ * homematic.loadtest.eventRate, homematic.loadtest.commands and homematic.loadtest.threads. The load test only runs
+ * with the system property homematic.loadtest=true, as it only reports the measured values.
+ *
+ * @author agent - Initial contribution
+ */
+public class HomematicLoadTest {
+    private static final Logger logger = LoggerFactory.getLogger(HomematicLoadTest.class);
+
+    private static final boolean LOAD_TEST = Boolean.getBoolean("homematic.loadtest");
+    private static final int DEVICES = Integer.getInteger("homematic.loadtest.devices", 50);
+    private static final int EVENTS = Integer.getInteger("homematic.loadtest.events", 2000);
+    private static final int EVENT_RATE = Integer.getInteger("homematic.loadtest.eventRate", 0);
+    private static final int COMMANDS = Integer.getInteger("homematic.loadtest.commands", 500);
+    private static final int THREADS = Integer.getInteger("homematic.loadtest.threads", 4);
+
+    private static SimulatedGateway gateway;
+    private static HomematicConfig config;
+    private static List<HmDevice> devices = new ArrayList<HmDevice>();
+
+    @BeforeClass
+    public static void startGateway() throws Exception {
+        assumeTrue(LOAD_TEST);
+
+        config = new HomematicConfig();
+        gateway = new SimulatedGateway(DEVICES, config.getEncoding());
+        gateway.start();
+
+        config.setGatewayAddress("127.0.0.1");
+        config.setCallbackHost("127.0.0.1");
+        config.setRfPort(gateway.getBinRpcPort());
+        config.setHmIpPort(gateway.getXmlRpcPort());
+        config.setBinCallbackPort(getFreePort());
+        config.setXmlCallbackPort(getFreePort());
+        config.setSocketMaxConnections(THREADS);
+
+        for (int i = 0; i < DEVICES; i++) {
+            devices.add(createDevice(SimulatedGateway.getAddress(i)));
+        }
+    }
+
+    @AfterClass
+    public static void stopGateway() throws Exception {
+        if (gateway != null) {
+            gateway.stop();
+        }
+    }
+
+    @Test
+    public void binRpcMessageCodec() throws Exception {
+        int messages = EVENTS * 10;
+        long allocatedBefore = getAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < messages; i++) {
+            BinRpcMessage event = new BinRpcMessage("event", config.getEncoding());
+            event.addArg("simulated");
+            event.addArg(SimulatedGateway.getAddress(i % DEVICES) + ":1");
+            event.addArg(SimulatedGateway.DATAPOINT_NAME);
+            event.addArg(Double.valueOf(i));
+
+            BinRpcMessage decoded = new BinRpcMessage(event.createMessage(), true, config.getEncoding());
+            HmDatapointInfo dpInfo = new EventParser().parse(decoded.getResponseData());
+            assertEquals(SimulatedGateway.DATAPOINT_NAME, dpInfo.getName());
+        }
+        long duration = System.nanoTime() - start;
+        long allocated = getAllocatedBytes() - allocatedBefore;
+
+        logger.info("BIN-RPC codec: {} messages/sec, {} bytes allocated/message", perSecond(messages, duration),
+                allocatedBefore < 0 ? "n/a" : allocated / messages);
+    }
+
+    @Test
+    public void binRpcMessageStreamDecode() throws Exception {
+        int messages = EVENTS * 10;
+        BinRpcMessage event = new BinRpcMessage("event", config.getEncoding());
+        event.addArg("simulated");
+        event.addArg(SimulatedGateway.getAddress(0) + ":1");
+        event.addArg(SimulatedGateway.DATAPOINT_NAME);
+        event.addArg(Double.valueOf(1));
+        byte[] message = event.createMessage();
+
+        long allocatedBefore = getAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < messages; i++) {
+            BinRpcMessage decoded = new BinRpcMessage(new ByteArrayInputStream(message), true, config.getEncoding());
+            assertEquals(4, decoded.getResponseData().length);
+        }
+        long duration = System.nanoTime() - start;
+        long allocated = getAllocatedBytes() - allocatedBefore;
+
+        logger.info("BIN-RPC stream decode: {} messages/sec, {} bytes allocated/message",
+                perSecond(messages, duration), allocatedBefore < 0 ? "n/a" : allocated / messages);
+    }
+
+    @Test
+    public void xmlRpcMessageCodec() throws Exception {
+        int messages = EVENTS * 10;
+        long allocatedBefore = getAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < messages; i++) {
+            XmlRpcRequest event = new XmlRpcRequest("event");
+            event.addArg("simulated");
+            event.addArg(SimulatedGateway.getAddress(i % DEVICES) + ":1");
+            event.addArg(SimulatedGateway.DATAPOINT_NAME);
+            event.addArg(Double.valueOf(i));
+
+            byte[] message = event.createMessage().getBytes(config.getEncoding());
+            XmlRpcResponse decoded = new XmlRpcResponse(new ByteArrayInputStream(message), config.getEncoding());
+            HmDatapointInfo dpInfo = new EventParser().parse(decoded.getResponseData());
+            assertEquals(SimulatedGateway.DATAPOINT_NAME, dpInfo.getName());
+        }
+        long duration = System.nanoTime() - start;
+        long allocated = getAllocatedBytes() - allocatedBefore;
+
+        logger.info("XML-RPC codec: {} messages/sec, {} bytes allocated/message", perSecond(messages, duration),
+                allocatedBefore < 0 ? "n/a" : allocated / messages);
+    }
+
+    @Test
+    public void binRpcClientRoundTrip() throws Exception {
+        measureRoundTrip("BIN-RPC", new BinRpcClient(config), HmInterface.RF);
+    }
+
+    @Test
+    public void xmlRpcClientRoundTrip() throws Exception {
+        measureRoundTrip("XML-RPC", new XmlRpcClient(config), HmInterface.HMIP);
+    }
+
+    @Test
+    public void binRpcServerEvents() throws Exception {
+        measureEvents("BIN-RPC", config.getBinCallbackPort(), false);
+    }
+
+    @Test
+    public void xmlRpcServerEvents() throws Exception {
+        measureEvents("XML-RPC", config.getXmlCallbackPort(), true);
+    }
+
+    /**
+     * Sends setValue commands from several threads and reports the round trip latency.
+     */
+    private void measureRoundTrip(String name, final RpcClient<?> client, HmInterface hmInterface) throws Exception {
+        for (HmDevice device : devices) {
+            device.setHmInterface(hmInterface);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            final int commandsPerThread = COMMANDS / THREADS;
+            List<Future<long[]>> futures = new ArrayList<Future<long[]>>();
+            long start = System.nanoTime();
+            for (int t = 0; t < THREADS; t++) {
+                final int offset = t;
+                futures.add(executor.submit(new Callable<long[]>() {
+
+                    @Override
+                    public long[] call() throws Exception {
+                        long[] latencies = new long[commandsPerThread];
+                        for (int i = 0; i < commandsPerThread; i++) {
+                            HmDatapoint dp = getDatapoint(devices.get((offset + i * THREADS) % DEVICES));
+                            long commandStart = System.nanoTime();
+                            client.setDatapointValue(dp, Double.valueOf(i));
+                            latencies[i] = System.nanoTime() - commandStart;
+                        }
+                        return latencies;
+                    }
+                }));
+            }
+
+            long[] latencies = new long[commandsPerThread * THREADS];
+            int index = 0;
+            for (Future<long[]> future : futures) {
+                for (long latency : future.get(60, TimeUnit.SECONDS)) {
+                    latencies[index++] = latency;
+                }
+            }
+            long duration = System.nanoTime() - start;
+            Arrays.sort(latencies);
+
+            assertEquals((long) latencies.length, client.getRequestCount());
+            logger.info("{} client: {} commands/sec with {} threads, latency median: {} us, 99th percentile: {} us",
+                    name, perSecond(latencies.length, duration), THREADS,
+                    TimeUnit.NANOSECONDS.toMicros(latencies[latencies.length / 2]),
+                    TimeUnit.NANOSECONDS.toMicros(latencies[(int) (latencies.length * 0.99)]));
+        } finally {
+            executor.shutdownNow();
+            client.dispose();
+        }
+    }
+
+    /**
+     * Sends events from the simulated gateway to the callback server and reports the events/sec.
+     */
+    private void measureEvents(String name, int port, boolean xmlRpc) throws Exception {
+        final CountDownLatch latch = new CountDownLatch(EVENTS);
+        RpcEventListener listener = new RpcEventListener() {
+
+            @Override
+            public void eventReceived(HmDatapointInfo dpInfo, Object newValue) {
+                latch.countDown();
+            }
+
+            @Override
+            public void newDevices(List<String> adresses) {
+            }
+
+            @Override
+            public void deleteDevices(List<String> addresses) {
+            }
+        };
+        RpcServer server = xmlRpc ? new XmlRpcServer(listener, config) : new BinRpcServer(listener, config);
+        server.start();
+        try {
+            long start = System.nanoTime();
+            if (xmlRpc) {
+                gateway.sendXmlRpcEvents(port, EVENTS, EVENT_RATE);
+            } else {
+                gateway.sendBinRpcEvents(port, EVENTS, EVENT_RATE);
+            }
+            assertTrue("Not all events received", latch.await(60, TimeUnit.SECONDS));
+            long duration = System.nanoTime() - start;
+
+            logger.info("{} server: {} events/sec ({} events, rate limit: {})", name, perSecond(EVENTS, duration),
+                    EVENTS, EVENT_RATE > 0 ? EVENT_RATE : "none");
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    /**
+     * Creates a simulated device with one channel and one datapoint.
+     */
+    private static HmDevice createDevice(String address) {
+        HmDevice device = new HmDevice();
+        device.setAddress(address);
+        device.setType(SimulatedGateway.DEVICE_TYPE);
+        device.setHmInterface(HmInterface.RF);
+
+        HmChannel channel = new HmChannel();
+        channel.setNumber(1);
+        device.addChannel(channel);
+
+        channel.addDatapoint(new HmDatapoint(SimulatedGateway.DATAPOINT_NAME, SimulatedGateway.DATAPOINT_NAME,
+                HmValueType.FLOAT, 0.0, false, HmParamsetType.VALUES));
+        return device;
+    }
+
+    /**
+     * Returns the datapoint of the simulated device.
+     */
+    private static HmDatapoint getDatapoint(HmDevice device) {
+        return device.getChannel(1).getDatapoint(HmParamsetType.VALUES, SimulatedGateway.DATAPOINT_NAME);
+    }
+
+    /**
+     * Returns a free local port.
+     */
+    private static int getFreePort() throws IOException {
+        ServerSocket socket = new ServerSocket(0);
+        try {
+            return socket.getLocalPort();
+        } finally {
+            socket.close();
+        }
+    }
+
+    /**
+     * Returns the number of operations per second.
+     */
+    private static long perSecond(long count, long durationNanos) {
+        return durationNanos == 0 ? count : count * TimeUnit.SECONDS.toNanos(1) / durationNanos;
+    }
+
+    /**
+     * Returns the bytes allocated by the current thread or -1, if the JVM does not support it.
+     */
+    private static long getAllocatedBytes() {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadBean)
+                    .getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+}
@@ -0,0 +1,369 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.io.IOUtils;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.openhab.binding.homematic.internal.communicator.message.BinRpcMessage;
+import org.openhab.binding.homematic.internal.communicator.message.RpcRequest;
+import org.openhab.binding.homematic.internal.communicator.message.XmlRpcRequest;
+import org.openhab.binding.homematic.internal.communicator.message.XmlRpcResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Simulates a Homematic gateway on the local host with a BIN-RPC and a XML-RPC interface. It answers the requests of
+ * the RPC clients for a configurable number of devices and sends events to the callback servers of the binding.
+ *
+ * @author agent - Initial contribution
+ */
+public class SimulatedGateway {
+    private final Logger logger = LoggerFactory.getLogger(SimulatedGateway.class);
+
+    public static final String DEVICE_TYPE = "HM-ES-PMSw1-Pl";
+    public static final String DATAPOINT_NAME = "POWER";
+
+    private int deviceCount;
+    private String encoding;
+    private Map<String, Object> values = new ConcurrentHashMap<String, Object>();
+    private AtomicLong requestCount = new AtomicLong();
+
+    private ServerSocket binRpcServerSocket;
+    private ExecutorService binRpcExecutor;
+    private Server xmlRpcServer;
+
+    public SimulatedGateway(int deviceCount, String encoding) {
+        this.deviceCount = deviceCount;
+        this.encoding = encoding;
+        for (int i = 0; i < deviceCount; i++) {
+            values.put(getAddress(i) + ":1:" + DATAPOINT_NAME, 0.0);
+        }
+    }
+
+    /**
+     * Returns the address of the simulated device with the given index.
+     */
+    public static String getAddress(int index) {
+        return String.format("SIM%07d", index);
+    }
+
+    /**
+     * Starts the BIN-RPC and the XML-RPC interface on free ports.
+     */
+    public void start() throws Exception {
+        binRpcServerSocket = new ServerSocket();
+        binRpcServerSocket.setReuseAddress(true);
+        binRpcServerSocket.bind(new InetSocketAddress("127.0.0.1", 0));
+        binRpcExecutor = Executors.newCachedThreadPool();
+        binRpcExecutor.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                acceptBinRpcConnections();
+            }
+        });
+
+        xmlRpcServer = new Server(new InetSocketAddress("127.0.0.1", 0));
+        xmlRpcServer.setHandler(new XmlRpcHandler());
+        xmlRpcServer.start();
+        logger.debug("Simulated gateway started with {} devices, BIN-RPC port: {}, XML-RPC port: {}", deviceCount,
+                getBinRpcPort(), getXmlRpcPort());
+    }
+
+    /**
+     * Stops both interfaces.
+     */
+    public void stop() throws Exception {
+        if (binRpcServerSocket != null) {
+            binRpcServerSocket.close();
+        }
+        if (binRpcExecutor != null) {
+            binRpcExecutor.shutdownNow();
+            binRpcExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        if (xmlRpcServer != null) {
+            xmlRpcServer.stop();
+        }
+    }
+
+    /**
+     * Returns the port of the BIN-RPC interface.
+     */
+    public int getBinRpcPort() {
+        return binRpcServerSocket.getLocalPort();
+    }
+
+    /**
+     * Returns the port of the XML-RPC interface.
+     */
+    public int getXmlRpcPort() {
+        return ((ServerConnector) xmlRpcServer.getConnectors()[0]).getLocalPort();
+    }
+
+    /**
+     * Returns the number of requests handled by the gateway.
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * Sends the given number of events round robin for all devices to the BIN-RPC callback server of the binding.
+     * With a rate greater than 0, the events are limited to the rate per second.
+     */
+    public void sendBinRpcEvents(int port, int eventCount, int eventsPerSecond) throws IOException {
+        long start = System.nanoTime();
+        for (int i = 0; i < eventCount; i++) {
+            BinRpcMessage event = new BinRpcMessage("event", encoding);
+            event.addArg("simulated");
+            event.addArg(getAddress(i % deviceCount) + ":1");
+            event.addArg(DATAPOINT_NAME);
+            event.addArg(Double.valueOf(i));
+
+            Socket socket = new Socket("127.0.0.1", port);
+            try {
+                socket.getOutputStream().write(event.createMessage());
+                new BinRpcMessage(socket.getInputStream(), false, encoding);
+            } finally {
+                socket.close();
+            }
+            throttle(start, i + 1, eventsPerSecond);
+        }
+    }
+
+    /**
+     * Sends the given number of events round robin for all devices to the XML-RPC callback server of the binding.
+     * With a rate greater than 0, the events are limited to the rate per second.
+     */
+    public void sendXmlRpcEvents(int port, int eventCount, int eventsPerSecond) throws IOException {
+        URL url = new URL("http://127.0.0.1:" + port);
+        long start = System.nanoTime();
+        for (int i = 0; i < eventCount; i++) {
+            RpcRequest<String> event = new XmlRpcRequest("event");
+            event.addArg("simulated");
+            event.addArg(getAddress(i % deviceCount) + ":1");
+            event.addArg(DATAPOINT_NAME);
+            event.addArg(Double.valueOf(i));
+
+            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            try {
+                connection.setDoOutput(true);
+                connection.setRequestMethod("POST");
+                connection.setRequestProperty("Content-Type", "text/xml;charset=" + encoding);
+                OutputStream os = connection.getOutputStream();
+                os.write(event.createMessage().getBytes(encoding));
+                os.close();
+                IOUtils.toByteArray(connection.getInputStream());
+            } finally {
+                connection.disconnect();
+            }
+            throttle(start, i + 1, eventsPerSecond);
+        }
+    }
+
+    /**
+     * Sleeps until the event may be sent according to the event rate.
+     */
+    private void throttle(long start, int sentEvents, int eventsPerSecond) {
+        if (eventsPerSecond > 0) {
+            long due = start + TimeUnit.SECONDS.toNanos(sentEvents) / eventsPerSecond;
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * Accepts connections to the BIN-RPC interface, each connection is kept open for several requests like the
+     * pooled sockets of the binding.
+     */
+    private void acceptBinRpcConnections() {
+        while (!binRpcServerSocket.isClosed()) {
+            try {
+                final Socket socket = binRpcServerSocket.accept();
+                binRpcExecutor.execute(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        handleBinRpcConnection(socket);
+                    }
+                });
+            } catch (SocketException ex) {
+                // server socket closed
+            } catch (IOException ex) {
+                logger.warn("{}", ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Handles all BIN-RPC requests of the connection until it is closed by the client.
+     */
+    private void handleBinRpcConnection(Socket socket) {
+        try {
+            InputStream is = socket.getInputStream();
+            OutputStream os = socket.getOutputStream();
+            while (!socket.isClosed()) {
+                BinRpcMessage request = new BinRpcMessage(is, true, encoding);
+                BinRpcMessage response = new BinRpcMessage(null, BinRpcMessage.TYPE.RESPONSE, encoding);
+                response.addArg(handleMethodCall(request.getMethodName(), request.getResponseData()));
+                os.write(response.createMessage());
+                os.flush();
+            }
+        } catch (EOFException | SocketException ex) {
+            // connection closed by the client
+        } catch (IOException ex) {
+            logger.warn("{}", ex.getMessage());
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException ex) {
+                // ignore
+            }
+        }
+    }
+
+    /**
+     * Returns the result of the method call, unknown methods are answered with a fault.
+     */
+    @SuppressWarnings("unchecked")
+    private Object handleMethodCall(String methodName, Object[] params) {
+        requestCount.incrementAndGet();
+        if ("getValue".equals(methodName)) {
+            Object value = values.get(params[0] + ":" + params[1]);
+            return value == null ? createFault(-5, "Unknown Parameter value for value key: " + params[1]) : value;
+        } else if ("setValue".equals(methodName)) {
+            values.put(params[0] + ":" + params[1], params[2]);
+            return "";
+        } else if ("getParamset".equals(methodName)) {
+            Map<String, Object> paramset = new HashMap<String, Object>();
+            if ("VALUES".equals(params[1])) {
+                Object value = values.get(params[0] + ":" + DATAPOINT_NAME);
+                if (value != null) {
+                    paramset.put(DATAPOINT_NAME, value);
+                }
+            }
+            return paramset;
+        } else if ("listDevices".equals(methodName)) {
+            return listDevices();
+        } else if ("system.multicall".equals(methodName)) {
+            List<Object> results = new ArrayList<Object>();
+            for (Object call : (Object[]) params[0]) {
+                Map<String, Object> callMap = (Map<String, Object>) call;
+                Object result = handleMethodCall(callMap.get("methodName").toString(),
+                        (Object[]) callMap.get("params"));
+                // BIN-RPC encodes lists, not arrays
+                results.add(result instanceof Map && ((Map<String, Object>) result).containsKey("faultCode") ? result
+                        : Collections.singletonList(result));
+            }
+            return results;
+        } else if ("init".equals(methodName) || "ping".equals(methodName)) {
+            return "";
+        }
+        return createFault(-1, "Failure");
+    }
+
+    /**
+     * Returns the descriptions of all simulated devices and their channels.
+     */
+    private List<Object> listDevices() {
+        List<Object> descriptions = new ArrayList<Object>();
+        for (int i = 0; i < deviceCount; i++) {
+            String address = getAddress(i);
+            descriptions.add(createDeviceDescription(address, "", DEVICE_TYPE));
+            descriptions.add(createDeviceDescription(address + ":0", address, "MAINTENANCE"));
+            descriptions.add(createDeviceDescription(address + ":1", address, "POWERMETER"));
+        }
+        return descriptions;
+    }
+
+    /**
+     * Creates the description of a device or a channel.
+     */
+    private Map<String, Object> createDeviceDescription(String address, String parent, String type) {
+        Map<String, Object> description = new HashMap<String, Object>();
+        description.put("ADDRESS", address);
+        description.put("PARENT", parent);
+        description.put("TYPE", type);
+        description.put("FIRMWARE", "1.0");
+        description.put("VERSION", 1);
+        return description;
+    }
+
+    /**
+     * Creates a fault result.
+     */
+    private Map<String, Object> createFault(int faultCode, String faultString) {
+        Map<String, Object> fault = new HashMap<String, Object>();
+        fault.put("faultCode", faultCode);
+        fault.put("faultString", faultString);
+        return fault;
+    }
+
+    /**
+     * Jetty handler implementing the XML-RPC interface of the simulated gateway.
+     */
+    private class XmlRpcHandler extends AbstractHandler {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response)
+                throws IOException, ServletException {
+            response.setContentType("text/xml;charset=" + encoding);
+            response.setStatus(HttpServletResponse.SC_OK);
+            try {
+                XmlRpcResponse xmlRequest = new XmlRpcResponse(request.getInputStream(), encoding);
+                RpcRequest<String> xmlResponse = new XmlRpcRequest(null, XmlRpcRequest.TYPE.RESPONSE);
+                xmlResponse.addArg(handleMethodCall(xmlRequest.getMethodName(), xmlRequest.getResponseData()));
+                PrintWriter writer = response.getWriter();
+                writer.print(xmlResponse.createMessage());
+            } catch (Exception ex) {
+                throw new ServletException(ex.getMessage(), ex);
+            }
+            baseRequest.setHandled(true);
+        }
+    }
+
+}
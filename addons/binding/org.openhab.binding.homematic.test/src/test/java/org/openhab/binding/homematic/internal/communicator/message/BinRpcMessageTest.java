@@ -0,0 +1,143 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator.message;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Tests the encoding and decoding of {@link BinRpcMessage}s with the pooled message buffers.
+ *
+ * @author agent - Initial contribution
+ */
+public class BinRpcMessageTest {
+    private static final String ENCODING = "ISO-8859-1";
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        Map<String, Object> struct = new HashMap<String, Object>();
+        struct.put("LEVEL", 0.5);
+        struct.put("WORKING", Boolean.TRUE);
+
+        BinRpcMessage request = new BinRpcMessage("putParamset", ENCODING);
+        request.addArg("ABC1234567:1");
+        request.addArg(Integer.valueOf(42));
+        request.addArg(Arrays.asList("a", "b"));
+        request.addArg(struct);
+
+        Object[] data = decode(request.createMessage(), true).getResponseData();
+        assertEquals(4, data.length);
+        assertEquals("ABC1234567:1", data[0]);
+        assertEquals(42, data[1]);
+        assertArrayEquals(new Object[] { "a", "b" }, (Object[]) data[2]);
+        assertEquals(struct, data[3]);
+    }
+
+    @Test
+    public void testReusedBufferIsNotReadBeyondMessage() throws Exception {
+        // fills a pooled buffer with data, which must not be decoded as part of the following small message
+        BinRpcMessage large = new BinRpcMessage("event", ENCODING);
+        for (int i = 0; i < 100; i++) {
+            large.addArg("datapoint" + i);
+        }
+        assertEquals(100, decode(large.createMessage(), true).getResponseData().length);
+
+        BinRpcMessage small = new BinRpcMessage("event", ENCODING);
+        small.addArg("value");
+        Object[] data = decode(small.createMessage(), true).getResponseData();
+        assertArrayEquals(new Object[] { "value" }, data);
+    }
+
+    @Test
+    public void testMessageLargerThanPooledBuffer() throws Exception {
+        char[] chars = new char[100 * 1024];
+        Arrays.fill(chars, 'x');
+        String value = new String(chars);
+
+        BinRpcMessage request = new BinRpcMessage("setValue", ENCODING);
+        request.addArg("small");
+        request.addArg(value);
+
+        Object[] data = decode(request.createMessage(), true).getResponseData();
+        assertEquals("small", data[0]);
+        assertEquals(value, data[1]);
+    }
+
+    @Test(expected = EOFException.class)
+    public void testTruncatedMessage() throws Exception {
+        BinRpcMessage request = new BinRpcMessage("event", ENCODING);
+        request.addArg("value");
+        byte[] message = request.createMessage();
+
+        // shorten the string by one byte, but keep the message length consistent
+        byte[] truncated = Arrays.copyOf(message, message.length - 1);
+        truncated[7]--;
+        decode(truncated, true);
+    }
+
+    @Test
+    public void testToStringOfDecodedMessage() throws Exception {
+        BinRpcMessage request = new BinRpcMessage("event", ENCODING);
+        request.addArg("value");
+        String expected = request.toString();
+
+        assertEquals(expected, decode(request.createMessage(), true).toString());
+    }
+
+    @Test
+    public void testStreamedArrayResponse() throws Exception {
+        BinRpcMessage response = new BinRpcMessage(null, BinRpcMessage.TYPE.RESPONSE, ENCODING);
+        response.addArg(Arrays.asList("a", 1, "c"));
+
+        final List<Object> elements = new ArrayList<Object>();
+        BinRpcMessage decoded = new BinRpcMessage(new ByteArrayInputStream(response.createMessage()), ENCODING,
+                new RpcElementHandler() {
+
+                    @Override
+                    public void handleElement(Object element) {
+                        elements.add(element);
+                    }
+                });
+        assertEquals(Arrays.asList("a", 1, "c"), elements);
+        assertArrayEquals(new Object[] { new Object[0] }, decoded.getResponseData());
+    }
+
+    @Test
+    public void testStreamedFaultResponse() throws Exception {
+        Map<String, Object> fault = new HashMap<String, Object>();
+        fault.put("faultCode", -1);
+        fault.put("faultString", "Failure");
+        BinRpcMessage response = new BinRpcMessage(null, BinRpcMessage.TYPE.RESPONSE, ENCODING);
+        response.addArg(fault);
+
+        BinRpcMessage decoded = new BinRpcMessage(new ByteArrayInputStream(response.createMessage()), ENCODING,
+                new RpcElementHandler() {
+
+                    @Override
+                    public void handleElement(Object element) {
+                        fail("Unexpected element " + element);
+                    }
+                });
+        assertEquals(fault, decoded.getResponseData()[0]);
+    }
+
+    private static BinRpcMessage decode(byte[] message, boolean methodHeader) throws IOException {
+        return new BinRpcMessage(new ByteArrayInputStream(message), methodHeader, ENCODING);
+    }
+}
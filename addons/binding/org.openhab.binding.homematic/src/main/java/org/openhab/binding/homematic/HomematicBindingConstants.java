@@ -50,4 +50,6 @@ public class HomematicBindingConstants {
 
     public static final String PROPERTY_BATTERY_TYPE = "batteryType";
     public static final String PROPERTY_AES_KEY = "aesKey";
+    public static final String PROPERTY_LOAD_VALUES_DURATION = "loadValuesDurationMillis";
+    public static final String PROPERTY_LOAD_VALUES_RPC_COUNT = "loadValuesRpcCount";
 }
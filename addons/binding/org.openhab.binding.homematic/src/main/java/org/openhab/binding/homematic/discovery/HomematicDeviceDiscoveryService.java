@@ -108,7 +108,7 @@ public class HomematicDeviceDiscoveryService extends AbstractDiscoveryService {
                     try {
                         final HomematicGateway gateway = bridgeHandler.getGateway();
                         gateway.loadAllDeviceMetadata();
-                        bridgeHandler.getTypeGenerator().validateFirmwares();
+                        bridgeHandler.getTypeGenerator().validateFirmwares(gateway.getDevices());
                         logger.debug("Finished Homematic device discovery scan on gateway '{}'", gateway.getId());
                     } catch (Throwable ex) {
                         logger.error("{}", ex.getMessage(), ex);
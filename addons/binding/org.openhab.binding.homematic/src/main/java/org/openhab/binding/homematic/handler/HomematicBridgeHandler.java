@@ -8,8 +8,13 @@
  */
 package org.openhab.binding.homematic.handler;
 
+import static org.openhab.binding.homematic.HomematicBindingConstants.*;
+
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import org.eclipse.smarthome.config.discovery.DiscoveryService;
@@ -77,6 +82,7 @@ public class HomematicBridgeHandler extends BaseBridgeHandler implements Homemat
 
                     discoveryService.startScan(null);
                     discoveryService.waitForScanFinishing();
+                    loadThingValues();
                     updateStatus(ThingStatus.ONLINE);
                     if (!config.getGatewayInfo().isHomegear()) {
                         try {
@@ -97,6 +103,34 @@ public class HomematicBridgeHandler extends BaseBridgeHandler implements Homemat
 
     }
 
+    /**
+     * Loads the values of all devices with a thing before the things are initialized and adds the duration and the
+     * number of RPC requests as bridge properties.
+     */
+    private void loadThingValues() throws IOException {
+        List<HmDevice> devices = new ArrayList<HmDevice>();
+        for (Thing hmThing : getThing().getThings()) {
+            try {
+                devices.add(gateway.getDevice(UidUtils.getHomematicAddress(hmThing)));
+            } catch (HomematicClientException ex) {
+                // device not available on the gateway
+            }
+        }
+
+        long startTime = System.currentTimeMillis();
+        long startRequestCount = gateway.getRpcRequestCount();
+        gateway.loadDeviceValues(devices);
+        long duration = System.currentTimeMillis() - startTime;
+        long requestCount = gateway.getRpcRequestCount() - startRequestCount;
+        logger.debug("Loaded values of {} devices from gateway '{}' in {} ms with {} RPC requests", devices.size(),
+                getThing().getUID().getId(), duration, requestCount);
+
+        Map<String, String> properties = editProperties();
+        properties.put(PROPERTY_LOAD_VALUES_DURATION, String.valueOf(duration));
+        properties.put(PROPERTY_LOAD_VALUES_RPC_COUNT, String.valueOf(requestCount));
+        updateProperties(properties);
+    }
+
     /**
      * Schedules a reinitialization, if the Homematic gateway is not reachable at bridge startup.
      */
@@ -48,6 +48,13 @@ public class HomematicConfig {
 
     private Integer aliveInterval = 300;
     private int socketMaxAlive = 900;
+    private int socketMaxIdle = 120;
+    private int socketMaxConnections = 4;
+    private int loadValuesBatchSize = 50;
+    private int loadValuesParallelism = 4;
+    private int eventMinInterval = 0;
+    private double eventChangeThreshold = 0.0;
+    private boolean eventSuppressUnchanged = false;
     private int timeout = 15;
     private int reconnectInterval = 0;
 
@@ -171,6 +178,111 @@ public class HomematicConfig {
         this.socketMaxAlive = socketMaxAlive;
     }
 
+    /**
+     * Returns the max idle time of a pooled socket connection to a Homematic gateway in seconds.
+     */
+    public int getSocketMaxIdle() {
+        return socketMaxIdle;
+    }
+
+    /**
+     * Sets the max idle time of a pooled socket connection to a Homematic gateway in seconds.
+     */
+    public void setSocketMaxIdle(int socketMaxIdle) {
+        this.socketMaxIdle = socketMaxIdle;
+    }
+
+    /**
+     * Returns the max number of concurrent socket connections per Homematic gateway interface.
+     */
+    public int getSocketMaxConnections() {
+        return socketMaxConnections < 1 ? 1 : socketMaxConnections;
+    }
+
+    /**
+     * Sets the max number of concurrent socket connections per Homematic gateway interface.
+     */
+    public void setSocketMaxConnections(int socketMaxConnections) {
+        this.socketMaxConnections = socketMaxConnections;
+    }
+
+    /**
+     * Returns the max number of datapoint values fetched with one batched RPC request.
+     */
+    public int getLoadValuesBatchSize() {
+        return loadValuesBatchSize < 1 ? 1 : loadValuesBatchSize;
+    }
+
+    /**
+     * Sets the max number of datapoint values fetched with one batched RPC request.
+     */
+    public void setLoadValuesBatchSize(int loadValuesBatchSize) {
+        this.loadValuesBatchSize = loadValuesBatchSize;
+    }
+
+    /**
+     * Returns the number of channels whose values are loaded in parallel when the gateway comes online.
+     */
+    public int getLoadValuesParallelism() {
+        return loadValuesParallelism < 1 ? 1 : loadValuesParallelism;
+    }
+
+    /**
+     * Sets the number of channels whose values are loaded in parallel when the gateway comes online.
+     */
+    public void setLoadValuesParallelism(int loadValuesParallelism) {
+        this.loadValuesParallelism = loadValuesParallelism;
+    }
+
+    /**
+     * Returns the min interval between two forwarded events of a datapoint in milliseconds.
+     */
+    public int getEventMinInterval() {
+        return eventMinInterval < 0 ? 0 : eventMinInterval;
+    }
+
+    /**
+     * Sets the min interval between two forwarded events of a datapoint in milliseconds.
+     */
+    public void setEventMinInterval(int eventMinInterval) {
+        this.eventMinInterval = eventMinInterval;
+    }
+
+    /**
+     * Returns the min change of a numeric datapoint value for an event to be forwarded.
+     */
+    public double getEventChangeThreshold() {
+        return eventChangeThreshold < 0.0 ? 0.0 : eventChangeThreshold;
+    }
+
+    /**
+     * Sets the min change of a numeric datapoint value for an event to be forwarded.
+     */
+    public void setEventChangeThreshold(double eventChangeThreshold) {
+        this.eventChangeThreshold = eventChangeThreshold;
+    }
+
+    /**
+     * Returns true, if events with an unchanged datapoint value are suppressed.
+     */
+    public boolean isEventSuppressUnchanged() {
+        return eventSuppressUnchanged;
+    }
+
+    /**
+     * Sets the suppression of events with an unchanged datapoint value.
+     */
+    public void setEventSuppressUnchanged(boolean eventSuppressUnchanged) {
+        this.eventSuppressUnchanged = eventSuppressUnchanged;
+    }
+
+    /**
+     * Returns true, if events are coalesced before they are forwarded to the things.
+     */
+    public boolean isEventCoalescingEnabled() {
+        return getEventMinInterval() > 0 || getEventChangeThreshold() > 0.0 || eventSuppressUnchanged;
+    }
+
     /**
      * Returns the timeout for the communication to a Homematic gateway in seconds.
      */
@@ -251,6 +363,13 @@ public class HomematicConfig {
         return rfPort == 0 ? DEFAULT_PORT_RF : rfPort;
     }
 
+    /**
+     * Sets the port of the RF daemon.
+     */
+    public void setRfPort(int rfPort) {
+        this.rfPort = rfPort;
+    }
+
     /**
      * Returns the port of the wired daemon.
      */
@@ -265,6 +384,13 @@ public class HomematicConfig {
         return hmIpPort == 0 ? DEFAULT_PORT_HMIP : hmIpPort;
     }
 
+    /**
+     * Sets the port of the HmIp daemon.
+     */
+    public void setHmIpPort(int hmIpPort) {
+        this.hmIpPort = hmIpPort;
+    }
+
     /**
      * Returns the port of the CUxD daemon.
      */
@@ -343,7 +469,12 @@ public class HomematicConfig {
                 .append("gatewayType", gatewayType).append("rfPort", getRfPort()).append("wiredPort", getWiredPort())
                 .append("hmIpPort", getHmIpPort()).append("cuxdPort", getCuxdPort()).append("groupPort", getGroupPort())
                 .append("aliveInterval", aliveInterval).append("reconnectInterval", reconnectInterval)
-                .append("timeout", timeout).append("socketMaxAlive", socketMaxAlive);
+                .append("timeout", timeout).append("socketMaxAlive", socketMaxAlive)
+                .append("socketMaxIdle", socketMaxIdle).append("socketMaxConnections", socketMaxConnections)
+                .append("loadValuesBatchSize", loadValuesBatchSize)
+                .append("loadValuesParallelism", loadValuesParallelism)
+                .append("eventMinInterval", eventMinInterval).append("eventChangeThreshold", eventChangeThreshold)
+                .append("eventSuppressUnchanged", eventSuppressUnchanged);
         return tsb.toString();
     }
 }
@@ -19,8 +19,14 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Queue;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -33,6 +39,7 @@ import org.openhab.binding.homematic.internal.communicator.client.RpcClient;
 import org.openhab.binding.homematic.internal.communicator.client.TransferMode;
 import org.openhab.binding.homematic.internal.communicator.client.UnknownParameterSetException;
 import org.openhab.binding.homematic.internal.communicator.client.XmlRpcClient;
+import org.openhab.binding.homematic.internal.communicator.parser.GetParamsetDescriptionParser;
 import org.openhab.binding.homematic.internal.communicator.server.BinRpcServer;
 import org.openhab.binding.homematic.internal.communicator.server.RpcEventListener;
 import org.openhab.binding.homematic.internal.communicator.server.RpcServer;
@@ -57,6 +64,8 @@ import org.openhab.binding.homematic.internal.communicator.virtual.VirtualDatapo
 import org.openhab.binding.homematic.internal.communicator.virtual.VirtualGateway;
 import org.openhab.binding.homematic.internal.misc.DelayedExecuter;
 import org.openhab.binding.homematic.internal.misc.DelayedExecuter.DelayedExecuterCallback;
+import org.openhab.binding.homematic.internal.misc.EventCoalescer;
+import org.openhab.binding.homematic.internal.misc.EventCoalescer.EventCoalescerCallback;
 import org.openhab.binding.homematic.internal.misc.HomematicClientException;
 import org.openhab.binding.homematic.internal.misc.MiscUtils;
 import org.openhab.binding.homematic.internal.model.HmChannel;
@@ -82,6 +91,7 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
     public static final double DEFAULT_DISABLE_DELAY = 2.0;
     private static final long CONNECTION_TRACKER_INTERVAL_SECONDS = 15;
     private static final String GATEWAY_POOL_NAME = "homematicGateway";
+    private static final String LOAD_VALUES_POOL_NAME = "homematicLoadValues";
 
     private Map<TransferMode, RpcClient<?>> rpcClients = new HashMap<TransferMode, RpcClient<?>>();
     private Map<TransferMode, RpcServer> rpcServers = new HashMap<TransferMode, RpcServer>();
@@ -91,11 +101,14 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
     private HomematicGatewayListener eventListener;
     private long lastEventTime = System.currentTimeMillis();
     private DelayedExecuter delayedExecutor = new DelayedExecuter();
-    private Set<HmDatapointInfo> echoEvents = Collections.synchronizedSet(new HashSet<HmDatapointInfo>());
+    private DeviceMetadataCache metadataCache;
+    private EventCoalescer eventCoalescer;
+    private Set<HmDatapointInfo> echoEvents = Collections
+            .newSetFromMap(new ConcurrentHashMap<HmDatapointInfo, Boolean>());
     private ScheduledFuture<?> eventTrackerThread;
     private ScheduledFuture<?> connectionTrackerThread;
     private ScheduledFuture<?> reconnectThread;
-    private Map<String, HmDevice> devices = Collections.synchronizedMap(new HashMap<String, HmDevice>());
+    private DeviceRegistry deviceRegistry = new DeviceRegistry();
     private Map<HmInterface, TransferMode> availableInterfaces = new TreeMap<HmInterface, TransferMode>();
     private static List<VirtualDatapointHandler> virtualDatapointHandlers = new ArrayList<VirtualDatapointHandler>();
     private boolean cancelLoadAllMetadata;
@@ -125,6 +138,18 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
         this.id = id;
         this.config = config;
         this.eventListener = eventListener;
+        this.metadataCache = new DeviceMetadataCache(id);
+        this.eventCoalescer = new EventCoalescer(config, new EventCoalescerCallback() {
+
+            @Override
+            public void forward(HmDatapointInfo dpInfo, Object newValue) {
+                try {
+                    handleEvent(getDatapoint(dpInfo), newValue);
+                } catch (HomematicClientException ex) {
+                    // ignore datapoint not found
+                }
+            }
+        });
     }
 
     /**
@@ -187,8 +212,9 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
         delayedExecutor.stop();
         stopServers();
         stopClients();
-        devices.clear();
+        deviceRegistry.clear();
         echoEvents.clear();
+        eventCoalescer.clear();
         availableInterfaces.clear();
         config.setGatewayInfo(null);
     }
@@ -332,14 +358,13 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
      */
     @Override
     public HmDatapoint getDatapoint(HmDatapointInfo dpInfo) throws HomematicClientException {
-        HmDevice device = getDevice(dpInfo.getAddress());
-        HmChannel channel = device.getChannel(dpInfo.getChannel());
-        if (channel == null) {
-            throw new HomematicClientException(String.format("Channel %s in device '%s' not found on gateway '%s'",
-                    dpInfo.getChannel(), dpInfo.getAddress(), id));
-        }
-        HmDatapoint dp = channel.getDatapoint(dpInfo);
+        HmDatapoint dp = deviceRegistry.getDatapoint(dpInfo);
         if (dp == null) {
+            HmDevice device = getDevice(dpInfo.getAddress());
+            if (device.getChannel(dpInfo.getChannel()) == null) {
+                throw new HomematicClientException(String.format("Channel %s in device '%s' not found on gateway '%s'",
+                        dpInfo.getChannel(), dpInfo.getAddress(), id));
+            }
             throw new HomematicClientException(String.format("Datapoint '%s' not found on gateway '%s'", dpInfo, id));
         }
         return dp;
@@ -350,7 +375,7 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
      */
     @Override
     public HmDevice getDevice(String address) throws HomematicClientException {
-        HmDevice device = devices.get(address);
+        HmDevice device = deviceRegistry.getDevice(address);
         if (device == null) {
             throw new HomematicClientException(
                     String.format("Device with address '%s' not found on gateway '%s'", address, id));
@@ -358,6 +383,14 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
         return device;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Collection<HmDevice> getDevices() {
+        return deviceRegistry.getDevices();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -372,6 +405,7 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
     @Override
     public void loadAllDeviceMetadata() throws IOException {
         cancelLoadAllMetadata = false;
+        metadataCache.load();
         // load all device descriptions
         List<HmDevice> deviceDescriptions = getDeviceDescriptions();
 
@@ -420,8 +454,9 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
             }
         }
         if (!cancelLoadAllMetadata) {
-            devices.keySet().retainAll(loadedDevices);
+            deviceRegistry.retainAll(loadedDevices);
         }
+        metadataCache.save(!cancelLoadAllMetadata);
         initialized = true;
     }
 
@@ -430,7 +465,7 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
      */
     protected void addChannelDatapoints(HmChannel channel, HmParamsetType paramsetType) throws IOException {
         try {
-            getRpcClient(channel.getDevice().getHmInterface()).addChannelDatapoints(channel, paramsetType);
+            addCachedChannelDatapoints(channel, paramsetType);
         } catch (UnknownParameterSetException ex) {
             logger.info(
                     "Can not load metadata for device: {}, channel: {}, paramset: {}, maybe there are no channels available",
@@ -438,6 +473,21 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
         }
     }
 
+    /**
+     * Adds the datapoints of the paramset description to the channel, the description is only loaded from the gateway
+     * if it is not in the metadata cache.
+     */
+    protected void addCachedChannelDatapoints(HmChannel channel, HmParamsetType paramsetType) throws IOException {
+        String key = DeviceMetadataCache.createKey(channel, paramsetType);
+        Object[] description = metadataCache.get(key);
+        if (description == null) {
+            description = getRpcClient(channel.getDevice().getHmInterface()).getParamsetDescription(channel,
+                    paramsetType);
+            metadataCache.put(key, description);
+        }
+        new GetParamsetDescriptionParser(channel, paramsetType).parse(description);
+    }
+
     /**
      * Loads all device descriptions from the gateway.
      */
@@ -500,6 +550,82 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
         channel.setInitialized(true);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void loadDeviceValues(Collection<HmDevice> devicesToLoad) throws IOException {
+        final Queue<HmChannel> channels = new ConcurrentLinkedQueue<HmChannel>();
+        for (HmDevice device : devicesToLoad) {
+            if (!device.isGatewayExtras()) {
+                for (HmChannel channel : device.getChannels()) {
+                    if (!channel.isInitialized()) {
+                        channels.add(channel);
+                    }
+                }
+            }
+        }
+        logger.debug("Loading values of {} channels from gateway with id '{}'", channels.size(), id);
+
+        ExecutorService executor = ThreadPoolManager.getPool(LOAD_VALUES_POOL_NAME);
+        List<Future<?>> workers = new ArrayList<Future<?>>();
+        for (int i = 0; i < config.getLoadValuesParallelism(); i++) {
+            workers.add(executor.submit(new Runnable() {
+
+                @Override
+                public void run() {
+                    HmChannel channel;
+                    while (!cancelLoadAllMetadata && (channel = channels.poll()) != null) {
+                        try {
+                            loadChannelValues(channel);
+                        } catch (IOException ex) {
+                            logger.debug("Can't load values for channel {} of device '{}' from gateway '{}': {}",
+                                    channel.getNumber(), channel.getDevice().getAddress(), id, ex.getMessage());
+                        }
+                    }
+                }
+            }));
+        }
+        try {
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading values from gateway " + id);
+        } catch (ExecutionException ex) {
+            throw new IOException(ex.getCause().getMessage(), ex.getCause());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getRpcRequestCount() {
+        long count = 0;
+        for (RpcClient<?> rpcClient : rpcClients.values()) {
+            count += rpcClient.getRequestCount();
+        }
+        return count;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getForwardedEventCount() {
+        return eventCoalescer.getForwardedEvents();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getDroppedEventCount() {
+        return eventCoalescer.getDroppedEvents();
+    }
+
     /**
      * Sets all datapoint values for the given channel.
      */
@@ -551,6 +677,7 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
         for (HmChannel channel : device.getChannels()) {
             channel.setInitialized(false);
         }
+        eventCoalescer.reset(device.getAddress());
         eventListener.reloadDeviceValues(device);
     }
 
@@ -582,6 +709,7 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
         if (dp.isPressDatapoint() || (config.getGatewayInfo().isHomegear() && dp.isVariable())) {
             echoEvents.add(dpInfo);
         }
+        eventCoalescer.reset(dpInfo);
         if (dp.isReadOnly()) {
             logger.warn("Datapoint is readOnly, it is not published to the gateway with id '{}': '{}'", id, dpInfo);
         } else if (HmValueType.ACTION == dp.getType() && MiscUtils.isFalseValue(newValue)) {
@@ -651,17 +779,8 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
         } else {
             try {
                 HmDatapoint dp = getDatapoint(dpInfo);
-                dp.setValue(newValue);
-
-                eventListener.onStateUpdated(dp);
-                if (dp.isPressDatapoint() && MiscUtils.isTrueValue(dp.getValue())) {
-                    disableDatapoint(dp, DEFAULT_DISABLE_DELAY);
-                }
-                for (VirtualDatapointHandler vdph : virtualDatapointHandlers) {
-                    if (vdph.canHandleEvent(dp)) {
-                        vdph.handleEvent(this, dp);
-                        eventListener.onStateUpdated(vdph.getVirtualDatapoint(dp.getChannel()));
-                    }
+                if (!isCoalescable(dp) || eventCoalescer.accept(dpInfo, newValue)) {
+                    handleEvent(dp, newValue);
                 }
             } catch (HomematicClientException ex) {
                 // ignore datapoint not found
@@ -669,6 +788,32 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
         }
     }
 
+    /**
+     * Returns true, if the events of the datapoint may be coalesced. Key presses and actions are always forwarded.
+     */
+    private boolean isCoalescable(HmDatapoint dp) {
+        return config.isEventCoalescingEnabled() && dp.getParamsetType() == HmParamsetType.VALUES
+                && !dp.isPressDatapoint() && !dp.isActionType();
+    }
+
+    /**
+     * Updates the datapoint with the new value and forwards it to the thing.
+     */
+    private void handleEvent(HmDatapoint dp, Object newValue) {
+        dp.setValue(newValue);
+
+        eventListener.onStateUpdated(dp);
+        if (dp.isPressDatapoint() && MiscUtils.isTrueValue(dp.getValue())) {
+            disableDatapoint(dp, DEFAULT_DISABLE_DELAY);
+        }
+        for (VirtualDatapointHandler vdph : virtualDatapointHandlers) {
+            if (vdph.canHandleEvent(dp)) {
+                vdph.handleEvent(this, dp);
+                eventListener.onStateUpdated(vdph.getVirtualDatapoint(dp.getChannel()));
+            }
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -689,6 +834,7 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
                             eventListener.onNewDevice(device);
                         }
                     }
+                    metadataCache.save(false);
                 } catch (Exception ex) {
                     logger.error("{}", ex.getMessage(), ex);
                 }
@@ -704,7 +850,7 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
         if (initialized) {
             for (String address : addresses) {
                 logger.debug("Device '{}' removed from gateway with id '{}'", address, id);
-                HmDevice device = devices.remove(address);
+                HmDevice device = deviceRegistry.remove(address);
                 if (device != null) {
                     eventListener.onDeviceDeleted(device);
                 }
@@ -765,7 +911,7 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
             vdph.initialize(device);
 
         }
-        devices.put(device.getAddress(), device);
+        deviceRegistry.add(device);
         logger.debug("Loaded device '{}' ({}) with {} datapoints", device.getAddress(), device.getType(),
                 device.getDatapointCount());
 
@@ -822,6 +968,7 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
                 try {
                     stopServers();
                     startServers();
+                    eventCoalescer.clear();
                     eventListener.onServerRestart();
                 } catch (IOException ex) {
                     logger.warn("{}", ex.getMessage());
@@ -848,6 +995,7 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
                     connectionLost = false;
                     logger.info("Connection resumed on gateway '{}'", id);
                     startClients();
+                    eventCoalescer.clear();
                     eventListener.onConnectionResumed();
                 }
             } catch (IOException ex) {
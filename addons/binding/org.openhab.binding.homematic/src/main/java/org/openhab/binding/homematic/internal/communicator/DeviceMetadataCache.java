@@ -0,0 +1,143 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.smarthome.config.core.ConfigConstants;
+import org.openhab.binding.homematic.internal.model.HmChannel;
+import org.openhab.binding.homematic.internal.model.HmParamsetType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persistent cache for the paramset descriptions of a Homematic gateway. The descriptions are stored as received from
+ * the gateway and keyed by interface, device type, firmware, channel number and paramset type, so a new device or a
+ * firmware update automatically results in a cache miss.
+ *
+ * @author agent - Initial contribution
+ */
+public class DeviceMetadataCache {
+    private final Logger logger = LoggerFactory.getLogger(DeviceMetadataCache.class);
+    private static final String CACHE_FOLDER = ConfigConstants.getUserDataFolder() + File.separator + "homematic";
+
+    private File cacheFile;
+    private Map<String, Object[]> descriptions = new ConcurrentHashMap<String, Object[]>();
+    private Set<String> usedKeys = ConcurrentHashMap.newKeySet();
+    private boolean loaded;
+    private volatile boolean modified;
+    private AtomicInteger hits = new AtomicInteger();
+    private AtomicInteger misses = new AtomicInteger();
+
+    public DeviceMetadataCache(String gatewayId) {
+        cacheFile = new File(CACHE_FOLDER, gatewayId + "-metadata.ser");
+    }
+
+    /**
+     * Returns the cache key for the paramset description of the channel.
+     */
+    public static String createKey(HmChannel channel, HmParamsetType paramsetType) {
+        return String.format("%s:%s:%s:%s:%s", channel.getDevice().getHmInterface(), channel.getDevice().getType(),
+                channel.getDevice().getFirmware(), channel.getNumber(), paramsetType);
+    }
+
+    /**
+     * Returns the cached paramset description or null, if the description is not cached.
+     */
+    public Object[] get(String key) {
+        usedKeys.add(key);
+        Object[] description = descriptions.get(key);
+        if (description != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return description;
+    }
+
+    /**
+     * Adds a paramset description to the cache.
+     */
+    public void put(String key, Object[] description) {
+        usedKeys.add(key);
+        descriptions.put(key, description);
+        modified = true;
+    }
+
+    /**
+     * Loads the cache file, if not already loaded.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        hits.set(0);
+        misses.set(0);
+        if (cacheFile.exists()) {
+            try (ObjectInputStream ois = new ObjectInputStream(
+                    new BufferedInputStream(new FileInputStream(cacheFile)))) {
+                descriptions.putAll((Map<String, Object[]>) ois.readObject());
+                logger.debug("Loaded {} cached paramset descriptions from '{}'", descriptions.size(), cacheFile);
+            } catch (IOException | ClassNotFoundException | ClassCastException ex) {
+                logger.info("Ignoring unreadable metadata cache '{}': {}", cacheFile, ex.getMessage());
+                descriptions.clear();
+                modified = true;
+            }
+        }
+    }
+
+    /**
+     * Writes the cache file if it has been modified. If prune is true, all descriptions which have not been used since
+     * the cache has been loaded are removed.
+     */
+    public synchronized void save(boolean prune) {
+        logger.debug("Metadata cache '{}': {} hits, {} misses", cacheFile, hits.get(), misses.get());
+        if (prune && descriptions.keySet().retainAll(usedKeys)) {
+            modified = true;
+        }
+        usedKeys.clear();
+        if (!modified) {
+            return;
+        }
+        File folder = cacheFile.getParentFile();
+        if (!folder.exists() && !folder.mkdirs()) {
+            logger.warn("Can't create metadata cache folder '{}'", folder);
+            return;
+        }
+        File tempFile = new File(folder, cacheFile.getName() + ".tmp");
+        try (ObjectOutputStream oos = new ObjectOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            oos.writeObject(new HashMap<String, Object[]>(descriptions));
+        } catch (IOException ex) {
+            logger.warn("Can't write metadata cache '{}': {}", cacheFile, ex.getMessage());
+            tempFile.delete();
+            return;
+        }
+        if (cacheFile.exists() && !cacheFile.delete() || !tempFile.renameTo(cacheFile)) {
+            logger.warn("Can't replace metadata cache '{}'", cacheFile);
+            return;
+        }
+        modified = false;
+        logger.debug("Saved {} paramset descriptions to '{}'", descriptions.size(), cacheFile);
+    }
+}
@@ -0,0 +1,135 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.openhab.binding.homematic.internal.model.HmChannel;
+import org.openhab.binding.homematic.internal.model.HmDatapoint;
+import org.openhab.binding.homematic.internal.model.HmDatapointInfo;
+import org.openhab.binding.homematic.internal.model.HmDevice;
+
+/**
+ * Holds the devices of a gateway with an index for the devices by address and an index for the datapoints by
+ * address, channel, paramset and name. Lookups and updates are done without a global lock, iterations work on a
+ * snapshot.
+ *
+ * @author agent - Initial contribution
+ */
+public class DeviceRegistry {
+    private Map<String, HmDevice> devicesByAddress = new ConcurrentHashMap<String, HmDevice>();
+    private Map<HmDatapointInfo, HmDatapoint> datapointsByInfo = new ConcurrentHashMap<HmDatapointInfo, HmDatapoint>();
+
+    /**
+     * Adds the device and all its datapoints, replaces a device with the same address.
+     */
+    public void add(HmDevice device) {
+        HmDevice previousDevice = devicesByAddress.put(device.getAddress(), device);
+        if (previousDevice != null && previousDevice != device) {
+            removeDatapoints(previousDevice);
+        }
+        for (HmChannel channel : device.getChannels()) {
+            datapointsByInfo.putAll(channel.getDatapoints());
+        }
+    }
+
+    /**
+     * Removes the device with the given address and all its datapoints.
+     */
+    public HmDevice remove(String address) {
+        HmDevice device = devicesByAddress.remove(address);
+        if (device != null) {
+            removeDatapoints(device);
+        }
+        return device;
+    }
+
+    /**
+     * Removes all devices whose address is not in the given addresses.
+     */
+    public void retainAll(Collection<String> addresses) {
+        Iterator<String> it = devicesByAddress.keySet().iterator();
+        while (it.hasNext()) {
+            String address = it.next();
+            if (!addresses.contains(address)) {
+                remove(address);
+            }
+        }
+    }
+
+    /**
+     * Removes all devices and datapoints.
+     */
+    public void clear() {
+        devicesByAddress.clear();
+        datapointsByInfo.clear();
+    }
+
+    /**
+     * Returns the device with the given address or null if not available.
+     */
+    public HmDevice getDevice(String address) {
+        return devicesByAddress.get(address);
+    }
+
+    /**
+     * Returns the datapoint for the given HmDatapointInfo or null if not available. Datapoints added to or replaced in
+     * a channel after the device has been registered (e.g. reloaded gateway variables) are indexed on the next lookup.
+     */
+    public HmDatapoint getDatapoint(HmDatapointInfo dpInfo) {
+        HmDatapoint dp = datapointsByInfo.get(dpInfo);
+        if (dp != null && dp.getChannel().getDatapoint(dpInfo) == dp) {
+            return dp;
+        }
+
+        HmDevice device = devicesByAddress.get(dpInfo.getAddress());
+        HmChannel channel = device == null ? null : device.getChannel(dpInfo.getChannel());
+        dp = channel == null ? null : channel.getDatapoint(dpInfo);
+        if (dp == null) {
+            datapointsByInfo.remove(dpInfo);
+        } else {
+            datapointsByInfo.put(dpInfo, dp);
+            if (devicesByAddress.get(dpInfo.getAddress()) != device) {
+                // device removed in the meantime
+                datapointsByInfo.remove(dpInfo, dp);
+            }
+        }
+        return dp;
+    }
+
+    /**
+     * Returns a snapshot of all devices.
+     */
+    public Collection<HmDevice> getDevices() {
+        return Collections.unmodifiableList(new ArrayList<HmDevice>(devicesByAddress.values()));
+    }
+
+    /**
+     * Returns the number of devices.
+     */
+    public int size() {
+        return devicesByAddress.size();
+    }
+
+    /**
+     * Removes all datapoints of the device from the index.
+     */
+    private void removeDatapoints(HmDevice device) {
+        for (HmChannel channel : device.getChannels()) {
+            for (Map.Entry<HmDatapointInfo, HmDatapoint> entry : channel.getDatapoints().entrySet()) {
+                datapointsByInfo.remove(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+}
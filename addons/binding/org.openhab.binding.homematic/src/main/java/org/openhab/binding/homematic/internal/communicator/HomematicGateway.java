@@ -9,6 +9,7 @@
 package org.openhab.binding.homematic.internal.communicator;
 
 import java.io.IOException;
+import java.util.Collection;
 
 import org.openhab.binding.homematic.internal.misc.HomematicClientException;
 import org.openhab.binding.homematic.internal.model.HmChannel;
@@ -44,6 +45,11 @@ public interface HomematicGateway {
      */
     public HmDevice getDevice(String address) throws HomematicClientException;
 
+    /**
+     * Returns a snapshot of all devices of the gateway.
+     */
+    public Collection<HmDevice> getDevices();
+
     /**
      * Cancel loading all device metadata.
      */
@@ -59,6 +65,26 @@ public interface HomematicGateway {
      */
     public void loadChannelValues(HmChannel channel) throws IOException;
 
+    /**
+     * Loads all values of the given devices, several channels are loaded in parallel.
+     */
+    public void loadDeviceValues(Collection<HmDevice> devices) throws IOException;
+
+    /**
+     * Returns the number of RPC requests sent to the gateway.
+     */
+    public long getRpcRequestCount();
+
+    /**
+     * Returns the number of events forwarded to the things by the event coalescer.
+     */
+    public long getForwardedEventCount();
+
+    /**
+     * Returns the number of events dropped by the event coalescer.
+     */
+    public long getDroppedEventCount();
+
     /**
      * Prepares the device for reloading all values from the gateway.
      */
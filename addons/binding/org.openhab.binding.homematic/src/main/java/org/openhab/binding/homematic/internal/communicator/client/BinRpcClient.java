@@ -10,9 +10,9 @@ package org.openhab.binding.homematic.internal.communicator.client;
 
 import java.io.IOException;
 import java.net.Socket;
-
 import org.openhab.binding.homematic.internal.common.HomematicConfig;
 import org.openhab.binding.homematic.internal.communicator.message.BinRpcMessage;
+import org.openhab.binding.homematic.internal.communicator.message.RpcElementHandler;
 import org.openhab.binding.homematic.internal.communicator.message.RpcRequest;
 import org.openhab.binding.homematic.internal.communicator.parser.RpcResponseParser;
 import org.openhab.binding.homematic.internal.model.HmInterface;
@@ -71,22 +71,43 @@ public class BinRpcClient extends RpcClient<byte[]> {
      * Sends a BIN-RPC message and parses the response to see if there was an error.
      */
     @Override
-    protected synchronized Object[] sendMessage(int port, RpcRequest<byte[]> request) throws IOException {
+    protected Object[] sendMessage(int port, RpcRequest<byte[]> request) throws IOException {
+        countRequest();
+        if (logger.isTraceEnabled()) {
+            logger.trace("Client BinRpcRequest:\n{}", request);
+        }
+        return sendMessage(port, request, null, 0);
+    }
+
+    /**
+     * Sends a BIN-RPC message and passes the elements of the array response to the handler while it is decoded.
+     */
+    @Override
+    protected void sendMessage(int port, RpcRequest<byte[]> request, RpcElementHandler handler) throws IOException {
+        countRequest();
         if (logger.isTraceEnabled()) {
             logger.trace("Client BinRpcRequest:\n{}", request);
         }
-        return sendMessage(port, request, 0);
+        sendMessage(port, request, handler, 0);
     }
 
     /**
      * Sends the message, retries if there was an error.
      */
-    private Object[] sendMessage(int port, RpcRequest<byte[]> request, int rpcRetryCounter) throws IOException {
+    private Object[] sendMessage(int port, RpcRequest<byte[]> request, RpcElementHandler handler, int rpcRetryCounter)
+            throws IOException {
         BinRpcMessage resp = null;
+        SocketInfo socketInfo = socketHandler.borrowSocket(port);
+        boolean socketValid = false;
         try {
-            Socket socket = socketHandler.getSocket(port);
+            Socket socket = socketInfo.getSocket();
             socket.getOutputStream().write(request.createMessage());
-            resp = new BinRpcMessage(socket.getInputStream(), false, config.getEncoding());
+            if (handler == null) {
+                resp = new BinRpcMessage(socket.getInputStream(), false, config.getEncoding());
+            } else {
+                resp = new BinRpcMessage(socket.getInputStream(), config.getEncoding(), handler);
+            }
+            socketValid = true;
             return new RpcResponseParser(request).parse(resp.getResponseData());
         } catch (UnknownRpcFailureException | UnknownParameterSetException rpcEx) {
             // throw immediately, don't retry the message
@@ -98,10 +119,18 @@ public class BinRpcClient extends RpcClient<byte[]> {
                 rpcRetryCounter++;
                 logger.debug("BinRpcMessage socket failure, sending message again {}/{}", rpcRetryCounter,
                         MAX_RPC_RETRY);
-                socketHandler.removeSocket(port);
-                return sendMessage(port, request, rpcRetryCounter);
+                socketHandler.invalidateSocket(port, socketInfo);
+                socketInfo = null;
+                return sendMessage(port, request, handler, rpcRetryCounter);
             }
         } finally {
+            if (socketInfo != null) {
+                if (socketValid) {
+                    socketHandler.returnSocket(port, socketInfo);
+                } else {
+                    socketHandler.invalidateSocket(port, socketInfo);
+                }
+            }
             if (logger.isTraceEnabled()) {
                 logger.trace("Client BinRpcResponse:\n{}", resp == null ? "null" : resp.toString());
             }
@@ -8,21 +8,29 @@
  */
 package org.openhab.binding.homematic.internal.communicator.client;
 
+import static org.openhab.binding.homematic.internal.misc.HomematicConstants.RPC_METHODNAME_SYSTEM_MULTICALL;
+
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.lang.StringUtils;
 import org.openhab.binding.homematic.internal.common.HomematicConfig;
+import org.openhab.binding.homematic.internal.communicator.message.RpcElementHandler;
 import org.openhab.binding.homematic.internal.communicator.message.RpcRequest;
 import org.openhab.binding.homematic.internal.communicator.parser.GetAllScriptsParser;
 import org.openhab.binding.homematic.internal.communicator.parser.GetAllSystemVariablesParser;
 import org.openhab.binding.homematic.internal.communicator.parser.GetDeviceDescriptionParser;
-import org.openhab.binding.homematic.internal.communicator.parser.GetParamsetDescriptionParser;
 import org.openhab.binding.homematic.internal.communicator.parser.GetParamsetParser;
 import org.openhab.binding.homematic.internal.communicator.parser.GetValueParser;
+import org.openhab.binding.homematic.internal.communicator.parser.GetValuesParser;
 import org.openhab.binding.homematic.internal.communicator.parser.HomegearLoadDeviceNamesParser;
 import org.openhab.binding.homematic.internal.communicator.parser.ListBidcosInterfacesParser;
 import org.openhab.binding.homematic.internal.communicator.parser.ListDevicesParser;
@@ -47,11 +55,28 @@ public abstract class RpcClient<T> {
     protected static final int MAX_RPC_RETRY = 1;
 
     protected HomematicConfig config;
+    private AtomicLong requestCounter = new AtomicLong();
+    private Set<HmInterface> multicallNotSupported = Collections
+            .newSetFromMap(new ConcurrentHashMap<HmInterface, Boolean>());
 
     public RpcClient(HomematicConfig config) {
         this.config = config;
     }
 
+    /**
+     * Returns the number of RPC requests sent with this client.
+     */
+    public long getRequestCount() {
+        return requestCounter.get();
+    }
+
+    /**
+     * Increments the number of RPC requests sent with this client.
+     */
+    protected void countRequest() {
+        requestCounter.incrementAndGet();
+    }
+
     /**
      * Disposes the client.
      */
@@ -72,6 +97,17 @@ public abstract class RpcClient<T> {
      */
     protected abstract Object[] sendMessage(int port, RpcRequest<T> request) throws IOException;
 
+    /**
+     * Sends the RPC message to the gateway and passes the elements of the array response to the handler. The default
+     * implementation decodes the complete response before the elements are passed.
+     */
+    protected void sendMessage(int port, RpcRequest<T> request, RpcElementHandler handler) throws IOException {
+        Object[] response = sendMessage(port, request);
+        for (Object element : (Object[]) response[0]) {
+            handler.handleElement(element);
+        }
+    }
+
     /**
      * Register a callback for the specified interface where the Homematic gateway can send its events.
      */
@@ -137,17 +173,19 @@ public abstract class RpcClient<T> {
      */
     public Collection<HmDevice> listDevices(HmInterface hmInterface) throws IOException {
         RpcRequest<T> request = createRpcRequest("listDevices");
-        return new ListDevicesParser(hmInterface, config).parse(sendMessage(config.getRpcPort(hmInterface), request));
+        ListDevicesParser parser = new ListDevicesParser(hmInterface, config);
+        sendMessage(config.getRpcPort(hmInterface), request, parser);
+        return parser.getDevices();
     }
 
     /**
-     * Loads all datapoint metadata into the given channel.
+     * Returns the unparsed paramset description of the given channel.
      */
-    public void addChannelDatapoints(HmChannel channel, HmParamsetType paramsetType) throws IOException {
+    public Object[] getParamsetDescription(HmChannel channel, HmParamsetType paramsetType) throws IOException {
         RpcRequest<T> request = createRpcRequest("getParamsetDescription");
         request.addArg(getRpcAddress(channel.getDevice().getAddress()) + ":" + channel.getNumber());
         request.addArg(paramsetType.toString());
-        new GetParamsetDescriptionParser(channel, paramsetType).parse(sendMessage(config.getRpcPort(channel), request));
+        return sendMessage(config.getRpcPort(channel), request);
     }
 
     /**
@@ -176,18 +214,61 @@ public abstract class RpcClient<T> {
     }
 
     /**
-     * Reads all VALUES datapoints individually, fallback method if setChannelDatapointValues throws a -1 Failure
-     * exception.
+     * Reads all VALUES datapoints with batched getValue calls, fallback method if setChannelDatapointValues throws a
+     * -1 Failure exception.
      */
     private void setChannelDatapointValues(HmChannel channel) throws IOException {
+        List<HmDatapoint> datapoints = new ArrayList<HmDatapoint>();
         for (HmDatapoint dp : channel.getDatapoints().values()) {
             if (dp.isReadable() && !dp.isVirtual() && dp.getParamsetType() == HmParamsetType.VALUES) {
-                RpcRequest<T> request = createRpcRequest("getValue");
-                request.addArg(getRpcAddress(channel.getDevice().getAddress()) + ":" + channel.getNumber());
-                request.addArg(dp.getName());
-                new GetValueParser(dp).parse(sendMessage(config.getRpcPort(channel), request));
+                datapoints.add(dp);
             }
         }
+
+        HmInterface hmInterface = channel.getDevice().getHmInterface();
+        if (datapoints.size() > 1 && !multicallNotSupported.contains(hmInterface)) {
+            int batchSize = config.getLoadValuesBatchSize();
+            try {
+                for (int i = 0; i < datapoints.size(); i += batchSize) {
+                    getValues(channel, datapoints.subList(i, Math.min(i + batchSize, datapoints.size())));
+                }
+                return;
+            } catch (UnknownRpcMethodException ex) {
+                logger.debug("Multicall not supported on interface {}, fetching values individually: {}",
+                        hmInterface, ex.getMessage());
+                multicallNotSupported.add(hmInterface);
+            } catch (IOException ex) {
+                logger.debug("Multicall failed on interface {}, fetching values individually: {}", hmInterface,
+                        ex.getMessage());
+            }
+        }
+
+        for (HmDatapoint dp : datapoints) {
+            RpcRequest<T> request = createRpcRequest("getValue");
+            request.addArg(getRpcAddress(channel.getDevice().getAddress()) + ":" + channel.getNumber());
+            request.addArg(dp.getName());
+            new GetValueParser(dp).parse(sendMessage(config.getRpcPort(channel), request));
+        }
+    }
+
+    /**
+     * Reads the values of the given datapoints with one system.multicall request.
+     */
+    private void getValues(HmChannel channel, List<HmDatapoint> datapoints) throws IOException {
+        String address = getRpcAddress(channel.getDevice().getAddress()) + ":" + channel.getNumber();
+        List<Map<String, Object>> calls = new ArrayList<Map<String, Object>>(datapoints.size());
+        for (HmDatapoint dp : datapoints) {
+            List<Object> params = new ArrayList<Object>(2);
+            params.add(address);
+            params.add(dp.getName());
+            Map<String, Object> call = new HashMap<String, Object>();
+            call.put("methodName", "getValue");
+            call.put("params", params);
+            calls.add(call);
+        }
+        RpcRequest<T> request = createRpcRequest(RPC_METHODNAME_SYSTEM_MULTICALL);
+        request.addArg(calls);
+        new GetValuesParser(datapoints).parse(sendMessage(config.getRpcPort(channel), request));
     }
 
     /**
@@ -11,22 +11,26 @@ package org.openhab.binding.homematic.internal.communicator.client;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.Socket;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.openhab.binding.homematic.internal.common.HomematicConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Simple socket cache class.
+ * Socket pool class, holds a limited number of sockets per port which can be used concurrently.
  *
  * @author Gerhard Riegler - Initial contribution
  */
 public class SocketHandler {
     private final Logger logger = LoggerFactory.getLogger(SocketHandler.class);
 
-    private Map<Integer, SocketInfo> socketsPerPort = new HashMap<Integer, SocketInfo>();
+    private Map<Integer, SocketPool> poolsPerPort = new ConcurrentHashMap<Integer, SocketPool>();
     private HomematicConfig config;
 
     public SocketHandler(HomematicConfig config) {
@@ -34,53 +38,157 @@ public class SocketHandler {
     }
 
     /**
-     * Returns a socket for the given port, (re)creates it if required.
+     * Borrows a socket for the given port from the pool, (re)creates it if required. Blocks until a socket is
+     * available or the configured timeout is reached. The socket must be given back with returnSocket or
+     * invalidateSocket.
      */
-    public Socket getSocket(int port) throws IOException {
-        SocketInfo socketInfo = socketsPerPort.get(port);
-        if (socketInfo == null) {
+    public SocketInfo borrowSocket(int port) throws IOException {
+        SocketPool pool = getPool(port);
+        try {
+            if (!pool.permits.tryAcquire(config.getTimeout(), TimeUnit.SECONDS)) {
+                throw new IOException("No free socket available for port " + port + " within " + config.getTimeout()
+                        + " seconds");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a socket for port " + port);
+        }
+
+        try {
+            SocketInfo socketInfo;
+            while ((socketInfo = pool.idleSockets.pollFirst()) != null) {
+                if (isUsable(pool, socketInfo)) {
+                    logger.trace("Returning socket for port {}", port);
+                    return socketInfo;
+                }
+                closeSilent(socketInfo.getSocket());
+            }
+
             logger.trace("Creating new socket for port {}", port);
             Socket socket = new Socket();
-            socket.setSoTimeout(config.getTimeout() * 1000);
-            socket.connect(new InetSocketAddress(config.getGatewayAddress(), port), socket.getSoTimeout());
-            socketInfo = new SocketInfo(socket);
-            socketsPerPort.put(port, socketInfo);
-        } else {
-            boolean isMaxAliveReached = System.currentTimeMillis()
-                    - socketInfo.getCreated() > (config.getSocketMaxAlive() * 1000);
-
-            if (isMaxAliveReached) {
-                logger.debug("Max alive time reached for socket on port {}", port);
-                removeSocket(port);
-                return getSocket(port);
+            try {
+                socket.setSoTimeout(config.getTimeout() * 1000);
+                socket.connect(new InetSocketAddress(config.getGatewayAddress(), port), socket.getSoTimeout());
+            } catch (IOException ex) {
+                closeSilent(socket);
+                throw ex;
             }
-            logger.trace("Returning socket for port {}", port);
+            return new SocketInfo(socket, pool.generation.get());
+        } catch (IOException | RuntimeException ex) {
+            pool.permits.release();
+            throw ex;
         }
-        return socketInfo.getSocket();
     }
 
     /**
-     * Removes the socket for the given port from the cache.
+     * Gives a borrowed socket back to the pool for reuse.
+     */
+    public void returnSocket(int port, SocketInfo socketInfo) {
+        SocketPool pool = getPool(port);
+        try {
+            socketInfo.touch();
+            if (isUsable(pool, socketInfo)) {
+                pool.idleSockets.offerFirst(socketInfo);
+            } else {
+                closeSilent(socketInfo.getSocket());
+            }
+            evictIdleSockets(pool);
+        } finally {
+            pool.permits.release();
+        }
+    }
+
+    /**
+     * Closes a borrowed socket which is in an unknown state and frees its slot in the pool.
+     */
+    public void invalidateSocket(int port, SocketInfo socketInfo) {
+        logger.trace("Closing Socket on port {}", port);
+        closeSilent(socketInfo.getSocket());
+        getPool(port).permits.release();
+    }
+
+    /**
+     * Removes all sockets for the given port from the pool, borrowed sockets are closed when they are returned.
      */
     public void removeSocket(int port) {
-        SocketInfo socketInfo = socketsPerPort.get(port);
-        if (socketInfo != null) {
-            logger.trace("Closing Socket on port {}", port);
-            socketsPerPort.remove(port);
-            closeSilent(socketInfo.getSocket());
+        SocketPool pool = poolsPerPort.get(port);
+        if (pool != null) {
+            logger.trace("Closing Sockets on port {}", port);
+            pool.generation.incrementAndGet();
+            SocketInfo socketInfo;
+            while ((socketInfo = pool.idleSockets.pollFirst()) != null) {
+                closeSilent(socketInfo.getSocket());
+            }
         }
     }
 
     /**
-     * Removes all cached sockets.
+     * Removes all pooled sockets.
      */
     public void flush() {
-        synchronized (SocketHandler.class) {
-            Integer[] portsToRemove = socketsPerPort.keySet().toArray(new Integer[0]);
-            for (Integer key : portsToRemove) {
-                removeSocket(key);
+        for (Integer port : poolsPerPort.keySet()) {
+            removeSocket(port);
+        }
+    }
+
+    /**
+     * Returns the pool for the given port, creates it if required.
+     */
+    private SocketPool getPool(int port) {
+        SocketPool pool = poolsPerPort.get(port);
+        if (pool == null) {
+            SocketPool newPool = new SocketPool(config.getSocketMaxConnections());
+            pool = poolsPerPort.putIfAbsent(port, newPool);
+            if (pool == null) {
+                pool = newPool;
             }
         }
+        return pool;
+    }
+
+    /**
+     * Closes all sockets at the end of the idle queue which have not been used within the max idle time.
+     */
+    private void evictIdleSockets(SocketPool pool) {
+        SocketInfo socketInfo;
+        while ((socketInfo = pool.idleSockets.peekLast()) != null && isIdleTimeReached(socketInfo)) {
+            if (pool.idleSockets.removeLastOccurrence(socketInfo)) {
+                logger.debug("Max idle time reached for socket on port {}", socketInfo.getSocket().getPort());
+                closeSilent(socketInfo.getSocket());
+            }
+        }
+    }
+
+    /**
+     * Returns true, if the socket is healthy and can be used for the next request.
+     */
+    private boolean isUsable(SocketPool pool, SocketInfo socketInfo) {
+        Socket socket = socketInfo.getSocket();
+        if (socketInfo.getGeneration() != pool.generation.get() || socket.isClosed() || !socket.isConnected()
+                || socket.isInputShutdown() || socket.isOutputShutdown()) {
+            return false;
+        }
+        if (System.currentTimeMillis() - socketInfo.getCreated() > (config.getSocketMaxAlive() * 1000L)) {
+            logger.debug("Max alive time reached for socket on port {}", socket.getPort());
+            return false;
+        }
+        if (isIdleTimeReached(socketInfo)) {
+            logger.debug("Max idle time reached for socket on port {}", socket.getPort());
+            return false;
+        }
+        try {
+            // unsolicited data on an idle socket, the stream is out of sync
+            return socket.getInputStream().available() == 0;
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns true, if the socket has not been used within the max idle time.
+     */
+    private boolean isIdleTimeReached(SocketInfo socketInfo) {
+        return System.currentTimeMillis() - socketInfo.getLastUsed() > (config.getSocketMaxIdle() * 1000L);
     }
 
     /**
@@ -93,4 +201,17 @@ public class SocketHandler {
             // ignore
         }
     }
+
+    /**
+     * The sockets and the concurrency limit of one port.
+     */
+    private static class SocketPool {
+        private final Semaphore permits;
+        private final LinkedBlockingDeque<SocketInfo> idleSockets = new LinkedBlockingDeque<SocketInfo>();
+        private final AtomicInteger generation = new AtomicInteger();
+
+        public SocketPool(int maxConnections) {
+            permits = new Semaphore(maxConnections, true);
+        }
+    }
 }
@@ -18,10 +18,18 @@ import java.net.Socket;
 public class SocketInfo {
     private Socket socket;
     private long created;
+    private long lastUsed;
+    private int generation;
 
     public SocketInfo(Socket socket) {
+        this(socket, 0);
+    }
+
+    public SocketInfo(Socket socket, int generation) {
         this.socket = socket;
         this.created = System.currentTimeMillis();
+        this.lastUsed = created;
+        this.generation = generation;
     }
 
     /**
@@ -37,4 +45,25 @@ public class SocketInfo {
     public long getCreated() {
         return created;
     }
+
+    /**
+     * Returns the timestamp when the socket has been returned to the pool the last time.
+     */
+    public long getLastUsed() {
+        return lastUsed;
+    }
+
+    /**
+     * Marks the socket as used now.
+     */
+    public void touch() {
+        lastUsed = System.currentTimeMillis();
+    }
+
+    /**
+     * Returns the pool generation in which the socket has been created.
+     */
+    public int getGeneration() {
+        return generation;
+    }
 }
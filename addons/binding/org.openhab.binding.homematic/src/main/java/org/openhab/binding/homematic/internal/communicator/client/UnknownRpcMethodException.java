@@ -0,0 +1,26 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator.client;
+
+import java.io.IOException;
+
+/**
+ * Exception if the RPC call returns a fault because the method is not supported by the gateway.
+ *
+ * @author agent - Initial contribution
+ */
+
+public class UnknownRpcMethodException extends IOException {
+    private static final long serialVersionUID = 4319872563541962713L;
+
+    public UnknownRpcMethodException(String message) {
+        super(message);
+    }
+
+}
@@ -15,29 +15,42 @@ import java.io.UnsupportedEncodingException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.math.RoundingMode;
+import java.nio.charset.Charset;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import org.apache.commons.io.IOUtils;
-import org.apache.commons.lang.ArrayUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Handles BIN-RPC request and response messages to communicate with a Homematic gateway.
  *
+ * New requests are encoded into and received messages are read into pooled buffers. The buffer of a request is
+ * returned to the pool when the message is created, the buffer of a received message after it has been decoded.
+ * The elements of large array responses like listDevices can be passed to a {@link RpcElementHandler} while they are
+ * decoded, instead of collecting them all into the response data.
+ *
  * @author Gerhard Riegler - Initial contribution
  */
 public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
     private final Logger logger = LoggerFactory.getLogger(BinRpcMessage.class);
 
+    // most requests and events fit into a pooled buffer, larger messages get their own buffer
+    private static final int POOLED_BUFFER_SIZE = 8 * 1024;
+    private static final int MAX_POOLED_BUFFERS = 16;
+
+    private static final Queue<byte[]> bufferPool = new ConcurrentLinkedQueue<byte[]>();
+    private static final AtomicInteger pooledBuffers = new AtomicInteger();
+
     public enum TYPE {
         REQUEST,
         RESPONSE;
@@ -45,12 +58,15 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
 
     private Object[] messageData;
     private byte binRpcData[];
+    private boolean pooled;
     private int offset;
+    private int limit;
 
     private String methodName;
     private TYPE type;
     private int args;
-    private String encoding;
+    private Charset charset;
+    private RpcElementHandler elementHandler;
 
     public BinRpcMessage(String methodName, String encoding) {
         this(methodName, TYPE.REQUEST, encoding);
@@ -62,7 +78,7 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
     public BinRpcMessage(String methodName, TYPE type, String encoding) {
         this.methodName = methodName;
         this.type = type;
-        this.encoding = encoding;
+        this.charset = Charset.forName(encoding);
         createHeader();
     }
 
@@ -70,20 +86,63 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
      * Decodes a BIN-RPC message from the given InputStream.
      */
     public BinRpcMessage(InputStream is, boolean methodHeader, String encoding) throws IOException {
-        this.encoding = encoding;
-        byte sig[] = new byte[8];
-        int length = is.read(sig, 0, 4);
-        if (length != 4) {
-            throw new EOFException("Only " + length + " bytes received reading signature");
+        this.charset = Charset.forName(encoding);
+        readMessage(is, methodHeader);
+    }
+
+    /**
+     * Decodes a BIN-RPC response from the given InputStream. If the response is an array, each element is passed to
+     * the handler as soon as it is decoded and the response data only contains an empty array. Other responses, like
+     * faults, are decoded completely.
+     */
+    public BinRpcMessage(InputStream is, String encoding, RpcElementHandler elementHandler) throws IOException {
+        this.charset = Charset.forName(encoding);
+        this.elementHandler = elementHandler;
+        try {
+            readMessage(is, false);
+        } finally {
+            this.elementHandler = null;
         }
+    }
+
+    /**
+     * Reads the message from the InputStream into a pooled buffer and decodes it.
+     */
+    private void readMessage(InputStream is, boolean methodHeader) throws IOException {
+        byte sig[] = new byte[8];
+        readFully(is, sig, 0, 4, "signature");
         validateBinXSignature(sig);
-        length = is.read(sig, 4, 4);
-        if (length != 4) {
-            throw new EOFException("Only " + length + " bytes received reading message length");
+        readFully(is, sig, 4, 4, "message length");
+        int datasize = getInt(sig, 4);
+        if (datasize < 0) {
+            throw new IOException("Invalid message length " + datasize);
+        }
+
+        // read the payload directly behind the header, no intermediate copies
+        int length = 8 + datasize;
+        byte[] message = acquireBuffer(length);
+        try {
+            System.arraycopy(sig, 0, message, 0, 8);
+            readFully(is, message, 8, datasize, "message data");
+            decodeMessage(message, length, methodHeader);
+        } finally {
+            releaseBuffer(message);
+        }
+    }
+
+    /**
+     * Reads exactly len bytes from the InputStream into the buffer.
+     */
+    private static void readFully(InputStream is, byte[] buffer, int offset, int len, String part)
+            throws IOException {
+        int read = 0;
+        while (read < len) {
+            int count = is.read(buffer, offset + read, len - read);
+            if (count < 0) {
+                throw new EOFException("Only " + read + " bytes received reading " + part);
+            }
+            read += count;
         }
-        int datasize = (new BigInteger(ArrayUtils.subarray(sig, 4, 8))).intValue();
-        byte[] message = ArrayUtils.addAll(sig, IOUtils.toByteArray(is, datasize));
-        decodeMessage(message, methodHeader);
     }
 
     private void validateBinXSignature(byte[] sig) throws UnsupportedEncodingException {
@@ -96,24 +155,33 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
      * Decodes a BIN-RPC message from the given byte array.
      */
     public BinRpcMessage(byte[] message, boolean methodHeader, String encoding) throws IOException, ParseException {
-        this.encoding = encoding;
+        this.charset = Charset.forName(encoding);
         if (message.length < 8) {
             throw new EOFException("Only " + message.length + " bytes received");
         }
         validateBinXSignature(message);
-        decodeMessage(message, methodHeader);
+        decodeMessage(message, message.length, methodHeader);
     }
 
-    private void decodeMessage(byte[] message, boolean methodHeader) throws IOException {
+    /**
+     * Decodes the message, the buffer is not referenced afterwards.
+     */
+    private void decodeMessage(byte[] message, int length, boolean methodHeader) throws IOException {
         binRpcData = message;
+        limit = length;
+        try {
+            offset = 8;
 
-        offset = 8;
-
-        if (methodHeader) {
-            methodName = readString();
-            readInt();
+            if (methodHeader) {
+                methodName = readString();
+                readInt();
+            }
+            generateResponseData();
+        } finally {
+            binRpcData = null;
+            offset = 0;
+            limit = 0;
         }
-        generateResponseData();
     }
 
     public void setType(TYPE type) {
@@ -122,8 +190,17 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
 
     private void generateResponseData() throws IOException {
         offset = 8 + (methodName != null ? methodName.length() + 8 : 0);
+        if (elementHandler != null && limit - offset >= 4 && getInt(binRpcData, offset) == 0x100) {
+            offset += 4;
+            int numElements = readInt();
+            for (int i = 0; i < numElements; i++) {
+                elementHandler.handleElement(readRpcValue());
+            }
+            messageData = new Object[] { new Object[0] };
+            return;
+        }
         List<Object> values = new ArrayList<Object>();
-        while (offset < binRpcData.length) {
+        while (offset < limit) {
             values.add(readRpcValue());
         }
         messageData = values.toArray();
@@ -131,7 +208,8 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
     }
 
     private void createHeader() {
-        binRpcData = new byte[256];
+        binRpcData = acquireBuffer(POOLED_BUFFER_SIZE);
+        pooled = true;
         addString("Bin ");
         setType(type);
         addInt(0); // placeholder content length
@@ -175,8 +253,17 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
     }
 
     private void trimBinRpcData() {
+        if (binRpcData.length == offset) {
+            // the buffer is handed out as the message, it must not be returned to the pool
+            pooled = false;
+            return;
+        }
         byte[] trimmed = new byte[offset];
         System.arraycopy(binRpcData, 0, trimmed, 0, offset);
+        if (pooled) {
+            pooled = false;
+            releaseBuffer(binRpcData);
+        }
         binRpcData = trimmed;
     }
 
@@ -189,43 +276,59 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
     }
 
     // read rpc values
-    private int readInt() {
-        byte bi[] = new byte[4];
-        System.arraycopy(binRpcData, offset, bi, 0, 4);
+    private int readInt() throws IOException {
+        checkRemaining(4);
+        int value = getInt(binRpcData, offset);
         offset += 4;
-        return (new BigInteger(bi)).intValue();
+        return value;
+    }
+
+    private static int getInt(byte[] data, int position) {
+        return ((data[position] & 0xff) << 24) | ((data[position + 1] & 0xff) << 16)
+                | ((data[position + 2] & 0xff) << 8) | (data[position + 3] & 0xff);
     }
 
-    private String readString() throws UnsupportedEncodingException {
+    private String readString() throws IOException {
         int len = readInt();
+        checkRemaining(len);
         offset += len;
-        return new String(binRpcData, offset - len, len, encoding);
+        return new String(binRpcData, offset - len, len, charset);
+    }
+
+    /**
+     * Checks the message length, the buffer may contain data of a previous message behind it.
+     */
+    private void checkRemaining(int bytes) throws IOException {
+        if (bytes < 0 || offset + bytes > limit) {
+            throw new EOFException("Message truncated at offset " + offset + " of " + limit + " bytes");
+        }
     }
 
     private Object readRpcValue() throws IOException {
         int type = readInt();
         switch (type) {
             case 1:
-                return new Integer(readInt());
+                return Integer.valueOf(readInt());
             case 2:
+                checkRemaining(1);
                 return binRpcData[offset++] != 0 ? Boolean.TRUE : Boolean.FALSE;
             case 3:
                 return readString();
             case 4:
                 int mantissa = readInt();
                 int exponent = readInt();
-                BigDecimal bd = new BigDecimal((double) mantissa / (double) (1 << 30) * Math.pow(2, exponent));
+                BigDecimal bd = new BigDecimal(Math.scalb((double) mantissa / (double) (1 << 30), exponent));
                 return bd.setScale(6, RoundingMode.HALF_DOWN).doubleValue();
             case 5:
-                return new Date(readInt() * 1000);
+                return new Date(readInt() * 1000L);
             case 0x100:
                 // Array
                 int numElements = readInt();
-                Collection<Object> array = new ArrayList<Object>();
-                while (numElements-- > 0) {
-                    array.add(readRpcValue());
+                Object[] array = new Object[numElements];
+                for (int i = 0; i < numElements; i++) {
+                    array[i] = readRpcValue();
                 }
-                return array.toArray();
+                return array;
             case 0x101:
                 // Struct
                 numElements = readInt();
@@ -237,7 +340,7 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
                 return struct;
 
             default:
-                for (int i = 0; i < binRpcData.length; i++) {
+                for (int i = 0; i < limit; i++) {
                     logger.info("{} {}", Integer.toHexString(binRpcData[i]), (char) binRpcData[i]);
                 }
                 throw new IOException("Unknown data type " + type);
@@ -251,20 +354,59 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
         offset = temp;
     }
 
-    private void addByte(byte b) {
-        if (offset == binRpcData.length) {
-            byte newdata[] = new byte[binRpcData.length * 2];
-            System.arraycopy(binRpcData, 0, newdata, 0, binRpcData.length);
+    private void ensureCapacity(int additionalBytes) {
+        int required = offset + additionalBytes;
+        if (required > binRpcData.length) {
+            byte newdata[] = new byte[Math.max(binRpcData.length * 2, required)];
+            System.arraycopy(binRpcData, 0, newdata, 0, offset);
+            if (pooled) {
+                pooled = false;
+                releaseBuffer(binRpcData);
+            }
             binRpcData = newdata;
         }
+    }
+
+    /**
+     * Returns a pooled buffer, if the length fits into it, otherwise a new buffer with the given length.
+     */
+    private static byte[] acquireBuffer(int length) {
+        if (length > POOLED_BUFFER_SIZE) {
+            return new byte[length];
+        }
+        byte[] buffer = bufferPool.poll();
+        if (buffer == null) {
+            return new byte[POOLED_BUFFER_SIZE];
+        }
+        pooledBuffers.decrementAndGet();
+        return buffer;
+    }
+
+    /**
+     * Returns the buffer to the pool, if it is a pooled buffer and the pool is not full.
+     */
+    private static void releaseBuffer(byte[] buffer) {
+        if (buffer.length != POOLED_BUFFER_SIZE) {
+            return;
+        }
+        if (pooledBuffers.incrementAndGet() <= MAX_POOLED_BUFFERS) {
+            bufferPool.offer(buffer);
+        } else {
+            pooledBuffers.decrementAndGet();
+        }
+    }
+
+    private void addByte(byte b) {
+        ensureCapacity(1);
         binRpcData[offset++] = b;
     }
 
     private void addInt(int value) {
-        addByte((byte) (value >> 24));
-        addByte((byte) (value >> 16));
-        addByte((byte) (value >> 8));
-        addByte((byte) (value));
+        ensureCapacity(4);
+        binRpcData[offset++] = (byte) (value >> 24);
+        binRpcData[offset++] = (byte) (value >> 16);
+        binRpcData[offset++] = (byte) (value >> 8);
+        binRpcData[offset++] = (byte) (value);
     }
 
     private void addDouble(double value) {
@@ -290,15 +432,22 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
     }
 
     private void addString(String string) {
-        byte sd[];
-        try {
-            sd = string.getBytes(encoding);
-        } catch (UnsupportedEncodingException use) {
-            sd = string.getBytes();
-        }
-        for (byte ch : sd) {
-            addByte(ch);
-        }
+        addBytes(string.getBytes(charset));
+    }
+
+    /**
+     * Adds the length prefixed bytes of the string, the length is the encoded byte length.
+     */
+    private void addLengthPrefixedString(String string) {
+        byte sd[] = string.getBytes(charset);
+        addInt(sd.length);
+        addBytes(sd);
+    }
+
+    private void addBytes(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, binRpcData, offset, bytes.length);
+        offset += bytes.length;
     }
 
     private void addList(Collection<?> collection) {
@@ -310,9 +459,7 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
     private void addObject(Object object) {
         if (object.getClass() == String.class) {
             addInt(3);
-            String string = (String) object;
-            addInt(string.length());
-            addString(string);
+            addLengthPrefixedString((String) object);
         } else if (object.getClass() == Boolean.class) {
             addInt(2);
             addByte(((Boolean) object).booleanValue() ? (byte) 1 : (byte) 0);
@@ -334,7 +481,7 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
             addDouble(((BigInteger) object).doubleValue());
         } else if (object.getClass() == Date.class) {
             addInt(5);
-            addInt((int) ((Date) object).getTime() / 1000);
+            addInt((int) (((Date) object).getTime() / 1000));
         } else if (object instanceof List<?>) {
             Collection<?> list = (Collection<?>) object;
             addInt(0x100);
@@ -345,10 +492,8 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
             addInt(0x101);
             addInt(map.size());
             for (Map.Entry<?, ?> entry : map.entrySet()) {
-                String key = (String) entry.getKey();
-                addInt(key.length());
-                addString(key);
-                addList(Collections.singleton(entry.getValue()));
+                addLengthPrefixedString((String) entry.getKey());
+                addObject(entry.getValue());
             }
         }
     }
@@ -360,8 +505,12 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
     @Override
     public String toString() {
         try {
-            trimBinRpcData();
-            generateResponseData();
+            if (binRpcData != null) {
+                // a new request, decode the added arguments
+                trimBinRpcData();
+                limit = binRpcData.length;
+                generateResponseData();
+            }
             return RpcUtils.dumpRpcMessage(methodName, messageData);
         } catch (Exception e) {
             throw new RuntimeException(e.getMessage(), e);
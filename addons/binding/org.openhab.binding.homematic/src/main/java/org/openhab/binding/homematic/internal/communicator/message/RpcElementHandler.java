@@ -0,0 +1,26 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator.message;
+
+import java.io.IOException;
+
+/**
+ * Receives the elements of an array response one at a time while the response is decoded, so the complete array
+ * never has to be kept in memory.
+ *
+ * @author agent - Initial contribution
+ */
+public interface RpcElementHandler {
+
+    /**
+     * Handles the next decoded element of the array response.
+     */
+    public void handleElement(Object element) throws IOException;
+
+}
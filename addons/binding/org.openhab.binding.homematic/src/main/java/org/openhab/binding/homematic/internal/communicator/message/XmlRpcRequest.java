@@ -145,7 +145,9 @@ public class XmlRpcRequest implements RpcRequest<String> {
             } else if (clazz == Boolean.class) {
                 tag("boolean", ((Boolean) value).booleanValue() ? "1" : "0");
             } else if (clazz == Date.class) {
-                tag("dateTime.iso8601", xmlRpcDateFormat.format(((Date) value)));
+                synchronized (xmlRpcDateFormat) {
+                    tag("dateTime.iso8601", xmlRpcDateFormat.format(((Date) value)));
+                }
             } else if (value instanceof Calendar) {
                 generateValue(((Calendar) value).getTime());
             } else if (value instanceof byte[]) {
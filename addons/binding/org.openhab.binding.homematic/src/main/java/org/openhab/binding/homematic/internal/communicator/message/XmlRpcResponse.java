@@ -18,34 +18,159 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
-
-import org.xml.sax.Attributes;
-import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
-import org.xml.sax.helpers.DefaultHandler;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 /**
- * Decodes a XML-RPC message from the Homematic server.
+ * Decodes a XML-RPC message from the Homematic server. The message is read with a StAX stream reader directly from
+ * the InputStream, the text of the elements is collected in one reused buffer.
  *
  * @author Gerhard Riegler - Initial contribution
  */
 public class XmlRpcResponse implements RpcResponse {
+    private static final XMLInputFactory XML_INPUT_FACTORY = createXmlInputFactory();
+
     private String methodName;
     private Object[] responseData;
 
     /**
      * Decodes a XML-RPC message from the given InputStream.
      */
-    public XmlRpcResponse(InputStream is, String encoding)
-            throws SAXException, ParserConfigurationException, IOException {
-        SAXParserFactory factory = SAXParserFactory.newInstance();
-        SAXParser saxParser = factory.newSAXParser();
-        InputSource inputSource = new InputSource(is);
-        inputSource.setEncoding(encoding);
-        saxParser.parse(inputSource, new XmlRpcHandler());
+    public XmlRpcResponse(InputStream is, String encoding) throws IOException {
+        XMLStreamReader reader = null;
+        try {
+            reader = XML_INPUT_FACTORY.createXMLStreamReader(is, encoding);
+            decode(reader);
+        } catch (XMLStreamException ex) {
+            throw new IOException(ex.getMessage(), ex);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ex) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates the shared XMLInputFactory, DTDs and external entities are not supported.
+     */
+    private static XMLInputFactory createXmlInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.FALSE);
+        return factory;
+    }
+
+    /**
+     * Reads all elements of the message and builds the response data.
+     */
+    private void decode(XMLStreamReader reader) throws XMLStreamException, IOException {
+        LinkedList<List<Object>> currentDataObject = new LinkedList<List<Object>>();
+        currentDataObject.addLast(new ArrayList<Object>());
+        StringBuilder tagValue = new StringBuilder(64);
+        boolean isValueTag = false;
+
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    String tag = reader.getLocalName().toLowerCase();
+                    if (tag.equals("array") || tag.equals("struct")) {
+                        currentDataObject.addLast(new ArrayList<Object>());
+                    }
+                    isValueTag = tag.equals("value");
+                    tagValue.setLength(0);
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    tagValue.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    String currentTag = reader.getLocalName().toLowerCase();
+                    if (currentTag.equals("value")) {
+                        if (isValueTag) {
+                            // value without type is a string
+                            currentDataObject.peekLast().add(tagValue.toString());
+                            isValueTag = false;
+                        }
+                    } else {
+                        endElement(currentTag, tagValue, currentDataObject);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        responseData = currentDataObject.removeLast().toArray();
+    }
+
+    /**
+     * Adds the value of the closed element to the current array or struct.
+     */
+    private void endElement(String currentTag, StringBuilder tagValue, LinkedList<List<Object>> currentDataObject)
+            throws IOException {
+        List<Object> data = currentDataObject.peekLast();
+
+        switch (currentTag) {
+            case "boolean":
+                data.add(tagValue.length() == 1 && tagValue.charAt(0) == '1' ? Boolean.TRUE : Boolean.FALSE);
+                break;
+            case "int":
+            case "i4":
+                data.add(Integer.valueOf(tagValue.toString().trim()));
+                break;
+            case "double":
+                data.add(Double.valueOf(tagValue.toString().trim()));
+                break;
+            case "string":
+            case "name":
+                data.add(tagValue.toString());
+                break;
+            case "array":
+                List<Object> arrayData = currentDataObject.removeLast();
+                currentDataObject.peekLast().add(arrayData.toArray());
+                break;
+            case "struct":
+                List<Object> mapData = currentDataObject.removeLast();
+                Map<Object, Object> resultMap = new HashMap<Object, Object>((int) (mapData.size() / 2 / 0.75f) + 1);
+
+                for (int i = 0; i < mapData.size(); i += 2) {
+                    resultMap.put(mapData.get(i), mapData.get(i + 1));
+                }
+                currentDataObject.peekLast().add(resultMap);
+                break;
+            case "base64":
+                data.add(Base64.getDecoder().decode(tagValue.toString()));
+                break;
+            case "datetime.iso8601":
+                try {
+                    synchronized (XmlRpcRequest.xmlRpcDateFormat) {
+                        data.add(XmlRpcRequest.xmlRpcDateFormat.parse(tagValue.toString()));
+                    }
+                } catch (ParseException ex) {
+                    throw new IOException(ex.getMessage(), ex);
+                }
+                break;
+            case "methodname":
+                methodName = tagValue.toString();
+                break;
+            case "params":
+            case "param":
+            case "methodcall":
+            case "methodresponse":
+            case "member":
+            case "data":
+            case "fault":
+                break;
+            default:
+                throw new IOException("Unknown XML-RPC tag: " + currentTag);
+        }
     }
 
     /**
@@ -71,126 +196,4 @@ public class XmlRpcResponse implements RpcResponse {
     public String toString() {
         return RpcUtils.dumpRpcMessage(methodName, responseData);
     }
-
-    /**
-     * SAX parser implementation to decode XML-RPC.
-     *
-     * @author Gerhard Riegler
-     * @since 1.9.0
-     */
-    private class XmlRpcHandler extends DefaultHandler {
-        private List<Object> result = new ArrayList<Object>();
-        private LinkedList<List<Object>> currentDataObject = new LinkedList<List<Object>>();
-        private StringBuilder tagValue;
-        private boolean isValueTag;
-
-        /**
-         * {@inheritDoc}
-         */
-        @Override
-        public void startDocument() throws SAXException {
-            currentDataObject.addLast(new ArrayList<Object>());
-        }
-
-        /**
-         * {@inheritDoc}
-         */
-        @Override
-        public void endDocument() throws SAXException {
-            result.addAll(currentDataObject.removeLast());
-            responseData = result.toArray();
-        }
-
-        /**
-         * {@inheritDoc}
-         */
-        @Override
-        public void startElement(String uri, String localName, String qName, Attributes attributes)
-                throws SAXException {
-            String tag = qName.toLowerCase();
-            if (tag.equals("array") || tag.equals("struct")) {
-                currentDataObject.addLast(new ArrayList<Object>());
-            }
-            isValueTag = tag.equals("value");
-            tagValue = new StringBuilder();
-        }
-
-        /**
-         * {@inheritDoc}
-         */
-        @Override
-        public void endElement(String uri, String localName, String qName) throws SAXException {
-            String currentTag = qName.toLowerCase();
-            String currentValue = tagValue.toString();
-            List<Object> data = currentDataObject.peekLast();
-
-            switch (currentTag) {
-                case "boolean":
-                    data.add("1".equals(currentValue) ? Boolean.TRUE : Boolean.FALSE);
-                    break;
-                case "int":
-                case "i4":
-                    data.add(new Integer(currentValue));
-                    break;
-                case "double":
-                    data.add(new Double(currentValue));
-                    break;
-                case "string":
-                case "name":
-                    data.add(currentValue);
-                    break;
-                case "value":
-                    if (isValueTag) {
-                        data.add(currentValue);
-                        isValueTag = false;
-                    }
-                    break;
-                case "array":
-                    List<Object> arrayData = currentDataObject.removeLast();
-                    currentDataObject.peekLast().add(arrayData.toArray());
-                    break;
-                case "struct":
-                    List<Object> mapData = currentDataObject.removeLast();
-                    Map<Object, Object> resultMap = new HashMap<Object, Object>();
-
-                    for (int i = 0; i < mapData.size(); i += 2) {
-                        resultMap.put(mapData.get(i), mapData.get(i + 1));
-                    }
-                    currentDataObject.peekLast().add(resultMap);
-                    break;
-                case "base64":
-                    data.add(Base64.getDecoder().decode(currentValue));
-                    break;
-                case "datetime.iso8601":
-                    try {
-                        data.add(XmlRpcRequest.xmlRpcDateFormat.parse(currentValue));
-                    } catch (ParseException ex) {
-                        throw new SAXException(ex.getMessage(), ex);
-                    }
-                    break;
-                case "methodname":
-                    methodName = currentValue;
-                    break;
-                case "params":
-                case "param":
-                case "methodcall":
-                case "methodresponse":
-                case "member":
-                case "data":
-                case "fault":
-                    break;
-                default:
-                    throw new SAXException("Unknown XML-RPC tag: " + currentTag);
-            }
-        }
-
-        /**
-         * {@inheritDoc}
-         */
-        @Override
-        public void characters(char[] ch, int start, int length) throws SAXException {
-            tagValue.append(new String(ch, start, length));
-        }
-
-    }
 }
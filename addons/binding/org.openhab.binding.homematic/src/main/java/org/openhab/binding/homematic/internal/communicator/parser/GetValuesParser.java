@@ -0,0 +1,60 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator.parser;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.openhab.binding.homematic.internal.model.HmDatapoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Parses a system.multicall message with getValue calls from a Homematic gateway.
+ *
+ * @author agent - Initial contribution
+ */
+public class GetValuesParser extends CommonRpcParser<Object[], Void> {
+    private final Logger logger = LoggerFactory.getLogger(GetValuesParser.class);
+
+    private List<HmDatapoint> datapoints;
+
+    public GetValuesParser(List<HmDatapoint> datapoints) {
+        this.datapoints = datapoints;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Void parse(Object[] message) throws IOException {
+        if (message == null || message.length == 0 || !(message[0] instanceof Object[])) {
+            throw new IOException("Unknown multicall result: " + Arrays.deepToString(message));
+        }
+        Object[] results = (Object[]) message[0];
+        if (results.length != datapoints.size()) {
+            throw new IOException(String.format("Multicall returned %d results for %d datapoints", results.length,
+                    datapoints.size()));
+        }
+        for (int i = 0; i < results.length; i++) {
+            HmDatapoint dp = datapoints.get(i);
+            if (results[i] instanceof Object[]) {
+                new GetValueParser(dp).parse((Object[]) results[i]);
+            } else if (results[i] instanceof Map) {
+                Map<?, ?> fault = (Map<?, ?>) results[i];
+                logger.debug("Can't load value for datapoint '{}' of channel {} of device '{}': {} {}", dp.getName(),
+                        dp.getChannel().getNumber(), dp.getChannel().getDevice().getAddress(), fault.get("faultCode"),
+                        fault.get("faultString"));
+            }
+        }
+        return null;
+    }
+}
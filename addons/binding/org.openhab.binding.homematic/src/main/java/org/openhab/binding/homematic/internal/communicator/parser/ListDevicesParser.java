@@ -15,18 +15,22 @@ import java.util.Map;
 
 import org.apache.commons.lang.StringUtils;
 import org.openhab.binding.homematic.internal.common.HomematicConfig;
+import org.openhab.binding.homematic.internal.communicator.message.RpcElementHandler;
 import org.openhab.binding.homematic.internal.model.HmChannel;
 import org.openhab.binding.homematic.internal.model.HmDevice;
 import org.openhab.binding.homematic.internal.model.HmInterface;
 
 /**
- * Parses a list devices message and generates device and channel metadata.
+ * Parses a list devices message and generates device and channel metadata. The device descriptions can be passed all
+ * at once to {@link #parse(Object[])} or one at a time to {@link #handleElement(Object)} while the response is
+ * decoded.
  *
  * @author Gerhard Riegler - Initial contribution
  */
-public class ListDevicesParser extends CommonRpcParser<Object[], Collection<HmDevice>> {
+public class ListDevicesParser extends CommonRpcParser<Object[], Collection<HmDevice>> implements RpcElementHandler {
     private HmInterface hmInterface;
     private HomematicConfig config;
+    private Map<String, HmDevice> devices = new HashMap<String, HmDevice>();
 
     public ListDevicesParser(HmInterface hmInterface, HomematicConfig config) {
         this.hmInterface = hmInterface;
@@ -37,37 +41,50 @@ public class ListDevicesParser extends CommonRpcParser<Object[], Collection<HmDe
      * {@inheritDoc}
      */
     @Override
-    @SuppressWarnings("unchecked")
     public Collection<HmDevice> parse(Object[] message) throws IOException {
         message = (Object[]) message[0];
-        Map<String, HmDevice> devices = new HashMap<String, HmDevice>();
-
         for (int i = 0; i < message.length; i++) {
-            Map<String, ?> data = (Map<String, ?>) message[i];
-            boolean isDevice = !StringUtils.contains(toString(data.get("ADDRESS")), ":");
+            handleElement(message[i]);
+        }
+        return getDevices();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void handleElement(Object element) throws IOException {
+        Map<String, ?> data = (Map<String, ?>) element;
+        boolean isDevice = !StringUtils.contains(toString(data.get("ADDRESS")), ":");
 
-            if (isDevice) {
-                HmDevice device = new HmDevice();
-                device.setAddress(getAddress(data.get("ADDRESS")));
-                device.setType(toString(data.get("TYPE")));
-                device.setHomegearId(toString(data.get("ID")));
-                device.setFirmware(toString(data.get("FIRMWARE")));
-                device.setHmInterface(hmInterface);
-                device.setGatewayId(config.getGatewayInfo().getId());
+        if (isDevice) {
+            HmDevice device = new HmDevice();
+            device.setAddress(getAddress(data.get("ADDRESS")));
+            device.setType(toString(data.get("TYPE")));
+            device.setHomegearId(toString(data.get("ID")));
+            device.setFirmware(toString(data.get("FIRMWARE")));
+            device.setHmInterface(hmInterface);
+            device.setGatewayId(config.getGatewayInfo().getId());
 
-                devices.put(device.getAddress(), device);
-            } else {
-                // channel
-                String deviceAddress = getAddress(data.get("PARENT"));
-                HmDevice device = devices.get(deviceAddress);
+            devices.put(device.getAddress(), device);
+        } else {
+            // channel
+            String deviceAddress = getAddress(data.get("PARENT"));
+            HmDevice device = devices.get(deviceAddress);
 
-                HmChannel channel = new HmChannel();
-                channel.setNumber(toInteger(data.get("INDEX")));
-                channel.setType(toString(data.get("TYPE")));
+            HmChannel channel = new HmChannel();
+            channel.setNumber(toInteger(data.get("INDEX")));
+            channel.setType(toString(data.get("TYPE")));
 
-                device.addChannel(channel);
-            }
+            device.addChannel(channel);
         }
+    }
+
+    /**
+     * Returns the devices of all handled device descriptions.
+     */
+    public Collection<HmDevice> getDevices() {
         return devices.values();
     }
 }
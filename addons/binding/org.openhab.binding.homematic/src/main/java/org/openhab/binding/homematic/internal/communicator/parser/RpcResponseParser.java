@@ -14,6 +14,7 @@ import java.util.Map;
 import org.apache.commons.lang.StringUtils;
 import org.openhab.binding.homematic.internal.communicator.client.UnknownParameterSetException;
 import org.openhab.binding.homematic.internal.communicator.client.UnknownRpcFailureException;
+import org.openhab.binding.homematic.internal.communicator.client.UnknownRpcMethodException;
 import org.openhab.binding.homematic.internal.communicator.message.RpcRequest;
 
 /**
@@ -22,6 +23,10 @@ import org.openhab.binding.homematic.internal.communicator.message.RpcRequest;
  * @author Gerhard Riegler - Initial contribution
  */
 public class RpcResponseParser extends CommonRpcParser<Object[], Object[]> {
+    // XML-RPC fault codes for an unknown method (specification for fault codes and xmlrpc-c)
+    private static final int FAULT_METHOD_NOT_FOUND = -32601;
+    private static final int FAULT_NO_SUCH_METHOD = -506;
+
     private RpcRequest<?> request;
 
     public RpcResponseParser(RpcRequest<?> request) {
@@ -46,6 +51,8 @@ public class RpcResponseParser extends CommonRpcParser<Object[], Object[]> {
                         throw new UnknownRpcFailureException(faultMessage);
                     } else if (faultCode.intValue() == -3 && StringUtils.equals("Unknown paramset", faultString)) {
                         throw new UnknownParameterSetException(faultMessage);
+                    } else if (isUnknownMethod(faultCode.intValue(), faultString)) {
+                        throw new UnknownRpcMethodException(faultMessage);
                     }
                     throw new IOException(faultMessage);
                 }
@@ -54,4 +61,13 @@ public class RpcResponseParser extends CommonRpcParser<Object[], Object[]> {
         }
         throw new IOException("Unknown Result: " + message);
     }
+
+    private boolean isUnknownMethod(int faultCode, String faultString) {
+        if (faultCode == FAULT_METHOD_NOT_FOUND || faultCode == FAULT_NO_SUCH_METHOD) {
+            return true;
+        }
+        String fault = StringUtils.lowerCase(faultString);
+        return StringUtils.contains(fault, "method") && (StringUtils.contains(fault, "not found")
+                || StringUtils.contains(fault, "unknown") || StringUtils.contains(fault, "not defined"));
+    }
 }
@@ -10,28 +10,60 @@ package org.openhab.binding.homematic.internal.communicator.server;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
-import java.net.ServerSocket;
-import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import org.eclipse.smarthome.core.common.ThreadPoolManager;
 import org.openhab.binding.homematic.internal.common.HomematicConfig;
 import org.openhab.binding.homematic.internal.communicator.message.BinRpcMessage;
 import org.openhab.binding.homematic.internal.communicator.message.RpcRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
- * Waits for a message from the Homematic gateway and starts the RpcCallbackHandler to handle the message.
+ * Waits for messages from the Homematic gateway with a non blocking selector and starts the BinRpcResponseHandler to
+ * handle a message as soon as it has been received completely. The handlers are executed by a bounded pool, if the
+ * pool is exhausted, received messages are kept back and no new connections are accepted until the pool has drained.
+ * The responses are written by the selector thread as soon as the connection is writable.
  *
  * @author Gerhard Riegler - Initial contribution
  */
 public class BinRpcNetworkService implements Runnable {
+    private final Logger logger = LoggerFactory.getLogger(BinRpcNetworkService.class);
+
     private static final byte BIN_EMPTY_STRING[] = { 'B', 'i', 'n', 1, 0, 0, 0, 8, 0, 0, 0, 3, 0, 0, 0, 0 };
     private static final byte BIN_EMPTY_ARRAY[] = { 'B', 'i', 'n', 1, 0, 0, 0, 8, 0, 0, 1, 0, 0, 0, 0, 0 };
     private static final byte BIN_EMPTY_EVENT_LIST[] = { 'B', 'i', 'n', 1, 0, 0, 0, 21, 0, 0, 1, 0, 0, 0, 0, 1, 0, 0, 0,
             3, 0, 0, 0, 5, 'e', 'v', 'e', 'n', 't' };
 
-    private static final String RPC_POOL_NAME = "homematicRpc";
-    private ServerSocket serverSocket;
-    private boolean accept = true;
+    private static final int HEADER_SIZE = 8;
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAX_POOLED_BUFFERS = 32;
+    private static final int MAX_MESSAGE_SIZE = 32 * 1024 * 1024;
+    private static final int DISPATCH_THREADS = 4;
+    private static final int DISPATCH_QUEUE_SIZE = 1000;
+
+    private ServerSocketChannel serverChannel;
+    private Selector selector;
+    private ThreadPoolExecutor dispatcher;
+    private Queue<ByteBuffer> bufferPool = new ConcurrentLinkedQueue<ByteBuffer>();
+    private Queue<Response> responses = new ConcurrentLinkedQueue<Response>();
+    private Queue<BinRpcResponseHandler> deferredHandlers = new ArrayDeque<BinRpcResponseHandler>();
+    private SelectionKey serverKey;
+    private volatile boolean accept = true;
     private HomematicConfig config;
     private RpcResponseHandler<byte[]> rpcResponseHandler;
 
@@ -41,9 +73,25 @@ public class BinRpcNetworkService implements Runnable {
     public BinRpcNetworkService(RpcEventListener listener, HomematicConfig config) throws IOException {
         this.config = config;
 
-        serverSocket = new ServerSocket();
-        serverSocket.setReuseAddress(true);
-        serverSocket.bind(new InetSocketAddress(config.getBinCallbackPort()));
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.socket().setReuseAddress(true);
+        serverChannel.socket().bind(new InetSocketAddress(config.getBinCallbackPort()));
+        serverChannel.configureBlocking(false);
+        selector = Selector.open();
+        serverKey = serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+        final AtomicInteger threadCounter = new AtomicInteger();
+        dispatcher = new ThreadPoolExecutor(DISPATCH_THREADS, DISPATCH_THREADS, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(DISPATCH_QUEUE_SIZE), new ThreadFactory() {
+
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "homematicRpc-" + threadCounter.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                }, new ThreadPoolExecutor.AbortPolicy());
+        dispatcher.allowCoreThreadTimeOut(true);
 
         this.rpcResponseHandler = new RpcResponseHandler<byte[]>(listener) {
 
@@ -88,25 +136,258 @@ public class BinRpcNetworkService implements Runnable {
     public void run() {
         while (accept) {
             try {
-                Socket cs = serverSocket.accept();
-                BinRpcResponseHandler rpcHandler = new BinRpcResponseHandler(cs, rpcResponseHandler, config);
-                ThreadPoolManager.getPool(RPC_POOL_NAME).execute(rpcHandler);
+                selector.select();
+                if (!accept) {
+                    break;
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        acceptConnection();
+                    } else if (key.isReadable()) {
+                        readMessage(key);
+                    } else if (key.isWritable()) {
+                        writeResponse(key);
+                    }
+                }
+                startResponses();
+                dispatchDeferred();
+            } catch (ClosedSelectorException ex) {
+                break;
             } catch (IOException ex) {
-                // ignore
+                logger.trace("{}", ex.getMessage(), ex);
+            }
+        }
+        close();
+    }
+
+    /**
+     * Accepts a new connection from the Homematic gateway and registers it for reading.
+     */
+    private void acceptConnection() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel != null) {
+            channel.configureBlocking(false);
+            channel.register(selector, SelectionKey.OP_READ, borrowBuffer());
+        }
+    }
+
+    /**
+     * Reads the available data of the connection and dispatches the message if it is complete.
+     */
+    private void readMessage(SelectionKey key) {
+        SocketChannel channel = (SocketChannel) key.channel();
+        ByteBuffer buffer = (ByteBuffer) key.attachment();
+        try {
+            if (channel.read(buffer) < 0) {
+                closeConnection(key, buffer);
+                return;
+            }
+            if (buffer.position() < HEADER_SIZE) {
+                return;
+            }
+            if (buffer.get(0) != 'B' || buffer.get(1) != 'i' || buffer.get(2) != 'n') {
+                logger.warn("No BinX signature in message from {}, closing connection", channel.getRemoteAddress());
+                closeConnection(key, buffer);
+                return;
+            }
+            int messageSize = HEADER_SIZE + buffer.getInt(4);
+            if (messageSize < HEADER_SIZE || messageSize > MAX_MESSAGE_SIZE) {
+                logger.warn("Invalid message size {} from {}, closing connection", messageSize,
+                        channel.getRemoteAddress());
+                closeConnection(key, buffer);
+                return;
+            }
+            if (messageSize > buffer.capacity()) {
+                ByteBuffer largerBuffer = ByteBuffer.allocate(messageSize);
+                buffer.flip();
+                largerBuffer.put(buffer);
+                releaseBuffer(buffer);
+                buffer = largerBuffer;
+                key.attach(buffer);
+                return;
+            }
+            if (buffer.position() >= messageSize) {
+                // no more reading until the response has been written
+                key.interestOps(0);
+                key.attach(null);
+                byte[] message = new byte[messageSize];
+                buffer.flip();
+                buffer.get(message);
+                releaseBuffer(buffer);
+                dispatch(new BinRpcResponseHandler(this, key, message, rpcResponseHandler, config));
+            }
+        } catch (IOException ex) {
+            logger.trace("{}", ex.getMessage(), ex);
+            closeConnection(key, buffer);
+        }
+    }
+
+    /**
+     * Executes the handler or keeps it back, if the pool is exhausted. While handlers are kept back, no new
+     * connections are accepted.
+     */
+    private void dispatch(BinRpcResponseHandler handler) {
+        if (deferredHandlers.isEmpty() && tryExecute(handler)) {
+            return;
+        }
+        if (deferredHandlers.isEmpty()) {
+            logger.warn("Too many pending events from the Homematic gateway, pausing to accept connections");
+            serverKey.interestOps(0);
+        }
+        deferredHandlers.add(handler);
+    }
+
+    /**
+     * Executes the kept back handlers as far as the pool has capacity and accepts connections again if all have been
+     * executed.
+     */
+    private void dispatchDeferred() {
+        if (deferredHandlers.isEmpty()) {
+            return;
+        }
+        while (!deferredHandlers.isEmpty() && tryExecute(deferredHandlers.peek())) {
+            deferredHandlers.poll();
+        }
+        if (deferredHandlers.isEmpty() && serverKey.isValid()) {
+            logger.debug("Accepting connections from the Homematic gateway again");
+            serverKey.interestOps(SelectionKey.OP_ACCEPT);
+        }
+    }
+
+    private boolean tryExecute(BinRpcResponseHandler handler) {
+        try {
+            dispatcher.execute(handler);
+            return true;
+        } catch (RejectedExecutionException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Hands the response of a handled message over to the selector thread, which writes it to the connection. A
+     * response without data closes the connection.
+     */
+    void respond(SelectionKey key, byte[] data) {
+        responses.add(new Response(key, data));
+        selector.wakeup();
+    }
+
+    /**
+     * Starts writing the responses of the handled messages, called by the selector thread.
+     */
+    private void startResponses() {
+        Response response;
+        while ((response = responses.poll()) != null) {
+            SelectionKey key = response.key;
+            if (!key.isValid()) {
+                continue;
+            }
+            if (response.data == null) {
+                closeConnection(key, null);
+            } else {
+                key.attach(ByteBuffer.wrap(response.data));
+                writeResponse(key);
+            }
+        }
+    }
+
+    /**
+     * Writes as much of the response as the connection accepts and waits for the connection to become writable
+     * again, if it is not complete.
+     */
+    private void writeResponse(SelectionKey key) {
+        ByteBuffer buffer = (ByteBuffer) key.attachment();
+        try {
+            ((SocketChannel) key.channel()).write(buffer);
+            if (buffer.hasRemaining()) {
+                key.interestOps(SelectionKey.OP_WRITE);
+            } else {
+                closeConnection(key, null);
             }
+        } catch (IOException ex) {
+            logger.trace("{}", ex.getMessage(), ex);
+            closeConnection(key, null);
         }
     }
 
     /**
-     * Stops the listening.
+     * Closes the connection and releases the read buffer.
+     */
+    private void closeConnection(SelectionKey key, ByteBuffer buffer) {
+        key.cancel();
+        releaseBuffer(buffer);
+        try {
+            key.channel().close();
+        } catch (IOException ex) {
+            // ignore
+        }
+    }
+
+    /**
+     * Returns a pooled read buffer or creates a new one.
+     */
+    private ByteBuffer borrowBuffer() {
+        ByteBuffer buffer = bufferPool.poll();
+        return buffer != null ? buffer : ByteBuffer.allocate(BUFFER_SIZE);
+    }
+
+    /**
+     * Gives a read buffer of the default size back to the pool.
+     */
+    private void releaseBuffer(ByteBuffer buffer) {
+        if (buffer != null && buffer.capacity() == BUFFER_SIZE && bufferPool.size() < MAX_POOLED_BUFFERS) {
+            buffer.clear();
+            bufferPool.offer(buffer);
+        }
+    }
+
+    /**
+     * Stops the listening, the selector thread closes all connections before it ends.
      */
     public void shutdown() {
         accept = false;
+        selector.wakeup();
+    }
+
+    /**
+     * Closes all connections and the selector, called by the selector thread.
+     */
+    private void close() {
+        dispatcher.shutdownNow();
+        deferredHandlers.clear();
+        responses.clear();
         try {
-            serverSocket.close();
+            for (SelectionKey key : selector.keys()) {
+                key.channel().close();
+            }
+            selector.close();
+        } catch (IOException | ClosedSelectorException ex) {
+            // ignore
+        }
+        try {
+            serverChannel.close();
         } catch (IOException ioe) {
             // ignore
         }
     }
 
+    /**
+     * The response to a handled message.
+     */
+    private static class Response {
+        private final SelectionKey key;
+        private final byte[] data;
+
+        private Response(SelectionKey key, byte[] data) {
+            this.key = key;
+            this.data = data;
+        }
+    }
+
 }
@@ -8,9 +8,7 @@
  */
 package org.openhab.binding.homematic.internal.communicator.server;
 
-import java.io.EOFException;
-import java.io.IOException;
-import java.net.Socket;
+import java.nio.channels.SelectionKey;
 
 import org.openhab.binding.homematic.internal.common.HomematicConfig;
 import org.openhab.binding.homematic.internal.communicator.message.BinRpcMessage;
@@ -18,46 +16,43 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Reads a BIN-RPC message from the socket and handles the method call.
+ * Decodes a received BIN-RPC message, handles the method call and passes the result to the network service, which
+ * writes it to the connection.
  *
  * @author Gerhard Riegler - Initial contribution
  */
 public class BinRpcResponseHandler implements Runnable {
     private final Logger logger = LoggerFactory.getLogger(BinRpcResponseHandler.class);
 
-    private Socket socket;
+    private BinRpcNetworkService networkService;
+    private SelectionKey key;
+    private byte[] messageData;
     private RpcResponseHandler<byte[]> rpcResponseHandler;
     private HomematicConfig config;
 
-    public BinRpcResponseHandler(Socket socket, RpcResponseHandler<byte[]> rpcResponseHandler, HomematicConfig config) {
-        this.socket = socket;
+    public BinRpcResponseHandler(BinRpcNetworkService networkService, SelectionKey key, byte[] messageData,
+            RpcResponseHandler<byte[]> rpcResponseHandler, HomematicConfig config) {
+        this.networkService = networkService;
+        this.key = key;
+        this.messageData = messageData;
         this.rpcResponseHandler = rpcResponseHandler;
         this.config = config;
     }
 
     /**
-     * Reads the event from the Homematic gateway and handles the method call.
+     * Decodes the event from the Homematic gateway and handles the method call.
      */
     @Override
     public void run() {
+        byte[] returnValue = null;
         try {
-            BinRpcMessage message = new BinRpcMessage(socket.getInputStream(), true, config.getEncoding());
+            BinRpcMessage message = new BinRpcMessage(messageData, true, config.getEncoding());
             logger.trace("Event BinRpcMessage: {}", message);
-            byte[] returnValue = rpcResponseHandler.handleMethodCall(message.getMethodName(),
-                    message.getResponseData());
-            if (returnValue != null) {
-                socket.getOutputStream().write(returnValue);
-            }
-        } catch (EOFException eof) {
-            // ignore
+            returnValue = rpcResponseHandler.handleMethodCall(message.getMethodName(), message.getResponseData());
         } catch (Exception e) {
             logger.error("{}", e.getMessage(), e);
         } finally {
-            try {
-                socket.close();
-            } catch (IOException ex) {
-                // ignore
-            }
+            networkService.respond(key, returnValue);
         }
     }
 }
@@ -52,14 +52,14 @@ public class BinRpcServer implements RpcServer {
     public void shutdown() {
         if (networkService != null) {
             logger.debug("Stopping BIN-RPC server");
+            networkService.shutdown();
             try {
                 if (networkServiceThread != null) {
-                    networkServiceThread.interrupt();
+                    networkServiceThread.join(1000);
                 }
-            } catch (Exception e) {
-                logger.error("{}", e.getMessage(), e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
-            networkService.shutdown();
             networkService = null;
         }
     }
@@ -14,7 +14,6 @@ import java.io.PrintWriter;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.xml.parsers.ParserConfigurationException;
 
 import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.server.Server;
@@ -25,7 +24,6 @@ import org.openhab.binding.homematic.internal.communicator.message.XmlRpcRequest
 import org.openhab.binding.homematic.internal.communicator.message.XmlRpcResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.xml.sax.SAXException;
 
 /**
  * Reads a XML-RPC message and handles the method call.
@@ -144,7 +142,7 @@ public class XmlRpcServer implements RpcServer {
                     logger.trace("Server XmlRpcResponse:\n{}", returnValue);
                 }
                 respWriter.println(returnValue);
-            } catch (SAXException | ParserConfigurationException ex) {
+            } catch (IOException ex) {
                 logger.error("{}", ex.getMessage(), ex);
                 respWriter.println(XML_EMPTY_STRING);
             }
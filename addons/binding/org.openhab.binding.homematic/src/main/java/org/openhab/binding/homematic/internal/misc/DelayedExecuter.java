@@ -9,24 +9,30 @@
 package org.openhab.binding.homematic.internal.misc;
 
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.Map;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.eclipse.smarthome.core.common.ThreadPoolManager;
 import org.openhab.binding.homematic.internal.model.HmDatapointInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Executes a callback method either immediately or after a given delay for a datapoint.
+ * Executes a callback method either immediately or after a given delay for a datapoint. All delayed events of all
+ * gateways are executed by one shared scheduler, a new delayed event for a datapoint replaces a pending one.
  *
  * @author Gerhard Riegler - Initial contribution
  */
 public class DelayedExecuter {
     private final Logger logger = LoggerFactory.getLogger(DelayedExecuter.class);
+    private static final String DELAYED_EXECUTER_POOL_NAME = "homematicDelayedExecuter";
 
-    private Map<HmDatapointInfo, Timer> delayedEvents = new HashMap<HmDatapointInfo, Timer>();
+    private Map<HmDatapointInfo, DelayedEvent> delayedEvents = new ConcurrentHashMap<HmDatapointInfo, DelayedEvent>();
+    private AtomicLong firedEvents = new AtomicLong();
+    private AtomicLong coalescedEvents = new AtomicLong();
 
     /**
      * Executes a callback method either immediately or after a given delay.
@@ -34,29 +40,17 @@ public class DelayedExecuter {
     public void start(final HmDatapointInfo dpInfo, final double delay, final DelayedExecuterCallback callback)
             throws IOException, HomematicClientException {
         if (delay > 0.0) {
-            synchronized (DelayedExecuter.class) {
-                logger.debug("Delaying event for {} seconds: '{}'", delay, dpInfo);
+            logger.debug("Delaying event for {} seconds: '{}'", delay, dpInfo);
 
-                Timer timer = delayedEvents.get(dpInfo);
-                if (timer != null) {
-                    timer.cancel();
-                }
-
-                timer = new Timer();
-                delayedEvents.put(dpInfo, timer);
-                timer.schedule(new TimerTask() {
-                    @Override
-                    public void run() {
-                        logger.debug("Executing delayed event for '{}'", dpInfo);
-                        delayedEvents.remove(dpInfo);
-                        try {
-                            callback.execute();
-                        } catch (Exception ex) {
-                            logger.error("{}", ex.getMessage(), ex);
-                        }
-                    }
-                }, (long) (delay * 1000));
+            DelayedEvent event = new DelayedEvent(dpInfo, callback);
+            DelayedEvent previousEvent = delayedEvents.put(dpInfo, event);
+            if (previousEvent != null) {
+                previousEvent.cancel();
+                coalescedEvents.incrementAndGet();
+                logger.debug("Replaced pending delayed event for '{}'", dpInfo);
             }
+            event.future = ThreadPoolManager.getScheduledPool(DELAYED_EXECUTER_POOL_NAME).schedule(event,
+                    (long) (delay * 1000), TimeUnit.MILLISECONDS);
         } else {
             callback.execute();
         }
@@ -66,12 +60,75 @@ public class DelayedExecuter {
      * Stops all delayed events.
      */
     public void stop() {
-        for (Timer timer : delayedEvents.values()) {
-            timer.cancel();
+        logger.debug("Stopping delayed events, pending: {}, fired: {}, coalesced: {}", delayedEvents.size(),
+                firedEvents.get(), coalescedEvents.get());
+        for (DelayedEvent event : delayedEvents.values()) {
+            event.cancel();
         }
         delayedEvents.clear();
     }
 
+    /**
+     * Returns the number of delayed events waiting for execution.
+     */
+    public int getPendingEvents() {
+        return delayedEvents.size();
+    }
+
+    /**
+     * Returns the number of executed delayed events.
+     */
+    public long getFiredEvents() {
+        return firedEvents.get();
+    }
+
+    /**
+     * Returns the number of delayed events which have been replaced by a newer event for the same datapoint.
+     */
+    public long getCoalescedEvents() {
+        return coalescedEvents.get();
+    }
+
+    /**
+     * A delayed event for a datapoint, only executed if it is still the latest event for the datapoint.
+     */
+    private class DelayedEvent implements Runnable {
+        private HmDatapointInfo dpInfo;
+        private DelayedExecuterCallback callback;
+        private volatile ScheduledFuture<?> future;
+
+        public DelayedEvent(HmDatapointInfo dpInfo, DelayedExecuterCallback callback) {
+            this.dpInfo = dpInfo;
+            this.callback = callback;
+        }
+
+        /**
+         * Cancels the execution of the event.
+         */
+        public void cancel() {
+            ScheduledFuture<?> scheduledFuture = future;
+            if (scheduledFuture != null) {
+                scheduledFuture.cancel(false);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void run() {
+            if (delayedEvents.remove(dpInfo, this)) {
+                logger.debug("Executing delayed event for '{}'", dpInfo);
+                firedEvents.incrementAndGet();
+                try {
+                    callback.execute();
+                } catch (Exception ex) {
+                    logger.error("{}", ex.getMessage(), ex);
+                }
+            }
+        }
+    }
+
     /**
      * Callback interface for the {@link DelayedExecuter}.
      *
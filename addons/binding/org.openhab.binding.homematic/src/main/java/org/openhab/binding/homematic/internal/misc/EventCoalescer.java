@@ -0,0 +1,214 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.misc;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.lang.ObjectUtils;
+import org.eclipse.smarthome.core.common.ThreadPoolManager;
+import org.openhab.binding.homematic.internal.common.HomematicConfig;
+import org.openhab.binding.homematic.internal.model.HmDatapointInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Coalesces the events of chatty datapoints before they are forwarded to the things. An event is dropped if the value
+ * is unchanged, if a numeric value has changed less than the configured threshold or, if it is received within the
+ * min interval, held back until the interval has elapsed. The state of each datapoint is updated lock-free.
+ *
+ * @author agent - Initial contribution
+ */
+public class EventCoalescer {
+    private final Logger logger = LoggerFactory.getLogger(EventCoalescer.class);
+    private static final String EVENT_COALESCER_POOL_NAME = "homematicEventCoalescer";
+
+    private Map<HmDatapointInfo, AtomicReference<EventState>> states =
+            new ConcurrentHashMap<HmDatapointInfo, AtomicReference<EventState>>();
+    private AtomicLong forwardedEvents = new AtomicLong();
+    private AtomicLong droppedEvents = new AtomicLong();
+    private HomematicConfig config;
+    private EventCoalescerCallback callback;
+
+    public EventCoalescer(HomematicConfig config, EventCoalescerCallback callback) {
+        this.config = config;
+        this.callback = callback;
+    }
+
+    /**
+     * Returns true, if the event should be forwarded immediately. Otherwise the event is dropped or held back and
+     * forwarded later through the callback.
+     */
+    public boolean accept(HmDatapointInfo dpInfo, Object newValue) {
+        AtomicReference<EventState> stateRef = states.get(dpInfo);
+        if (stateRef == null) {
+            AtomicReference<EventState> newStateRef = new AtomicReference<EventState>();
+            stateRef = states.putIfAbsent(dpInfo, newStateRef);
+            if (stateRef == null) {
+                stateRef = newStateRef;
+            }
+        }
+
+        while (true) {
+            long now = System.currentTimeMillis();
+            EventState state = stateRef.get();
+            if (state == null) {
+                if (stateRef.compareAndSet(null, new EventState(newValue, now))) {
+                    forwardedEvents.incrementAndGet();
+                    return true;
+                }
+            } else if (isUnchanged(state.value, newValue)) {
+                // a held back event is superseded by the last forwarded value
+                if (!state.pending || stateRef.compareAndSet(state, new EventState(state.value, state.timestamp))) {
+                    droppedEvents.addAndGet(state.pending ? 2 : 1);
+                    logger.trace("Dropping unchanged event for '{}'", dpInfo);
+                    return false;
+                }
+            } else if (now - state.timestamp < config.getEventMinInterval()) {
+                if (stateRef.compareAndSet(state, new EventState(state, newValue))) {
+                    if (state.pending) {
+                        droppedEvents.incrementAndGet();
+                    } else {
+                        schedule(dpInfo, stateRef, state.timestamp + config.getEventMinInterval() - now);
+                    }
+                    logger.trace("Holding back event for '{}'", dpInfo);
+                    return false;
+                }
+            } else if (stateRef.compareAndSet(state, new EventState(newValue, now))) {
+                if (state.pending) {
+                    droppedEvents.incrementAndGet();
+                }
+                forwardedEvents.incrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns true, if the new value is the same as the last forwarded value or within the change threshold.
+     */
+    private boolean isUnchanged(Object lastValue, Object newValue) {
+        if (config.isEventSuppressUnchanged() && ObjectUtils.equals(lastValue, newValue)) {
+            return true;
+        }
+        double threshold = config.getEventChangeThreshold();
+        if (threshold > 0.0 && lastValue instanceof Number && newValue instanceof Number) {
+            return Math.abs(((Number) newValue).doubleValue() - ((Number) lastValue).doubleValue()) < threshold;
+        }
+        return false;
+    }
+
+    /**
+     * Schedules the forwarding of a held back event.
+     */
+    private void schedule(final HmDatapointInfo dpInfo, final AtomicReference<EventState> stateRef, long delay) {
+        ThreadPoolManager.getScheduledPool(EVENT_COALESCER_POOL_NAME).schedule(new Runnable() {
+
+            @Override
+            public void run() {
+                EventState state = stateRef.get();
+                while (state != null && state.pending && states.get(dpInfo) == stateRef) {
+                    if (stateRef.compareAndSet(state, new EventState(state.pendingValue, System.currentTimeMillis()))) {
+                        forwardedEvents.incrementAndGet();
+                        logger.trace("Forwarding held back event for '{}'", dpInfo);
+                        try {
+                            callback.forward(dpInfo, state.pendingValue);
+                        } catch (Exception ex) {
+                            logger.error("{}", ex.getMessage(), ex);
+                        }
+                        return;
+                    }
+                    state = stateRef.get();
+                }
+            }
+        }, Math.max(delay, 0), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Resets the state of the datapoint, the next event is forwarded.
+     */
+    public void reset(HmDatapointInfo dpInfo) {
+        states.remove(dpInfo);
+    }
+
+    /**
+     * Resets the state of all datapoints of the device, the next events are forwarded.
+     */
+    public void reset(String address) {
+        Iterator<HmDatapointInfo> it = states.keySet().iterator();
+        while (it.hasNext()) {
+            if (it.next().getAddress().equals(address)) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Resets the state of all datapoints, held back events are discarded.
+     */
+    public void clear() {
+        logger.debug("Clearing event coalescer, forwarded: {}, dropped: {}", forwardedEvents.get(),
+                droppedEvents.get());
+        states.clear();
+    }
+
+    /**
+     * Returns the number of forwarded events.
+     */
+    public long getForwardedEvents() {
+        return forwardedEvents.get();
+    }
+
+    /**
+     * Returns the number of dropped events.
+     */
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    /**
+     * Immutable state of a datapoint, the last forwarded value and an optional held back value.
+     */
+    private static class EventState {
+        private final Object value;
+        private final long timestamp;
+        private final boolean pending;
+        private final Object pendingValue;
+
+        public EventState(Object value, long timestamp) {
+            this.value = value;
+            this.timestamp = timestamp;
+            this.pending = false;
+            this.pendingValue = null;
+        }
+
+        public EventState(EventState state, Object pendingValue) {
+            this.value = state.value;
+            this.timestamp = state.timestamp;
+            this.pending = true;
+            this.pendingValue = pendingValue;
+        }
+    }
+
+    /**
+     * Callback interface for the {@link EventCoalescer}.
+     *
+     * @author agent - Initial contribution
+     */
+    public interface EventCoalescerCallback {
+
+        public void forward(HmDatapointInfo dpInfo, Object newValue);
+
+    }
+
+}
@@ -8,6 +8,8 @@
  */
 package org.openhab.binding.homematic.type;
 
+import java.util.Collection;
+
 import org.openhab.binding.homematic.internal.model.HmDevice;
 
 /**
@@ -27,9 +29,9 @@ public interface HomematicTypeGenerator {
     public void generate(HmDevice device);
 
     /**
-     * Validates all devices for multiple firmware versions. Different firmware versions for the same device may have
+     * Validates the devices for multiple firmware versions. Different firmware versions for the same device may have
      * different datapoints which may cause warnings in the logfile.
      */
-    public void validateFirmwares();
+    public void validateFirmwares(Collection<HmDevice> devices);
 
 }
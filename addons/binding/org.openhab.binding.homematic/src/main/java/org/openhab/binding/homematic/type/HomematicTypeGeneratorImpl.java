@@ -15,6 +15,7 @@ import java.math.BigDecimal;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -62,7 +63,6 @@ public class HomematicTypeGeneratorImpl implements HomematicTypeGenerator {
     private HomematicThingTypeProvider thingTypeProvider;
     private HomematicChannelTypeProvider channelTypeProvider;
     private HomematicConfigDescriptionProvider configDescriptionProvider;
-    private Map<String, Set<String>> firmwaresByType = new HashMap<String, Set<String>>();
 
     private static final String[] STATUS_DATAPOINT_NAMES = new String[] { DATAPOINT_NAME_UNREACH,
             DATAPOINT_NAME_CONFIG_PENDING, DATAPOINT_NAME_DEVICE_IN_BOOTLOADER, DATAPOINT_NAME_UPDATE_PENDING };
@@ -158,7 +158,6 @@ public class HomematicTypeGeneratorImpl implements HomematicTypeGenerator {
                 tt = createThingType(device, groupTypes);
                 thingTypeProvider.addThingType(tt);
             }
-            addFirmware(device);
         }
     }
 
@@ -166,7 +165,11 @@ public class HomematicTypeGeneratorImpl implements HomematicTypeGenerator {
      * {@inheritDoc}
      */
     @Override
-    public void validateFirmwares() {
+    public void validateFirmwares(Collection<HmDevice> devices) {
+        Map<String, Set<String>> firmwaresByType = new HashMap<String, Set<String>>();
+        for (HmDevice device : devices) {
+            addFirmware(firmwaresByType, device);
+        }
         for (String deviceType : firmwaresByType.keySet()) {
             Set<String> firmwares = firmwaresByType.get(deviceType);
             if (firmwares.size() > 1) {
@@ -182,7 +185,7 @@ public class HomematicTypeGeneratorImpl implements HomematicTypeGenerator {
     /**
      * Adds the firmware version for validation.
      */
-    private void addFirmware(HmDevice device) {
+    private void addFirmware(Map<String, Set<String>> firmwaresByType, HmDevice device) {
         if (!StringUtils.equals(device.getFirmware(), "?") && !DEVICE_TYPE_VIRTUAL.equals(device.getType())
                 && !DEVICE_TYPE_VIRTUAL_WIRED.equals(device.getType())) {
             Set<String> firmwares = firmwaresByType.get(device.getType());
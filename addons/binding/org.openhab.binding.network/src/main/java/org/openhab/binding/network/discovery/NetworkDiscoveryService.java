@@ -10,19 +10,28 @@ package org.openhab.binding.network.discovery;
 
 import static org.openhab.binding.network.NetworkBindingConstants.*;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 import org.eclipse.smarthome.config.discovery.AbstractDiscoveryService;
 import org.eclipse.smarthome.config.discovery.DiscoveryResultBuilder;
+import org.eclipse.smarthome.core.common.ThreadPoolManager;
 import org.eclipse.smarthome.core.thing.ThingUID;
 import org.openhab.binding.network.service.DiscoveryCallback;
 import org.openhab.binding.network.service.NetworkUtils;
+import org.openhab.binding.network.service.dhcp.ReceiveDHCPRequestPackets;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -30,64 +39,178 @@ import org.slf4j.LoggerFactory;
  * The {@link NetworkDiscoveryService} is responsible for discovering devices on
  * the current Network. It uses every Network Interface which is connected to a network.
  *
+ * A scan pings at most {@link #MAX_PARALLEL_PINGS} addresses at the same time and reports every device as soon
+ * as it answered. Devices which answered within the last hour are pinged first. The background discovery only
+ * pings the addresses of new DHCP requests, which were observed by the DHCP listener. Scans and background
+ * discovery share the "networkDiscovery" thread pool of the {@link ThreadPoolManager}, the number of parallel pings
+ * is limited by its size.
+ *
  * @author Marc Mettke - Initial contribution
  */
 public class NetworkDiscoveryService extends AbstractDiscoveryService implements DiscoveryCallback {
     private final Logger logger = LoggerFactory.getLogger(NetworkDiscoveryService.class);
-    private ExecutorService executorService = null;
     static final int PING_TIMEOUT_IN_MS = 500;
-    private int scanningNetworkSize = 0;
+    static final int MAX_PARALLEL_PINGS = Runtime.getRuntime().availableProcessors() * 10;
+    static final long RESPONDER_CACHE_TIME_MS = TimeUnit.HOURS.toMillis(1);
+    static final int BACKGROUND_INTERVAL_IN_S = 60;
+    private static final String THREADPOOL_DISCOVERY = "networkDiscovery";
+
+    private final Map<String, Long> recentResponders = new ConcurrentHashMap<>();
+    private final List<Future<?>> scanPings = new ArrayList<>();
+    private Queue<String> scanningIPs = null;
+    private Queue<String> observedIPs = null;
+    private int runningPings = 0;
+    private ScheduledFuture<?> backgroundJob = null;
 
     public NetworkDiscoveryService() {
         super(SUPPORTED_THING_TYPES_UIDS, 900, false);
     }
 
     /**
-     * Starts the DiscoveryThread for each IP on each interface on the network
-     *
+     * Starts the ping threads for each IP on each interface on the network. This method does not block,
+     * the scan is finished if all addresses are pinged or {@link #stopScan()} is called.
      */
     @Override
-    protected void startScan() {
-        if (executorService != null) {
-            stopScan();
-        }
+    protected synchronized void startScan() {
+        cancelPings();
 
         logger.debug("Starting Discovery");
         LinkedHashSet<String> networkIPs = NetworkUtils.getNetworkIPs(NetworkUtils.getInterfaceIPs());
-        scanningNetworkSize = networkIPs.size();
-        executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 10);
 
-        for (Iterator<String> it = networkIPs.iterator(); it.hasNext();) {
-            final String ip = it.next();
-            executorService.execute(new PingRunnable(ip, this));
+        // ping the recent responders first
+        Queue<String> ips = new ConcurrentLinkedQueue<>();
+        long minLastSeen = System.currentTimeMillis() - RESPONDER_CACHE_TIME_MS;
+        for (Iterator<Map.Entry<String, Long>> it = recentResponders.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<String, Long> responder = it.next();
+            if (responder.getValue() < minLastSeen) {
+                it.remove();
+            } else if (networkIPs.remove(responder.getKey())) {
+                ips.add(responder.getKey());
+            }
+        }
+        ips.addAll(networkIPs);
+
+        ExecutorService pingPool = ThreadPoolManager.getPool(THREADPOOL_DISCOVERY);
+        int threads = Math.max(1, Math.min(getParallelPings(pingPool), ips.size()));
+        logger.debug("Pinging {} addresses with {} threads", ips.size(), threads);
+        scanningIPs = ips;
+        runningPings = threads;
+        for (int i = 0; i < threads; i++) {
+            scanPings.add(pingPool.submit(new PingRunnable(ips, this)));
         }
-        stopScan();
     }
 
     @Override
     protected synchronized void stopScan() {
         super.stopScan();
-        if (executorService == null) {
+        cancelPings();
+    }
+
+    /**
+     * Called by each {@link PingRunnable} if it has no more addresses to ping. The scan is finished with the
+     * last runnable.
+     */
+    synchronized void pingFinished(Queue<String> ips) {
+        if (ips != scanningIPs || --runningPings > 0) {
+            return;
+        }
+        logger.debug("Discovery finished");
+        scanPings.clear();
+        scanningIPs = null;
+        super.stopScan();
+    }
+
+    private void cancelPings() {
+        if (scanningIPs == null) {
             return;
         }
+        scanningIPs.clear();
+        for (Future<?> ping : scanPings) {
+            ping.cancel(true);
+        }
+        scanPings.clear();
+        scanningIPs = null;
+    }
+
+    /**
+     * Returns the number of pings, which can run in parallel in the given pool.
+     */
+    private static int getParallelPings(ExecutorService pingPool) {
+        if (pingPool instanceof ThreadPoolExecutor) {
+            return Math.min(MAX_PARALLEL_PINGS, ((ThreadPoolExecutor) pingPool).getMaximumPoolSize());
+        }
+        return MAX_PARALLEL_PINGS;
+    }
+
+    @Override
+    protected void deactivate() {
+        super.deactivate();
+        stopBackgroundDiscovery();
+        synchronized (this) {
+            cancelPings();
+        }
+    }
+
+    @Override
+    protected void startBackgroundDiscovery() {
+        if (backgroundJob == null || backgroundJob.isCancelled()) {
+            backgroundJob = scheduler.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    scanObservedAddresses();
+                }
+            }, BACKGROUND_INTERVAL_IN_S, BACKGROUND_INTERVAL_IN_S, TimeUnit.SECONDS);
+        }
+    }
+
+    @Override
+    protected void stopBackgroundDiscovery() {
+        if (backgroundJob != null) {
+            backgroundJob.cancel(true);
+            backgroundJob = null;
+        }
+        synchronized (this) {
+            if (observedIPs != null) {
+                observedIPs.clear();
+                observedIPs = null;
+            }
+        }
+    }
 
-        try {
-            executorService.awaitTermination(PING_TIMEOUT_IN_MS * scanningNetworkSize, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException e) {
+    /**
+     * Pings the addresses of the DHCP requests since the last call, which did not answer recently.
+     */
+    private synchronized void scanObservedAddresses() {
+        Queue<String> ips = new ConcurrentLinkedQueue<>();
+        long minLastSeen = System.currentTimeMillis() - RESPONDER_CACHE_TIME_MS;
+        for (String ip : ReceiveDHCPRequestPackets.pollObservedAddresses()) {
+            Long lastSeen = recentResponders.get(ip);
+            if (lastSeen == null || lastSeen < minLastSeen) {
+                ips.add(ip);
+            }
+        }
+        if (ips.isEmpty()) {
+            return;
         }
-        executorService.shutdown();
-        executorService = null;
 
+        ExecutorService pingPool = ThreadPoolManager.getPool(THREADPOOL_DISCOVERY);
+        int threads = Math.min(getParallelPings(pingPool), ips.size());
+        logger.debug("Pinging {} observed addresses with {} threads", ips.size(), threads);
+        observedIPs = ips;
+        for (int i = 0; i < threads; i++) {
+            pingPool.execute(new PingRunnable(ips, this));
+        }
     }
 
     /**
-     * Submit newly discovered devices. This method is called by the spawned threads in {@link startScan}.
+     * Submit newly discovered devices. This method is called by the spawned threads in {@link #startScan()}.
      *
      * @param ip The device IP, received by the
      */
     @Override
     public void newDevice(String ip) {
         logger.info("Found {}", ip);
+        recentResponders.put(ip, System.currentTimeMillis());
 
         // uid must not contains dots
         ThingUID uid = new ThingUID(THING_TYPE_DEVICE, ip.replace('.', '_'));
@@ -8,37 +8,51 @@
  */
 package org.openhab.binding.network.discovery;
 
+import java.util.Queue;
+
 import org.eclipse.smarthome.model.script.actions.Ping;
 import org.openhab.binding.network.service.NetworkUtils;
 
 /**
- * This runnable pings the given IP address and is used by the {@see NetworkDiscoveryService}.
+ * This runnable pings the IP addresses of the given queue one after another and is used by the
+ * {@see NetworkDiscoveryService}. It stops if the queue is empty or the thread is interrupted.
  * If the java ping does not work, a native ping will be tried. This procedure is necessary,
  * because in some OS versions (e.g. Windows 7) the java ping does not work reliably.
  *
  * @author David Graeff <david.graeff@web.de>
  */
 class PingRunnable implements Runnable {
-    final String ip;
+    final Queue<String> ips;
     final NetworkDiscoveryService service;
 
-    public PingRunnable(String ip, NetworkDiscoveryService service) {
-        this.ip = ip;
+    public PingRunnable(Queue<String> ips, NetworkDiscoveryService service) {
+        this.ips = ips;
         this.service = service;
-        if (ip == null) {
-            throw new RuntimeException("ip may not be null!");
+        if (ips == null) {
+            throw new RuntimeException("ips may not be null!");
         }
     }
 
     @Override
     public void run() {
-        try {
-            if (Ping.checkVitality(ip, 0, NetworkDiscoveryService.PING_TIMEOUT_IN_MS)) {
-                service.newDevice(ip);
-            } else if (NetworkUtils.nativePing(ip, 0, NetworkDiscoveryService.PING_TIMEOUT_IN_MS)) {
+        String ip;
+        while (!Thread.currentThread().isInterrupted() && (ip = ips.poll()) != null) {
+            if (ping(ip)) {
                 service.newDevice(ip);
             }
+        }
+        service.pingFinished(ips);
+    }
+
+    static boolean ping(String ip) {
+        try {
+            return Ping.checkVitality(ip, 0, NetworkDiscoveryService.PING_TIMEOUT_IN_MS)
+                    || NetworkUtils.nativePing(ip, 0, NetworkDiscoveryService.PING_TIMEOUT_IN_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
         } catch (Exception e) {
+            return false;
         }
     }
 }
@@ -13,9 +13,6 @@ import java.net.InetAddress;
 import java.net.SocketException;
 import java.net.SocketTimeoutException;
 import java.net.UnknownHostException;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
 
 import org.eclipse.smarthome.model.script.actions.Ping;
 import org.openhab.binding.network.service.dhcp.ReceiveDHCPRequestPackets;
@@ -32,8 +29,6 @@ public class NetworkService {
 
     private Logger logger = LoggerFactory.getLogger(NetworkService.class);
 
-    private ScheduledFuture<?> refreshJob;
-
     private String hostname;
     private int port;
     private int retry;
@@ -110,20 +105,15 @@ public class NetworkService {
         this.useSystemPing = useSystemPing;
     }
 
-    public void startAutomaticRefresh(ScheduledExecutorService scheduledExecutorService,
-            final StateUpdate stateUpdate) {
-        Runnable runnable = new Runnable() {
-            @Override
-            public void run() {
-                try {
-                    stateUpdate.newState(updateDeviceState());
-                } catch (InvalidConfigurationException e) {
-                    stateUpdate.invalidConfig();
-                }
-            }
-        };
-
-        refreshJob = scheduledExecutorService.scheduleAtFixedRate(runnable, 0, refreshInterval, TimeUnit.MILLISECONDS);
+    /**
+     * Registers this service at the {@link PresenceEngine}, which checks the device every refresh interval.
+     */
+    public void startAutomaticRefresh(final StateUpdate stateUpdate) {
+        try {
+            PresenceEngine.register(this, stateUpdate);
+        } catch (IOException e) {
+            logger.error("Cannot start automatic refresh: {}", e.getMessage());
+        }
 
         if (dhcplisten) {
             try {
@@ -135,7 +125,7 @@ public class NetworkService {
     }
 
     public void stopAutomaticRefresh() {
-        refreshJob.cancel(true);
+        PresenceEngine.unregister(this);
         try {
             ReceiveDHCPRequestPackets.unregister(InetAddress.getByName(hostname).getHostAddress());
         } catch (UnknownHostException e) {
@@ -143,7 +133,17 @@ public class NetworkService {
     }
 
     /**
-     * Updates one device to a new status
+     * Checks the device now without blocking the caller. The result is reported to the StateUpdate of
+     * {@link #startAutomaticRefresh(StateUpdate)}.
+     */
+    public void refresh() {
+        if (!PresenceEngine.refresh(this)) {
+            logger.debug("Automatic refresh of host '{}' is not running", hostname);
+        }
+    }
+
+    /**
+     * Updates one device to a new status. This call blocks until the device answered or all retries timed out.
      */
     public double updateDeviceState() throws InvalidConfigurationException {
         int currentTry = 0;
@@ -0,0 +1,432 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.network.service;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.Channel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.smarthome.core.common.ThreadPoolManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A singleton presence engine, which checks all registered {@link NetworkService}s with a few threads.
+ * If the first service is registered and there is no singleton instance, an instance will be created. If the last
+ * service is removed, all threads are stopped.
+ *
+ * TCP port checks are non blocking connects, which are handled by a single selector thread. ICMP and system pings
+ * can not be done with NIO and block a thread of the worker pool for up to timeout * (retry + 1) milliseconds. The
+ * worker pool is sized to the expected number of concurrently blocked threads of all registered services, between
+ * the configured size of the thread pool and {@link #MAX_WORKER_THREADS}. At most two checks per worker thread may
+ * be queued, further checks are skipped until a check has finished.
+ *
+ * A new service is checked right away. The following checks start with a random offset within the refresh interval,
+ * so that many devices with the same interval are not checked at once.
+ *
+ * @author agent - Initial contribution
+ */
+public class PresenceEngine {
+    private static final String THREADPOOL_TIMER = "network";
+    private static final String THREADPOOL_WORKERS = "networkPresence";
+    private static final int MAX_WORKER_THREADS = 32;
+    private static final int QUEUED_CHECKS_PER_THREAD = 2;
+    private static final long SELECT_TIMEOUT_MS = 100;
+    private static final long MAX_FIRST_CHECK_DELAY_MS = 1000;
+    private static final long SKIPPED_CHECKS_WARNING_INTERVAL_NS = TimeUnit.MINUTES.toNanos(1);
+
+    private static PresenceEngine instance;
+
+    private final Logger logger = LoggerFactory.getLogger(PresenceEngine.class);
+    private final Map<NetworkService, Probe> probes = new ConcurrentHashMap<>();
+    private final Queue<Probe> pendingConnects = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService timer;
+    private final ExecutorService workers;
+    private final int configuredWorkerThreads;
+    private final AtomicInteger blockingChecks = new AtomicInteger();
+    private volatile int maxBlockingChecks;
+    private final AtomicInteger skippedChecks = new AtomicInteger();
+    private volatile long lastSkippedChecksWarning = System.nanoTime() - SKIPPED_CHECKS_WARNING_INTERVAL_NS;
+    private final Selector selector;
+    private final Thread selectorThread;
+    private volatile boolean willbeclosed = false;
+
+    /**
+     * Registers the service and starts the periodic checks. The results are reported to the given StateUpdate.
+     */
+    public static synchronized void register(NetworkService service, StateUpdate stateUpdate) throws IOException {
+        if (instance == null) {
+            instance = new PresenceEngine();
+        }
+        instance.add(service, stateUpdate);
+        instance.updateWorkerThreads();
+    }
+
+    /**
+     * Stops the periodic checks of the service. Results of a running check are dropped.
+     */
+    public static synchronized void unregister(NetworkService service) {
+        if (instance == null) {
+            return;
+        }
+        instance.remove(service);
+        if (instance.probes.isEmpty()) {
+            instance.close();
+            instance = null;
+        } else {
+            instance.updateWorkerThreads();
+        }
+    }
+
+    /**
+     * Checks the registered service now, if no check is running for it.
+     *
+     * @return false if the service is not registered
+     */
+    public static synchronized boolean refresh(NetworkService service) {
+        Probe probe = instance == null ? null : instance.probes.get(service);
+        if (probe == null) {
+            return false;
+        }
+        instance.check(probe);
+        return true;
+    }
+
+    PresenceEngine() throws IOException {
+        selector = Selector.open();
+        timer = ThreadPoolManager.getScheduledPool(THREADPOOL_TIMER);
+        workers = ThreadPoolManager.getPool(THREADPOOL_WORKERS);
+        configuredWorkerThreads = workers instanceof ThreadPoolExecutor
+                ? ((ThreadPoolExecutor) workers).getCorePoolSize()
+                : MAX_WORKER_THREADS;
+        maxBlockingChecks = configuredWorkerThreads * QUEUED_CHECKS_PER_THREAD;
+        selectorThread = new Thread(this::runSelector, "network-presence-selector");
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+    }
+
+    private void add(NetworkService service, StateUpdate stateUpdate) {
+        Probe probe = new Probe(service, stateUpdate);
+        Probe previous = probes.put(service, probe);
+        if (previous != null) {
+            previous.cancel();
+        }
+
+        // the first check runs right away, so the channels of a new thing don't stay undefined for a whole interval
+        long interval = Math.max(1, service.getRefreshInterval());
+        long firstDelay = ThreadLocalRandom.current().nextLong(Math.min(interval, MAX_FIRST_CHECK_DELAY_MS));
+        timer.schedule(() -> check(probe), firstDelay, TimeUnit.MILLISECONDS);
+        long initialDelay = firstDelay + 1 + ThreadLocalRandom.current().nextLong(interval);
+        probe.future = timer.scheduleAtFixedRate(() -> check(probe), initialDelay, interval, TimeUnit.MILLISECONDS);
+    }
+
+    private void remove(NetworkService service) {
+        Probe probe = probes.remove(service);
+        if (probe != null) {
+            probe.cancel();
+        }
+    }
+
+    /**
+     * Sizes the worker pool to the sum of the fractions of their refresh intervals, for which the blocking checks of
+     * all services may occupy a thread if the devices are offline.
+     */
+    private void updateWorkerThreads() {
+        double blockedThreads = 0;
+        for (NetworkService service : probes.keySet()) {
+            if (isBlocking(service)) {
+                blockedThreads += (double) service.getTimeout() * (service.getRetry() + 1)
+                        / Math.max(1, service.getRefreshInterval());
+            }
+        }
+        int threads = Math.max(configuredWorkerThreads, Math.min(MAX_WORKER_THREADS, (int) Math.ceil(blockedThreads)));
+        if (blockedThreads > MAX_WORKER_THREADS) {
+            logger.warn("The ping checks need up to {} threads, but only {} are used. Increase the refresh interval "
+                    + "or decrease the timeout of the network things.", (int) Math.ceil(blockedThreads), threads);
+        }
+        setWorkerThreads(threads);
+    }
+
+    private void setWorkerThreads(int threads) {
+        maxBlockingChecks = threads * QUEUED_CHECKS_PER_THREAD;
+        if (workers instanceof ThreadPoolExecutor) {
+            ThreadPoolExecutor executor = (ThreadPoolExecutor) workers;
+            if (threads > executor.getMaximumPoolSize()) {
+                executor.setMaximumPoolSize(threads);
+                executor.setCorePoolSize(threads);
+            } else {
+                executor.setCorePoolSize(threads);
+                executor.setMaximumPoolSize(threads);
+            }
+            logger.debug("Network presence engine uses {} worker threads", threads);
+        }
+    }
+
+    private void close() {
+        willbeclosed = true;
+        for (Probe probe : probes.values()) {
+            probe.cancel();
+        }
+        setWorkerThreads(configuredWorkerThreads);
+        selector.wakeup();
+        try {
+            selectorThread.join(1000);
+        } catch (InterruptedException e) {
+        }
+    }
+
+    private void check(Probe probe) {
+        if (probe.cancelled || !probe.running.compareAndSet(false, true)) {
+            return;
+        }
+        probe.attempt = 0;
+
+        NetworkService service = probe.service;
+        if (isBlocking(service)) {
+            if (blockingChecks.incrementAndGet() > maxBlockingChecks) {
+                blockingChecks.decrementAndGet();
+                probe.running.set(false);
+                checkSkipped(service);
+                return;
+            }
+            // no NIO support for ICMP, use the blocking ping of the service
+            execute(probe, () -> {
+                try {
+                    complete(probe, service.updateDeviceState());
+                } catch (InvalidConfigurationException e) {
+                    probe.running.set(false);
+                    if (!probe.cancelled) {
+                        probe.stateUpdate.invalidConfig();
+                    }
+                } finally {
+                    blockingChecks.decrementAndGet();
+                }
+            }, true);
+        } else {
+            connect(probe);
+        }
+    }
+
+    /**
+     * Reports a check, which was skipped because too many ping checks are pending. The host keeps its last state, so
+     * skipped checks are logged as warning at most once a minute.
+     */
+    private void checkSkipped(NetworkService service) {
+        int skipped = skippedChecks.incrementAndGet();
+        long now = System.nanoTime();
+        if (now - lastSkippedChecksWarning >= SKIPPED_CHECKS_WARNING_INTERVAL_NS) {
+            lastSkippedChecksWarning = now;
+            skippedChecks.addAndGet(-skipped);
+            logger.warn("Too many pending ping checks, skipped {} checks within the last minute, last of host '{}'. "
+                    + "Increase the refresh interval or decrease the timeout of the network things.", skipped,
+                    service.getHostname());
+        } else {
+            logger.debug("Too many pending ping checks, skipping check of host '{}'", service.getHostname());
+        }
+    }
+
+    private void execute(Probe probe, Runnable task, boolean blocking) {
+        try {
+            workers.execute(task);
+        } catch (RejectedExecutionException e) {
+            if (blocking) {
+                blockingChecks.decrementAndGet();
+            }
+            probe.running.set(false);
+            logger.debug("Check of host '{}' rejected: {}", probe.service.getHostname(), e.getMessage());
+        }
+    }
+
+    private static boolean isBlocking(NetworkService service) {
+        return service.isUseSystemPing() || service.getPort() <= 0;
+    }
+
+    private void connect(Probe probe) {
+        // the host name lookup may block, the connect is done by the selector thread
+        execute(probe, () -> {
+            InetSocketAddress address = new InetSocketAddress(probe.service.getHostname(), probe.service.getPort());
+            if (address.isUnresolved()) {
+                logger.debug("couldn't resolve host '{}'", probe.service.getHostname());
+                connectFailed(probe);
+                return;
+            }
+            probe.address = address;
+            pendingConnects.add(probe);
+            selector.wakeup();
+        }, false);
+    }
+
+    private void runSelector() {
+        logger.debug("Network presence engine online");
+        while (!willbeclosed) {
+            try {
+                selector.select(SELECT_TIMEOUT_MS);
+                if (willbeclosed) {
+                    break;
+                }
+                startPendingConnects();
+                finishConnects();
+                expireConnects();
+            } catch (IOException e) {
+                logger.warn("Network presence engine error: {}", e.getMessage());
+            }
+        }
+
+        for (SelectionKey key : selector.keys()) {
+            closeChannel(key);
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+        }
+        logger.debug("Network presence engine stopped");
+    }
+
+    private void startPendingConnects() {
+        Probe probe;
+        while ((probe = pendingConnects.poll()) != null) {
+            SocketChannel channel = null;
+            try {
+                channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                probe.started = System.nanoTime();
+                probe.deadline = probe.started + TimeUnit.MILLISECONDS.toNanos(probe.service.getTimeout());
+                if (channel.connect(probe.address)) {
+                    channel.close();
+                    connected(probe);
+                } else {
+                    channel.register(selector, SelectionKey.OP_CONNECT, probe);
+                }
+            } catch (IOException e) {
+                closeQuietly(channel);
+                logger.debug("couldn't establish network connection [host '{}' port '{}']",
+                        probe.service.getHostname(), probe.service.getPort());
+                connectFailed(probe);
+            }
+        }
+    }
+
+    private void finishConnects() {
+        Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+        while (iterator.hasNext()) {
+            SelectionKey key = iterator.next();
+            iterator.remove();
+            Probe probe = (Probe) key.attachment();
+            try {
+                if (!key.isValid() || !key.isConnectable() || !((SocketChannel) key.channel()).finishConnect()) {
+                    continue;
+                }
+                closeChannel(key);
+                connected(probe);
+            } catch (IOException e) {
+                closeChannel(key);
+                logger.debug("couldn't establish network connection [host '{}' port '{}']",
+                        probe.service.getHostname(), probe.service.getPort());
+                connectFailed(probe);
+            }
+        }
+    }
+
+    private void expireConnects() {
+        long now = System.nanoTime();
+        for (SelectionKey key : selector.keys()) {
+            Probe probe = (Probe) key.attachment();
+            if (key.isValid() && now - probe.deadline >= 0) {
+                closeChannel(key);
+                logger.debug("timed out while connecting to host '{}' port '{}' timeout '{}'",
+                        probe.service.getHostname(), probe.service.getPort(), probe.service.getTimeout());
+                connectFailed(probe);
+            }
+        }
+    }
+
+    private void connected(Probe probe) {
+        logger.debug("established connection [host '{}' port '{}']", probe.service.getHostname(),
+                probe.service.getPort());
+        complete(probe, (System.nanoTime() - probe.started) / 1000000.0);
+    }
+
+    private void connectFailed(Probe probe) {
+        if (!probe.cancelled && probe.attempt++ < probe.service.getRetry()) {
+            connect(probe);
+        } else {
+            complete(probe, -1);
+        }
+    }
+
+    private void complete(Probe probe, double state) {
+        probe.running.set(false);
+        if (probe.cancelled) {
+            return;
+        }
+        try {
+            probe.stateUpdate.newState(state);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to update the state of host '{}'", probe.service.getHostname(), e);
+        }
+    }
+
+    private static void closeChannel(SelectionKey key) {
+        key.cancel();
+        closeQuietly(key.channel());
+    }
+
+    private static void closeQuietly(Channel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+            }
+        }
+    }
+
+    /**
+     * The check state of one registered service.
+     */
+    private static class Probe {
+        final NetworkService service;
+        final StateUpdate stateUpdate;
+        final AtomicBoolean running = new AtomicBoolean();
+        volatile boolean cancelled;
+        ScheduledFuture<?> future;
+        InetSocketAddress address;
+        int attempt;
+        long started;
+        long deadline;
+
+        Probe(NetworkService service, StateUpdate stateUpdate) {
+            this.service = service;
+            this.stateUpdate = stateUpdate;
+        }
+
+        void cancel() {
+            cancelled = true;
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+    }
+}
@@ -8,17 +8,14 @@
  */
 package org.openhab.binding.network.service.dhcp;
 
-import java.io.ByteArrayInputStream;
-import java.io.DataInputStream;
-import java.io.IOException;
 import java.net.DatagramPacket;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.Arrays;
 
 /**
  * Parses a dhcp packet and extracts the OP code and all DHCP Options.
+ * The option values are read from the datagram buffer and are not copied.
  *
  * Example:
  *   DatagramSocket socket = new DatagramSocket(67);
@@ -84,17 +81,39 @@ class DHCPPacket {
 
     }
 
+    private static final int _OPTIONS_OFFSET = _BOOTP_ABSOLUTE_MIN_LEN + 4;
+
     private byte op;
-    private Map<Byte, byte[]> options;
+    private byte[] buffer;
+    private final int[] optionOffsets = new int[256];
+    private final int[] optionLengths = new int[256];
+
+    /**
+     * Constructor for an empty <tt>DHCPPacket</tt>, which can be filled by {@link #parse(DatagramPacket)}.
+     */
+    public DHCPPacket() {
+        this.op = BOOTREPLY;
+        Arrays.fill(optionOffsets, -1);
+    }
 
     /**
      * Constructor for the <tt>DHCPPacket</tt> class. Parses the given datagram.
      */
-    public DHCPPacket(DatagramPacket datagram) throws BadPacketException, IOException {
+    public DHCPPacket(DatagramPacket datagram) throws BadPacketException {
+        this();
+        parse(datagram);
+    }
+
+    /**
+     * Parses the given datagram. The options are not copied, only their positions within the datagram buffer are
+     * remembered. The datagram buffer must therefore not be changed while this packet is in use.
+     */
+    public void parse(DatagramPacket datagram) throws BadPacketException {
         this.op = BOOTREPLY;
-        this.options = new LinkedHashMap<Byte, byte[]>();
+        this.buffer = null;
+        Arrays.fill(optionOffsets, -1);
 
-        byte[] buffer = datagram.getData();
+        byte[] data = datagram.getData();
         int offset = datagram.getOffset();
         int length = datagram.getLength();
 
@@ -108,44 +127,21 @@ class DHCPPacket {
             throw new BadPacketException("DHCP Packet too big (" + length + ") max MTU is " + _DHCP_MAX_MTU);
         }
 
-        // turn buffer into a readable stream
-        ByteArrayInputStream inBStream = new ByteArrayInputStream(buffer, offset, length);
-        DataInputStream inStream = new DataInputStream(inBStream);
-
-        byte[] dummy = new byte[128];
-
-        // parse static part of packet
-        this.op = inStream.readByte();
-        inStream.readByte(); // read hardware type (ETHERNET)
-        inStream.readByte(); // read hardware address length (6 bytes)
-        inStream.readByte(); // read hops
-        inStream.readInt(); // read transaction id
-        inStream.readShort(); // read secsonds elapsed
-        inStream.readShort(); // read flags
-        inStream.readFully(dummy, 0, 4); // ciaddr
-        inStream.readFully(dummy, 0, 4); // yiaddr
-        inStream.readFully(dummy, 0, 4); // siaddr
-        inStream.readFully(dummy, 0, 4); // giaddr
-        inStream.readFully(dummy, 0, 16); // chaddr
-        inStream.readFully(dummy, 0, 64); // sname
-        inStream.readFully(dummy, 0, 128); // file
+        // the static part of the packet (hardware type, addresses, sname, file) is not needed
+        int end = offset + length;
+        int pos = offset + _BOOTP_ABSOLUTE_MIN_LEN;
 
         // check for DHCP MAGIC_COOKIE
-        inBStream.mark(4); // read ahead 4 bytes
-        if (inStream.readInt() != _MAGIC_COOKIE) {
+        if (end - pos < 4 || readInt(data, pos) != _MAGIC_COOKIE) {
             throw new BadPacketException("Packet seams to be truncated");
         }
+        pos = offset + _OPTIONS_OFFSET;
 
         // DHCP Packet: parsing options
-        int type = 0;
+        byte type = 0;
 
-        while (true) {
-            int r = inBStream.read();
-            if (r < 0) {
-                break;
-            } // EOF
-
-            type = (byte) r;
+        while (pos < end) {
+            type = data[pos++];
 
             if (type == DHO_PAD) {
                 continue;
@@ -154,20 +150,21 @@ class DHCPPacket {
                 break;
             } // break if end of options
 
-            r = inBStream.read();
-            if (r < 0) {
+            if (pos >= end) {
                 break;
             } // EOF
 
-            int len = Math.min(r, inBStream.available());
-            byte[] unit_opt = new byte[len];
-            inBStream.read(unit_opt);
-
-            this.options.put((byte) type, unit_opt);
+            int len = Math.min(data[pos++] & 0xFF, end - pos);
+            optionOffsets[type & 0xFF] = pos;
+            optionLengths[type & 0xFF] = len;
+            pos += len;
         }
         if (type != DHO_END) {
             throw new BadPacketException("Packet seams to be truncated");
         }
+
+        this.op = data[offset];
+        this.buffer = data;
     }
 
     /**
@@ -189,29 +186,57 @@ class DHCPPacket {
      * @return option type, of <tt>null</tt> if not present.
      */
     public Byte getDHCPMessageType() {
-        byte[] opt = options.get(DHO_DHCP_MESSAGE_TYPE);
-        if (opt == null) {
+        int pos = getOptionOffset(DHO_DHCP_MESSAGE_TYPE, 1);
+        if (pos < 0) {
             return null;
         }
-        if (opt.length != 1) {
-            throw new BadPacketException(
-                    "option " + DHO_DHCP_MESSAGE_TYPE + " is wrong size:" + opt.length + " should be 1");
-        }
-        return opt[0];
+        return buffer[pos];
     }
 
     /**
      * Returns the requested IP address of a BOOTREQUEST packet.
      */
     InetAddress getRequestedIPAddress() throws IllegalArgumentException, UnknownHostException {
-        byte[] opt = options.get(DHO_DHCP_REQUESTED_ADDRESS);
-        if (opt == null) {
+        int pos = getOptionOffset(DHO_DHCP_REQUESTED_ADDRESS, 4);
+        if (pos < 0) {
+            return null;
+        }
+        return InetAddress.getByAddress(Arrays.copyOfRange(buffer, pos, pos + 4));
+    }
+
+    /**
+     * Returns the requested IP address of a BOOTREQUEST packet in the format of
+     * {@link InetAddress#getHostAddress()}, without creating an {@link InetAddress}.
+     */
+    String getRequestedHostAddress() throws IllegalArgumentException {
+        int pos = getOptionOffset(DHO_DHCP_REQUESTED_ADDRESS, 4);
+        if (pos < 0) {
             return null;
         }
-        if (opt.length != 4) {
+        StringBuilder address = new StringBuilder(15);
+        address.append(buffer[pos] & 0xFF).append('.').append(buffer[pos + 1] & 0xFF).append('.')
+                .append(buffer[pos + 2] & 0xFF).append('.').append(buffer[pos + 3] & 0xFF);
+        return address.toString();
+    }
+
+    /**
+     * Returns the position of the option value in the datagram buffer or -1 if the option is not present.
+     */
+    private int getOptionOffset(byte type, int expectedLength) {
+        int pos = optionOffsets[type & 0xFF];
+        if (pos < 0) {
+            return -1;
+        }
+        int len = optionLengths[type & 0xFF];
+        if (len != expectedLength) {
             throw new BadPacketException(
-                    "option " + DHO_DHCP_REQUESTED_ADDRESS + " is wrong size:" + opt.length + " should be 4");
+                    "option " + type + " is wrong size:" + len + " should be " + expectedLength);
         }
-        return InetAddress.getByAddress(opt);
+        return pos;
+    }
+
+    private static int readInt(byte[] data, int pos) {
+        return (data[pos] & 0xFF) << 24 | (data[pos + 1] & 0xFF) << 16 | (data[pos + 2] & 0xFF) << 8
+                | (data[pos + 3] & 0xFF);
     }
 }
@@ -11,11 +11,14 @@ package org.openhab.binding.network.service.dhcp;
 import java.io.IOException;
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
-import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.SocketException;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.Map;
-import java.util.TreeMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.openhab.binding.network.service.StateUpdate;
 import org.slf4j.Logger;
@@ -27,48 +30,103 @@ import org.slf4j.LoggerFactory;
  * receiver thread will be started. If the last StateUpdate is removed, the thread will be stopped
  * after the receive socket is closed. This instance listens to the UDP port 67 and will call
  * StateUpdate.newState(0) for the address that is registered and matches the DHO_DHCP_REQUESTED_ADDRESS address field.
+ * Requested addresses without a registered StateUpdate are remembered for the discovery.
+ *
+ * The receiver thread looks up the registered StateUpdate without locking and reuses the receive buffer and the
+ * parsed packet, only starting and stopping the thread is synchronized.
  *
  * @author David Graeff <david.graeff@web.de>
  */
 public class ReceiveDHCPRequestPackets extends Thread {
-    private byte[] buffer = new byte[1024];
+    private byte[] buffer = new byte[DHCPPacket._DHCP_MAX_MTU];
     private DatagramSocket dsocket = new DatagramSocket(null);
     private DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
-    private boolean willbeclosed = false;
+    private DHCPPacket request = new DHCPPacket();
+    private volatile boolean willbeclosed = false;
     private Logger logger = LoggerFactory.getLogger(ReceiveDHCPRequestPackets.class);
+    private static final Object lock = new Object();
     private static ReceiveDHCPRequestPackets instance;
-    private static Map<String, StateUpdate> registeredListeners = new TreeMap<>();
+    private static Map<String, StateUpdate> registeredListeners = new ConcurrentHashMap<>();
+    private static final int MAX_OBSERVED_ADDRESSES = 256;
+    private static final Set<String> observedAddresses = new LinkedHashSet<>();
+    private static final AtomicLong packetsSeen = new AtomicLong();
+    private static final AtomicLong packetsMatched = new AtomicLong();
+    private static final AtomicLong parseErrors = new AtomicLong();
 
-    public static synchronized void register(String hostAddress, StateUpdate receiveParseSimpleUDP)
-            throws SocketException {
-        if (instance == null) {
-            instance = new ReceiveDHCPRequestPackets();
-            instance.start();
-        }
+    public static void register(String hostAddress, StateUpdate receiveParseSimpleUDP) throws SocketException {
         registeredListeners.put(hostAddress, receiveParseSimpleUDP);
+        synchronized (lock) {
+            if (instance == null && !registeredListeners.isEmpty()) {
+                try {
+                    instance = new ReceiveDHCPRequestPackets();
+                } catch (SocketException e) {
+                    registeredListeners.remove(hostAddress, receiveParseSimpleUDP);
+                    throw e;
+                }
+                instance.start();
+            }
+        }
     }
 
     public static void unregister(String hostAddress) {
-        synchronized (registeredListeners) {
-            registeredListeners.remove(hostAddress);
-            if (!registeredListeners.isEmpty()) {
+        registeredListeners.remove(hostAddress);
+
+        ReceiveDHCPRequestPackets closing;
+        synchronized (lock) {
+            if (!registeredListeners.isEmpty() || instance == null) {
                 return;
             }
+            closing = instance;
+            instance = null;
         }
 
-        if (instance != null && instance.isAlive()) {
-            instance.willbeclosed = true;
-            if (instance.dsocket != null) {
-                instance.dsocket.close();
-            }
-            try {
-                instance.join(1000);
-            } catch (InterruptedException e) {
+        closing.close();
+    }
+
+    /**
+     * Returns the number of received UDP packets on port 67.
+     */
+    public static long getPacketsSeen() {
+        return packetsSeen.get();
+    }
+
+    /**
+     * Returns the number of DHCP requests for a registered address.
+     */
+    public static long getPacketsMatched() {
+        return packetsMatched.get();
+    }
+
+    /**
+     * Returns the number of received packets, which are no valid DHCP packets.
+     */
+    public static long getParseErrors() {
+        return parseErrors.get();
+    }
+
+    /**
+     * Returns the requested addresses of all DHCP requests without a registered StateUpdate since the last call.
+     * At most the last {@value #MAX_OBSERVED_ADDRESSES} addresses are remembered.
+     */
+    public static Set<String> pollObservedAddresses() {
+        synchronized (observedAddresses) {
+            Set<String> addresses = new LinkedHashSet<>(observedAddresses);
+            observedAddresses.clear();
+            return addresses;
+        }
+    }
+
+    private static void addObservedAddress(String hostAddress) {
+        synchronized (observedAddresses) {
+            // re-insert to move the address to the end
+            observedAddresses.remove(hostAddress);
+            observedAddresses.add(hostAddress);
+            if (observedAddresses.size() > MAX_OBSERVED_ADDRESSES) {
+                Iterator<String> iterator = observedAddresses.iterator();
+                iterator.next();
+                iterator.remove();
             }
-            instance.interrupt();
-            instance.dsocket = null;
         }
-        instance = null;
     }
 
     ReceiveDHCPRequestPackets() throws SocketException {
@@ -77,6 +135,20 @@ public class ReceiveDHCPRequestPackets extends Thread {
         dsocket.bind(new InetSocketAddress(67));
     }
 
+    private void close() {
+        willbeclosed = true;
+        dsocket.close();
+        if (isAlive()) {
+            try {
+                join(1000);
+            } catch (InterruptedException e) {
+            }
+            interrupt();
+        }
+        logger.debug("DHCP packets seen: {}, matched: {}, parse errors: {}", packetsSeen.get(), packetsMatched.get(),
+                parseErrors.get());
+    }
+
     @Override
     public void run() {
         try {
@@ -84,36 +156,41 @@ public class ReceiveDHCPRequestPackets extends Thread {
             while (!willbeclosed) {
                 packet.setLength(buffer.length);
                 dsocket.receive(packet);
+                packetsSeen.incrementAndGet();
 
-                DHCPPacket request;
+                String requestedAddressStr;
                 try {
-                    request = new DHCPPacket(packet);
-                } catch (Exception e) {
-                    continue;
-                }
+                    request.parse(packet);
 
-                if (request.getOp() != DHCPPacket.BOOTREQUEST) {
-                    continue; // skipping non BOOTREQUEST message types
-                }
+                    if (request.getOp() != DHCPPacket.BOOTREQUEST) {
+                        continue; // skipping non BOOTREQUEST message types
+                    }
 
-                Byte dhcpMessageType = request.getDHCPMessageType();
+                    Byte dhcpMessageType = request.getDHCPMessageType();
 
-                if (dhcpMessageType == null || dhcpMessageType != DHCPPacket.DHCPREQUEST) {
-                    continue; // skipping non DHCPREQUEST message types
+                    if (dhcpMessageType == null || dhcpMessageType != DHCPPacket.DHCPREQUEST) {
+                        continue; // skipping non DHCPREQUEST message types
+                    }
+
+                    requestedAddressStr = request.getRequestedHostAddress();
+                } catch (IllegalArgumentException e) {
+                    parseErrors.incrementAndGet();
+                    logger.trace("Invalid DHCP packet: {}", e.getMessage());
+                    continue;
                 }
 
-                InetAddress requestedAddress = request.getRequestedIPAddress();
-                if (requestedAddress == null) {
+                if (requestedAddressStr == null) {
                     logger.error("DHCPREQUEST field is missing");
                     continue;
                 }
-                String requestedAddressStr = requestedAddress.getHostAddress();
                 StateUpdate receiver = registeredListeners.get(requestedAddressStr);
                 if (receiver != null) {
+                    packetsMatched.incrementAndGet();
                     logger.info("DHCP request for registered address: {}", requestedAddressStr);
                     receiver.newState(0);
                 } else {
-                    logger.info("DHCP request for unknown address: {}", requestedAddressStr);
+                    logger.debug("DHCP request for unknown address: {}", requestedAddressStr);
+                    addObservedAddress(requestedAddressStr);
                 }
             }
         } catch (IOException e) {
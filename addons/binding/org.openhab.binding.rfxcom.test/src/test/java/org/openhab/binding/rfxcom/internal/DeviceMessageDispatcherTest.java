@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.rfxcom.internal;
+
+import static org.junit.Assert.*;
+import static org.openhab.binding.rfxcom.RFXComBindingConstants.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.bind.DatatypeConverter;
+
+import org.eclipse.smarthome.core.thing.ThingTypeUID;
+import org.eclipse.smarthome.core.thing.ThingUID;
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.binding.rfxcom.internal.exceptions.RFXComException;
+import org.openhab.binding.rfxcom.internal.messages.RFXComBaseMessage.PacketType;
+import org.openhab.binding.rfxcom.internal.messages.RFXComMessage;
+import org.openhab.binding.rfxcom.internal.messages.RFXComMessageFactory;
+
+/**
+ * Test for the {@link DeviceMessageDispatcher}.
+ *
+ * @author agent - Initial contribution
+ */
+public class DeviceMessageDispatcherTest {
+    private static final ThingUID BRIDGE_UID = new ThingUID(BRIDGE_RFXTRX443, "test");
+    private static final ThingTypeUID THING_TYPE_TEMPERATURE = PACKET_TYPE_THING_TYPE_UID_MAP
+            .get(PacketType.TEMPERATURE);
+    private static final ThingTypeUID THING_TYPE_HUMIDITY = PACKET_TYPE_THING_TYPE_UID_MAP.get(PacketType.HUMIDITY);
+
+    private DeviceMessageDispatcher dispatcher;
+    private RecordingListener device1;
+    private RecordingListener device2;
+    private RecordingListener discovery;
+
+    @Before
+    public void setUp() {
+        dispatcher = new DeviceMessageDispatcher();
+        device1 = new RecordingListener();
+        device2 = new RecordingListener();
+        discovery = new RecordingListener();
+        dispatcher.registerDeviceListener(device1, THING_TYPE_TEMPERATURE, "1");
+        dispatcher.registerDeviceListener(device2, THING_TYPE_TEMPERATURE, "64257");
+        dispatcher.registerFallbackListener(discovery);
+    }
+
+    @Test
+    public void messageIsRoutedToMatchingDevice() throws RFXComException {
+        assertEquals(1, dispatcher.dispatch(BRIDGE_UID, createMessage("08500110000180BC69")));
+        assertEquals(1, device1.messages.size());
+        assertTrue(device2.messages.isEmpty());
+        assertTrue(discovery.messages.isEmpty());
+    }
+
+    @Test
+    public void unknownDeviceIsRoutedToFallback() throws RFXComException {
+        assertEquals(1, dispatcher.dispatch(BRIDGE_UID, createMessage("08500502770000D389")));
+        assertTrue(device1.messages.isEmpty());
+        assertTrue(device2.messages.isEmpty());
+        assertEquals(1, discovery.messages.size());
+    }
+
+    @Test
+    public void otherThingTypeIsRoutedToFallback() throws RFXComException {
+        dispatcher.registerDeviceListener(device1, THING_TYPE_HUMIDITY, "1");
+        dispatcher.dispatch(BRIDGE_UID, createMessage("08500110000180BC69"));
+        assertTrue(device1.messages.isEmpty());
+        assertEquals(1, discovery.messages.size());
+    }
+
+    @Test
+    public void unregisteredDeviceIsRoutedToFallback() throws RFXComException {
+        assertTrue(dispatcher.unregister(device1));
+        assertFalse(dispatcher.unregister(device1));
+        dispatcher.dispatch(BRIDGE_UID, createMessage("08500110000180BC69"));
+        assertTrue(device1.messages.isEmpty());
+        assertEquals(1, discovery.messages.size());
+    }
+
+    private RFXComMessage createMessage(String hexMsg) throws RFXComException {
+        return RFXComMessageFactory.createMessage(DatatypeConverter.parseHexBinary(hexMsg));
+    }
+
+    private static class RecordingListener implements DeviceMessageListener {
+        private List<RFXComMessage> messages = new ArrayList<>();
+
+        @Override
+        public void onDeviceMessageReceived(ThingUID bridge, RFXComMessage message) {
+            messages.add(message);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.rfxcom.internal;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.bind.DatatypeConverter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.binding.rfxcom.internal.TransmitScheduler.TransmitCallback;
+import org.openhab.binding.rfxcom.internal.exceptions.RFXComException;
+import org.openhab.binding.rfxcom.internal.messages.RFXComBaseMessage;
+import org.openhab.binding.rfxcom.internal.messages.RFXComMessageFactory;
+import org.openhab.binding.rfxcom.internal.messages.RFXComTransmitterMessage;
+
+/**
+ * Test for the {@link TransmitScheduler}.
+ *
+ * @author agent - Initial contribution
+ */
+public class TransmitSchedulerTest {
+    private static final String LIGHTING2 = "0B11000600109B520B000080";
+    private static final String LIGHTING2_OTHER_UNIT = "0B11000600109B520C000080";
+    private static final String LIGHTING1_ON = "0710010047010170";
+    private static final String LIGHTING1_DIM = "0710010047010270";
+    private static final String LIGHTING1_BRIGHT = "0710010047010370";
+    private static final String SECURITY1 = "0820004DD3DC540089";
+    private static final String TEMPERATURE = "08500110000180BC69";
+    private static final String ACK = "0402014300";
+    private static final String NAK = "0402014302";
+
+    private ScheduledExecutorService executor;
+    private List<String> transmitted = new CopyOnWriteArrayList<>();
+    private List<IOException> failures = new CopyOnWriteArrayList<>();
+    private CountDownLatch queueEmptied = new CountDownLatch(1);
+    private TransmitScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newSingleThreadScheduledExecutor();
+        scheduler = new TransmitScheduler(executor, new TransmitCallback() {
+
+            @Override
+            public void transmit(byte[] data) throws IOException {
+                transmitted.add(DatatypeConverter.printHexBinary(data));
+            }
+
+            @Override
+            public void transmitFailed(IOException e) {
+                // called on the scheduler thread for retries, checked by the test thread in tearDown
+                failures.add(e);
+            }
+
+            @Override
+            public void statisticsChanged(int queueSize, long lastLatency) {
+                if (queueSize == 0) {
+                    queueEmptied.countDown();
+                }
+            }
+        }, 100, 2);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        assertTrue("Unexpected transmit failures: " + failures, failures.isEmpty());
+    }
+
+    @Test
+    public void testPriorities() throws RFXComException {
+        scheduler.enqueue(createMessage(TEMPERATURE));
+        scheduler.enqueue(createMessage(TEMPERATURE));
+        scheduler.enqueue(createMessage(LIGHTING2));
+        scheduler.enqueue(createMessage(SECURITY1));
+        assertEquals(4, scheduler.getQueueSize());
+        assertEquals(1, transmitted.size());
+
+        acknowledge(ACK);
+        acknowledge(ACK);
+        acknowledge(ACK);
+        acknowledge(ACK);
+
+        assertEquals(0, scheduler.getQueueSize());
+        assertEquals(4, transmitted.size());
+        assertEquals(TEMPERATURE, transmitted.get(0));
+        assertEquals(SECURITY1, transmitted.get(1));
+        assertEquals(LIGHTING2, transmitted.get(2));
+        assertEquals(TEMPERATURE, transmitted.get(3));
+    }
+
+    @Test
+    public void testCoalescing() throws RFXComException {
+        scheduler.enqueue(createMessage(TEMPERATURE));
+        scheduler.enqueue(createMessage(LIGHTING2));
+        scheduler.enqueue(createMessage(LIGHTING2_OTHER_UNIT));
+        scheduler.enqueue(createMessage(LIGHTING2));
+        assertEquals(3, scheduler.getQueueSize());
+        assertEquals(1, scheduler.getCoalescedMessages());
+    }
+
+    @Test
+    public void testRelativeCommandsNotCoalesced() throws RFXComException {
+        scheduler.enqueue(createMessage(TEMPERATURE));
+        scheduler.enqueue(createMessage(LIGHTING1_DIM));
+        scheduler.enqueue(createMessage(LIGHTING1_DIM));
+        scheduler.enqueue(createMessage(LIGHTING1_BRIGHT));
+        assertEquals(4, scheduler.getQueueSize());
+        assertEquals(0, scheduler.getCoalescedMessages());
+    }
+
+    @Test
+    public void testAbsoluteCommandNotMovedBeforeRelativeCommand() throws RFXComException {
+        scheduler.enqueue(createMessage(TEMPERATURE));
+        scheduler.enqueue(createMessage(LIGHTING1_ON));
+        scheduler.enqueue(createMessage(LIGHTING1_DIM));
+        scheduler.enqueue(createMessage(LIGHTING1_ON));
+        assertEquals(4, scheduler.getQueueSize());
+        assertEquals(0, scheduler.getCoalescedMessages());
+
+        scheduler.enqueue(createMessage(LIGHTING1_ON));
+        assertEquals(4, scheduler.getQueueSize());
+        assertEquals(1, scheduler.getCoalescedMessages());
+
+        acknowledge(ACK);
+        acknowledge(ACK);
+        acknowledge(ACK);
+        assertEquals(LIGHTING1_ON, transmitted.get(1));
+        assertEquals(LIGHTING1_DIM, transmitted.get(2));
+        assertEquals(LIGHTING1_ON, transmitted.get(3));
+    }
+
+    @Test
+    public void testRetryOnNak() throws RFXComException {
+        scheduler.enqueue(createMessage(LIGHTING2));
+        acknowledge(NAK);
+        acknowledge(NAK);
+        acknowledge(NAK);
+
+        assertEquals(0, scheduler.getQueueSize());
+        assertEquals(3, transmitted.size());
+    }
+
+    @Test
+    public void testRetryOnTimeout() throws Exception {
+        scheduler.enqueue(createMessage(LIGHTING2));
+
+        // the message is sent three times, the queue is empty after the last ack timeout
+        assertTrue(queueEmptied.await(10, TimeUnit.SECONDS));
+        assertEquals(0, scheduler.getQueueSize());
+        assertEquals(3, transmitted.size());
+    }
+
+    private void acknowledge(String response) throws RFXComException {
+        scheduler.responseReceived((RFXComTransmitterMessage) RFXComMessageFactory
+                .createMessage(DatatypeConverter.parseHexBinary(response)));
+    }
+
+    private RFXComBaseMessage createMessage(String hexMsg) throws RFXComException {
+        return (RFXComBaseMessage) RFXComMessageFactory.createMessage(DatatypeConverter.parseHexBinary(hexMsg));
+    }
+}
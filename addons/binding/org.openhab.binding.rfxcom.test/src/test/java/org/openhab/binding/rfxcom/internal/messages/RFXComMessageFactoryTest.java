@@ -0,0 +1,103 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.rfxcom.internal.messages;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+
+import javax.xml.bind.DatatypeConverter;
+
+import org.junit.Test;
+import org.openhab.binding.rfxcom.internal.exceptions.RFXComException;
+import org.openhab.binding.rfxcom.internal.messages.RFXComBaseMessage.PacketType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Decodes a corpus of all received message types. The decode benchmark, which reports the decode time and the
+ * allocated bytes per packet, only runs if the system property rfxcom.decode.benchmark is set to true. The number of
+ * iterations can be changed with the system property rfxcom.decode.iterations.
+ *
+ * @author agent - Initial contribution
+ */
+public class RFXComMessageFactoryTest {
+    private final Logger logger = LoggerFactory.getLogger(RFXComMessageFactoryTest.class);
+
+    private static final boolean BENCHMARK = Boolean.getBoolean("rfxcom.decode.benchmark");
+    private static final int ITERATIONS = Integer.getInteger("rfxcom.decode.iterations", 20000);
+
+    private static final String[] CORPUS = { "0D00000203530080000000000000",
+            "1401070307436F7079726967687420524658434F4D", "0402014300", "070301271356ECC0", "0710015242080780",
+            "0B11000600109B520B000080", "091300E1D8AD59018F70",
+            "0A140F0000080D01010000", "0B150005D950450101011D80", "0716020900A1F350", "0919040600A21B010280",
+            "0C1A0000010203040F00000000", "0C1B0000111213410403000000", "0820004DD3DC540089",
+            "1C21020000000000131211C30000000000000000000000000000000045", "0940001B6B1816150270",
+            "0A4F01CCF001004F03B759", "08500110000180BC69", "085101027700360189", "0A5201800F0201294C0349",
+            "0D54020EE90000C9270203E70439", "0B550217B6000000004D3C69", "105601122F000087000000140000000079",
+            "095703123421194731E9", "0D580117B90003041D030D150A69", "115A01071A7300000003F600000000350B89",
+            "135B0106B800000016000000000000006F148889" };
+
+    @Test
+    public void testCorpus() throws RFXComException {
+        for (String hexMsg : CORPUS) {
+            byte[] packet = DatatypeConverter.parseHexBinary(hexMsg);
+            RFXComBaseMessage msg = (RFXComBaseMessage) RFXComMessageFactory.createMessage(packet);
+            assertEquals(hexMsg, PacketType.fromByte(packet[1]), msg.packetType);
+        }
+    }
+
+    @Test
+    public void testDecodePerformance() throws RFXComException {
+        assumeTrue(BENCHMARK);
+
+        byte[][] packets = new byte[CORPUS.length][];
+        for (int i = 0; i < CORPUS.length; i++) {
+            packets[i] = DatatypeConverter.parseHexBinary(CORPUS[i]);
+        }
+
+        // warm up
+        decode(packets, ITERATIONS / 10);
+
+        long allocatedBefore = getAllocatedBytes();
+        long start = System.nanoTime();
+        decode(packets, ITERATIONS);
+        long duration = System.nanoTime() - start;
+        long allocated = getAllocatedBytes() - allocatedBefore;
+
+        long decoded = (long) ITERATIONS * packets.length;
+        logger.info("Decoded {} packets, {} ns/packet, {} bytes allocated/packet", decoded, duration / decoded,
+                allocatedBefore < 0 ? "n/a" : allocated / decoded);
+    }
+
+    private void decode(byte[][] packets, int iterations) throws RFXComException {
+        for (int i = 0; i < iterations; i++) {
+            for (byte[] packet : packets) {
+                RFXComMessageFactory.createMessage(packet);
+            }
+        }
+    }
+
+    /**
+     * Returns the bytes allocated by the current thread or -1, if the JVM does not support it.
+     */
+    private static long getAllocatedBytes() {
+        try {
+            ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+            Method method = threadBean.getClass().getMethod("getThreadAllocatedBytes", long.class);
+            method.setAccessible(true);
+            return (Long) method.invoke(threadBean, Thread.currentThread().getId());
+        } catch (Exception ex) {
+            return -1;
+        }
+    }
+}
@@ -52,6 +52,10 @@ public class RFXComBindingConstants {
     public static final Set<ThingTypeUID> DISCOVERABLE_BRIDGE_THING_TYPES_UIDS = ImmutableSet.of(BRIDGE_RFXTRX443,
             BRIDGE_RFXTRX315, BRIDGE_RFXREC443);
 
+    // List of all Bridge Channel ids
+    public static final String CHANNEL_TRANSMIT_QUEUE_SIZE = "transmitQueueSize";
+    public static final String CHANNEL_TRANSMIT_LATENCY = "transmitLatency";
+
     // List of all Channel ids
     public static final String CHANNEL_RAW_MESSAGE = "rawMessage";
     public static final String CHANNEL_RAW_PAYLOAD = "rawPayload";
@@ -8,26 +8,30 @@
  */
 package org.openhab.binding.rfxcom.handler;
 
+import static org.openhab.binding.rfxcom.RFXComBindingConstants.*;
+
 import java.io.IOException;
 import java.util.HashSet;
-import java.util.List;
-import java.util.Queue;
 import java.util.Set;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 import javax.xml.bind.DatatypeConverter;
 
+import org.eclipse.smarthome.core.library.types.DecimalType;
 import org.eclipse.smarthome.core.thing.Bridge;
 import org.eclipse.smarthome.core.thing.ChannelUID;
 import org.eclipse.smarthome.core.thing.ThingStatus;
 import org.eclipse.smarthome.core.thing.ThingStatusDetail;
+import org.eclipse.smarthome.core.thing.ThingTypeUID;
 import org.eclipse.smarthome.core.thing.ThingUID;
 import org.eclipse.smarthome.core.thing.binding.BaseBridgeHandler;
 import org.eclipse.smarthome.core.types.Command;
+import org.eclipse.smarthome.core.types.RefreshType;
+import org.openhab.binding.rfxcom.internal.DeviceMessageDispatcher;
 import org.openhab.binding.rfxcom.internal.DeviceMessageListener;
+import org.openhab.binding.rfxcom.internal.TransmitScheduler;
+import org.openhab.binding.rfxcom.internal.TransmitScheduler.TransmitCallback;
 import org.openhab.binding.rfxcom.internal.config.RFXComBridgeConfiguration;
 import org.openhab.binding.rfxcom.internal.connector.RFXComConnectorInterface;
 import org.openhab.binding.rfxcom.internal.connector.RFXComEventListener;
@@ -58,55 +62,20 @@ import gnu.io.NoSuchPortException;
  */
 public class RFXComBridgeHandler extends BaseBridgeHandler {
     private static final int TIMEOUT = 5000;
+    private static final int TRANSMIT_RETRIES = 2;
 
     private Logger logger = LoggerFactory.getLogger(RFXComBridgeHandler.class);
 
     RFXComConnectorInterface connector = null;
     private MessageListener eventListener = new MessageListener();
 
-    private List<DeviceMessageListener> deviceStatusListeners = new CopyOnWriteArrayList<>();
+    private DeviceMessageDispatcher deviceMessageDispatcher = new DeviceMessageDispatcher();
 
     private RFXComBridgeConfiguration configuration = null;
     private ScheduledFuture<?> connectorTask;
     private Set<ThingUID> knownDevices = new HashSet<>();
 
-    private class TransmitQueue {
-        private Queue<RFXComBaseMessage> queue = new LinkedBlockingQueue<RFXComBaseMessage>();
-
-        public synchronized void enqueue(RFXComBaseMessage msg) throws IOException {
-            boolean wasEmpty = queue.isEmpty();
-            if (queue.offer(msg)) {
-                if (wasEmpty) {
-                    send();
-                }
-            } else {
-                logger.error("Transmit queue overflow. Lost message: {}", msg);
-            }
-        }
-
-        public synchronized void sendNext() throws IOException {
-            queue.poll();
-            send();
-        }
-
-        public synchronized void send() throws IOException {
-            while (!queue.isEmpty()) {
-                RFXComBaseMessage msg = queue.peek();
-
-                try {
-                    logger.debug("Transmitting message '{}'", msg);
-                    byte[] data = msg.decodeMessage();
-                    connector.sendMessage(data);
-                    break;
-                } catch (RFXComException rfxe) {
-                    logger.error("Error during send of {}", msg, rfxe);
-                    queue.poll();
-                }
-            }
-        }
-    }
-
-    private TransmitQueue transmitQueue = new TransmitQueue();
+    private TransmitScheduler transmitScheduler;
 
     public RFXComBridgeHandler(Bridge br) {
         super(br);
@@ -114,15 +83,22 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
 
     @Override
     public void handleCommand(ChannelUID channelUID, Command command) {
-        logger.debug("Bridge commands not supported.");
+        if (command instanceof RefreshType && transmitScheduler != null) {
+            updateTransmitStatistics(transmitScheduler.getQueueSize(), transmitScheduler.getLastLatency());
+        } else {
+            logger.debug("Bridge commands not supported.");
+        }
     }
 
     @Override
     public synchronized void dispose() {
         logger.debug("Handler disposed.");
 
-        for (DeviceMessageListener deviceStatusListener : deviceStatusListeners) {
-            unregisterDeviceStatusListener(deviceStatusListener);
+        deviceMessageDispatcher.clear();
+
+        if (transmitScheduler != null) {
+            transmitScheduler.clear();
+            transmitScheduler = null;
         }
 
         if (connector != null) {
@@ -145,6 +121,30 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
         updateStatus(ThingStatus.OFFLINE);
 
         configuration = getConfigAs(RFXComBridgeConfiguration.class);
+        if (transmitScheduler == null) {
+            transmitScheduler = new TransmitScheduler(scheduler, new TransmitCallback() {
+
+                @Override
+                public void transmit(byte[] data) throws IOException {
+                    RFXComConnectorInterface currentConnector = connector;
+                    if (currentConnector == null) {
+                        throw new IOException("Not connected to RFXCOM transceiver");
+                    }
+                    currentConnector.sendMessage(data);
+                }
+
+                @Override
+                public void transmitFailed(IOException e) {
+                    logger.error("I/O Error", e);
+                    updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.COMMUNICATION_ERROR, e.getMessage());
+                }
+
+                @Override
+                public void statisticsChanged(int queueSize, long lastLatency) {
+                    updateTransmitStatistics(queueSize, lastLatency);
+                }
+            }, TIMEOUT, TRANSMIT_RETRIES);
+        }
 
         if (connectorTask == null || connectorTask.isCancelled()) {
             connectorTask = scheduler.scheduleAtFixedRate(new Runnable() {
@@ -216,13 +216,16 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
     }
 
     public void sendMessage(RFXComMessage msg) throws RFXComException {
-        try {
-            RFXComBaseMessage baseMsg = (RFXComBaseMessage) msg;
-            transmitQueue.enqueue(baseMsg);
-        } catch (IOException e) {
-            logger.error("I/O Error", e);
-            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.COMMUNICATION_ERROR, e.getMessage());
+        TransmitScheduler currentScheduler = transmitScheduler;
+        if (currentScheduler == null) {
+            throw new RFXComException("Bridge not initialized");
         }
+        currentScheduler.enqueue((RFXComBaseMessage) msg);
+    }
+
+    private void updateTransmitStatistics(int queueSize, long lastLatency) {
+        updateState(CHANNEL_TRANSMIT_QUEUE_SIZE, new DecimalType(queueSize));
+        updateState(CHANNEL_TRANSMIT_LATENCY, new DecimalType(lastLatency));
     }
 
     private class MessageListener implements RFXComEventListener {
@@ -276,7 +279,10 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
                         }
                     } else if (msg.subType == SubType.START_RECEIVER) {
                         logger.debug("Start TX of any queued messages");
-                        transmitQueue.send();
+                        TransmitScheduler currentScheduler = transmitScheduler;
+                        if (currentScheduler != null) {
+                            currentScheduler.start();
+                        }
 
                         updateStatus(ThingStatus.ONLINE);
                     }
@@ -285,16 +291,12 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
 
                     logger.debug("Transmitter response received: {}", resp);
 
-                    transmitQueue.sendNext();
-                } else {
-
-                    for (DeviceMessageListener deviceStatusListener : deviceStatusListeners) {
-                        try {
-                            deviceStatusListener.onDeviceMessageReceived(getThing().getUID(), message);
-                        } catch (Exception e) {
-                            logger.error("An exception occurred while calling the DeviceStatusListener", e);
-                        }
+                    TransmitScheduler currentScheduler = transmitScheduler;
+                    if (currentScheduler != null) {
+                        currentScheduler.responseReceived(resp);
                     }
+                } else {
+                    deviceMessageDispatcher.dispatch(getThing().getUID(), message);
                 }
             } catch (RFXComMessageNotImplementedException e) {
                 logger.debug("Message not supported, data: {}", DatatypeConverter.printHexBinary(packet));
@@ -313,19 +315,33 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
         }
     }
 
+    /**
+     * Registers a listener for the messages of devices, which have no listener registered with
+     * {@link #registerDeviceStatusListener(DeviceMessageListener, ThingTypeUID, String)}.
+     */
     public boolean registerDeviceStatusListener(DeviceMessageListener deviceStatusListener) {
         if (deviceStatusListener == null) {
             throw new IllegalArgumentException("It's not allowed to pass a null deviceStatusListener.");
         }
-        return deviceStatusListeners.contains(deviceStatusListener) ? false
-                : deviceStatusListeners.add(deviceStatusListener);
+        return deviceMessageDispatcher.registerFallbackListener(deviceStatusListener);
+    }
+
+    /**
+     * Registers a listener for the messages of the device with the given thing type and device id.
+     */
+    public boolean registerDeviceStatusListener(DeviceMessageListener deviceStatusListener, ThingTypeUID thingTypeUID,
+            String deviceId) {
+        if (deviceStatusListener == null) {
+            throw new IllegalArgumentException("It's not allowed to pass a null deviceStatusListener.");
+        }
+        return deviceMessageDispatcher.registerDeviceListener(deviceStatusListener, thingTypeUID, deviceId);
     }
 
     public boolean unregisterDeviceStatusListener(DeviceMessageListener deviceStatusListener) {
         if (deviceStatusListener == null) {
             throw new IllegalArgumentException("It's not allowed to pass a null deviceStatusListener.");
         }
-        return deviceStatusListeners.remove(deviceStatusListener);
+        return deviceMessageDispatcher.unregister(deviceStatusListener);
     }
 
     public RFXComBridgeConfiguration getConfiguration() {
@@ -0,0 +1,194 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.rfxcom.internal;
+
+import static org.openhab.binding.rfxcom.RFXComBindingConstants.PACKET_TYPE_THING_TYPE_UID_MAP;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.eclipse.smarthome.core.thing.ThingTypeUID;
+import org.eclipse.smarthome.core.thing.ThingUID;
+import org.openhab.binding.rfxcom.internal.exceptions.RFXComException;
+import org.openhab.binding.rfxcom.internal.messages.RFXComBaseMessage;
+import org.openhab.binding.rfxcom.internal.messages.RFXComMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link DeviceMessageDispatcher} routes received messages to the {@link DeviceMessageListener}s. Device
+ * listeners are indexed by thing type and device id, so a message is only passed to the listeners of the matching
+ * device. Messages from devices without a registered listener are passed to the fallback listeners (e.g. the
+ * discovery service).
+ *
+ * @author agent - Initial contribution
+ */
+public class DeviceMessageDispatcher {
+    private final Logger logger = LoggerFactory.getLogger(DeviceMessageDispatcher.class);
+
+    private final Map<ThingTypeUID, Map<String, List<DeviceMessageListener>>> deviceListeners =
+            new ConcurrentHashMap<>();
+    private final Map<DeviceMessageListener, DeviceKey> deviceListenerKeys = new ConcurrentHashMap<>();
+    private final List<DeviceMessageListener> fallbackListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Registers a listener for the messages of the device with the given thing type and device id. A previous
+     * registration of the listener is replaced.
+     *
+     * @return true if the listener was not registered for this device before
+     */
+    public synchronized boolean registerDeviceListener(DeviceMessageListener listener, ThingTypeUID thingTypeUID,
+            String deviceId) {
+        if (listener == null || thingTypeUID == null || deviceId == null) {
+            throw new IllegalArgumentException("Listener, thing type and device id must not be null.");
+        }
+        DeviceKey key = new DeviceKey(thingTypeUID, deviceId);
+        DeviceKey previousKey = deviceListenerKeys.put(listener, key);
+        if (key.equals(previousKey)) {
+            return false;
+        }
+        if (previousKey != null) {
+            removeDeviceListener(listener, previousKey);
+        }
+
+        Map<String, List<DeviceMessageListener>> listenersById = deviceListeners.get(thingTypeUID);
+        if (listenersById == null) {
+            listenersById = new ConcurrentHashMap<>();
+            deviceListeners.put(thingTypeUID, listenersById);
+        }
+        List<DeviceMessageListener> listeners = listenersById.get(deviceId);
+        if (listeners == null) {
+            listeners = new CopyOnWriteArrayList<>();
+            listenersById.put(deviceId, listeners);
+        }
+        return listeners.add(listener);
+    }
+
+    /**
+     * Registers a listener for the messages of devices without a registered device listener.
+     *
+     * @return true if the listener was not registered before
+     */
+    public boolean registerFallbackListener(DeviceMessageListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener must not be null.");
+        }
+        return fallbackListeners.contains(listener) ? false : fallbackListeners.add(listener);
+    }
+
+    /**
+     * Removes the device or fallback registration of the listener.
+     *
+     * @return true if the listener was registered
+     */
+    public synchronized boolean unregister(DeviceMessageListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener must not be null.");
+        }
+        boolean removed = fallbackListeners.remove(listener);
+        DeviceKey key = deviceListenerKeys.remove(listener);
+        if (key != null) {
+            removed |= removeDeviceListener(listener, key);
+        }
+        return removed;
+    }
+
+    /**
+     * Removes all listeners.
+     */
+    public synchronized void clear() {
+        deviceListeners.clear();
+        deviceListenerKeys.clear();
+        fallbackListeners.clear();
+    }
+
+    /**
+     * Passes the message to the listeners of the device or, if there is none, to the fallback listeners.
+     *
+     * @return the number of notified listeners
+     */
+    public int dispatch(ThingUID bridge, RFXComMessage message) {
+        List<DeviceMessageListener> listeners = getDeviceListeners(message);
+        if (listeners == null || listeners.isEmpty()) {
+            listeners = fallbackListeners;
+        }
+
+        int notified = 0;
+        for (DeviceMessageListener listener : listeners) {
+            try {
+                listener.onDeviceMessageReceived(bridge, message);
+                notified++;
+            } catch (Exception e) {
+                logger.error("An exception occurred while calling the DeviceStatusListener", e);
+            }
+        }
+        return notified;
+    }
+
+    private List<DeviceMessageListener> getDeviceListeners(RFXComMessage message) {
+        if (!(message instanceof RFXComBaseMessage)) {
+            return null;
+        }
+        ThingTypeUID thingTypeUID = PACKET_TYPE_THING_TYPE_UID_MAP.get(((RFXComBaseMessage) message).packetType);
+        Map<String, List<DeviceMessageListener>> listenersById = thingTypeUID == null ? null
+                : deviceListeners.get(thingTypeUID);
+        if (listenersById == null) {
+            return null;
+        }
+        try {
+            String deviceId = message.getDeviceId();
+            return deviceId == null ? null : listenersById.get(deviceId);
+        } catch (RFXComException e) {
+            logger.trace("Message without device id: {}", message);
+            return null;
+        }
+    }
+
+    private boolean removeDeviceListener(DeviceMessageListener listener, DeviceKey key) {
+        Map<String, List<DeviceMessageListener>> listenersById = deviceListeners.get(key.thingTypeUID);
+        if (listenersById == null) {
+            return false;
+        }
+        List<DeviceMessageListener> listeners = listenersById.get(key.deviceId);
+        if (listeners == null) {
+            return false;
+        }
+        boolean removed = listeners.remove(listener);
+        if (listeners.isEmpty()) {
+            listenersById.remove(key.deviceId);
+        }
+        return removed;
+    }
+
+    private static class DeviceKey {
+        private final ThingTypeUID thingTypeUID;
+        private final String deviceId;
+
+        public DeviceKey(ThingTypeUID thingTypeUID, String deviceId) {
+            this.thingTypeUID = thingTypeUID;
+            this.deviceId = deviceId;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * thingTypeUID.hashCode() + deviceId.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof DeviceKey)) {
+                return false;
+            }
+            DeviceKey other = (DeviceKey) obj;
+            return thingTypeUID.equals(other.thingTypeUID) && deviceId.equals(other.deviceId);
+        }
+    }
+}
@@ -0,0 +1,367 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.rfxcom.internal;
+
+import static org.openhab.binding.rfxcom.internal.messages.RFXComBaseMessage.ID_DELIMITER;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openhab.binding.rfxcom.internal.exceptions.RFXComException;
+import org.openhab.binding.rfxcom.internal.messages.RFXComBaseMessage;
+import org.openhab.binding.rfxcom.internal.messages.RFXComBaseMessage.PacketType;
+import org.openhab.binding.rfxcom.internal.messages.RFXComHomeConfortMessage;
+import org.openhab.binding.rfxcom.internal.messages.RFXComLighting1Message;
+import org.openhab.binding.rfxcom.internal.messages.RFXComLighting2Message;
+import org.openhab.binding.rfxcom.internal.messages.RFXComLighting5Message;
+import org.openhab.binding.rfxcom.internal.messages.RFXComLighting6Message;
+import org.openhab.binding.rfxcom.internal.messages.RFXComTransmitterMessage;
+import org.openhab.binding.rfxcom.internal.messages.RFXComTransmitterMessage.Response;
+import org.openhab.binding.rfxcom.internal.messages.RFXComTransmitterMessage.SubType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link TransmitScheduler} sends the queued messages one at a time to the RFXCOM transceiver and waits for the
+ * transmitter response before the next message is sent. Security messages are sent before lighting messages and
+ * lighting messages before all others. A queued absolute lighting command (on, off or set level) is replaced by a
+ * newer absolute command to the same device/unit, unless another command to that device was queued after it.
+ * Relative commands like dim or bright are never replaced, as every one of them changes the state of the device.
+ * Messages without a response within the ack timeout, or with a NAK response, are sent again.
+ *
+ * The queues are guarded by the monitor of the scheduler, the transceiver and the callbacks are always called
+ * without holding it.
+ *
+ * @author agent - Initial contribution
+ */
+public class TransmitScheduler {
+    private final Logger logger = LoggerFactory.getLogger(TransmitScheduler.class);
+
+    private static final Set<PacketType> SECURITY_PACKET_TYPES = EnumSet.of(PacketType.SECURITY1,
+            PacketType.SECURITY2);
+    private static final Set<PacketType> LIGHTING_PACKET_TYPES = EnumSet.of(PacketType.LIGHTING1,
+            PacketType.LIGHTING2, PacketType.LIGHTING3, PacketType.LIGHTING4, PacketType.LIGHTING5,
+            PacketType.LIGHTING6, PacketType.HOME_CONFORT);
+    private static final Set<String> ABSOLUTE_COMMANDS = new HashSet<>(Arrays.asList("ON", "OFF", "SET_LEVEL"));
+
+    private static final int PRIORITY_SECURITY = 0;
+    private static final int PRIORITY_LIGHTING = 1;
+    private static final int PRIORITY_OTHER = 2;
+
+    private final Deque<Transmission>[] queues;
+    private final ScheduledExecutorService scheduler;
+    private final TransmitCallback callback;
+    private final long ackTimeout;
+    private final int maxRetries;
+
+    private Transmission inFlight;
+    private ScheduledFuture<?> ackTimeoutFuture;
+    private long lastLatency;
+    private long coalescedMessages;
+
+    @SuppressWarnings("unchecked")
+    public TransmitScheduler(ScheduledExecutorService scheduler, TransmitCallback callback, long ackTimeout,
+            int maxRetries) {
+        this.scheduler = scheduler;
+        this.callback = callback;
+        this.ackTimeout = ackTimeout;
+        this.maxRetries = maxRetries;
+
+        queues = new Deque[PRIORITY_OTHER + 1];
+        for (int i = 0; i < queues.length; i++) {
+            queues[i] = new ArrayDeque<>();
+        }
+    }
+
+    /**
+     * Queues the message and sends it, if no other message is waiting for a response.
+     */
+    public void enqueue(RFXComBaseMessage msg) {
+        int priority = getPriority(msg.packetType);
+        String deviceKey = priority == PRIORITY_LIGHTING ? getDeviceKey(msg) : null;
+        boolean absolute = deviceKey != null && isAbsoluteCommand(msg);
+        synchronized (this) {
+            if (!absolute || !replace(priority, deviceKey, msg)) {
+                queues[priority].addLast(new Transmission(msg, deviceKey, absolute));
+            }
+        }
+        notifyStatistics();
+        sendNext();
+    }
+
+    /**
+     * Sends the next queued message, if no other message is waiting for a response.
+     */
+    public void start() {
+        sendNext();
+    }
+
+    /**
+     * Handles the transmitter response of the message in flight and sends the next message.
+     */
+    public void responseReceived(RFXComTransmitterMessage response) {
+        synchronized (this) {
+            if (inFlight == null) {
+                logger.debug("Ignoring transmitter response without pending message: {}", response);
+                return;
+            }
+            cancelAckTimeout();
+
+            Transmission transmission = inFlight;
+            inFlight = null;
+            if (response.subType == SubType.RESPONSE
+                    && (response.response == Response.ACK || response.response == Response.ACK_DELAYED)) {
+                lastLatency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - transmission.enqueued);
+                logger.debug("Message '{}' transmitted in {} ms", transmission.msg, lastLatency);
+            } else if (response.response == Response.NAK_INVALID_AC_ADDRESS) {
+                logger.warn("Transmitter rejected message '{}': {}", transmission.msg, response.response);
+            } else {
+                retry(transmission, "Transmitter response " + response.subType + "/" + response.response);
+            }
+        }
+        notifyStatistics();
+        sendNext();
+    }
+
+    /**
+     * Removes all queued messages.
+     */
+    public void clear() {
+        synchronized (this) {
+            cancelAckTimeout();
+            inFlight = null;
+            for (Deque<Transmission> queue : queues) {
+                queue.clear();
+            }
+        }
+        notifyStatistics();
+    }
+
+    /**
+     * Returns the number of queued messages including the message waiting for a response.
+     */
+    public synchronized int getQueueSize() {
+        int size = inFlight == null ? 0 : 1;
+        for (Deque<Transmission> queue : queues) {
+            size += queue.size();
+        }
+        return size;
+    }
+
+    /**
+     * Returns the time in milliseconds between queuing and the acknowledge of the last transmitted message.
+     */
+    public synchronized long getLastLatency() {
+        return lastLatency;
+    }
+
+    /**
+     * Returns the number of messages, which were replaced by a newer message to the same device.
+     */
+    public synchronized long getCoalescedMessages() {
+        return coalescedMessages;
+    }
+
+    private boolean replace(int priority, String deviceKey, RFXComBaseMessage msg) {
+        Iterator<Transmission> iterator = queues[priority].descendingIterator();
+        while (iterator.hasNext()) {
+            Transmission transmission = iterator.next();
+            if (deviceKey.equals(transmission.deviceKey)) {
+                // only the last queued command to the device may be replaced
+                if (!transmission.absolute) {
+                    return false;
+                }
+                logger.debug("Replacing queued message '{}' with '{}'", transmission.msg, msg);
+                transmission.msg = msg;
+                coalescedMessages++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void sendNext() {
+        while (true) {
+            Transmission transmission;
+            byte[] data;
+            synchronized (this) {
+                if (inFlight != null) {
+                    return;
+                }
+                transmission = poll();
+                if (transmission == null) {
+                    return;
+                }
+                try {
+                    data = transmission.msg.decodeMessage();
+                } catch (RFXComException rfxe) {
+                    logger.error("Error during send of {}", transmission.msg, rfxe);
+                    continue;
+                }
+                inFlight = transmission;
+            }
+
+            try {
+                logger.debug("Transmitting message '{}'", transmission.msg);
+                callback.transmit(data);
+            } catch (IOException ioe) {
+                synchronized (this) {
+                    if (inFlight == transmission) {
+                        // keep the message for the next start
+                        inFlight = null;
+                        queues[getPriority(transmission.msg.packetType)].addFirst(transmission);
+                    }
+                }
+                callback.transmitFailed(ioe);
+                return;
+            }
+
+            synchronized (this) {
+                // the response may have been received already
+                if (inFlight == transmission) {
+                    scheduleAckTimeout(transmission);
+                }
+            }
+            return;
+        }
+    }
+
+    private void retry(Transmission transmission, String reason) {
+        if (transmission.retries < maxRetries) {
+            transmission.retries++;
+            logger.debug("{}, sending message '{}' again {}/{}", reason, transmission.msg, transmission.retries,
+                    maxRetries);
+            queues[getPriority(transmission.msg.packetType)].addFirst(transmission);
+        } else {
+            logger.warn("{}, message '{}' lost after {} retries", reason, transmission.msg, maxRetries);
+        }
+    }
+
+    private void scheduleAckTimeout(final Transmission transmission) {
+        ackTimeoutFuture = scheduler.schedule(new Runnable() {
+
+            @Override
+            public void run() {
+                synchronized (TransmitScheduler.this) {
+                    if (inFlight != transmission) {
+                        return;
+                    }
+                    inFlight = null;
+                    retry(transmission, "No transmitter response within " + ackTimeout + " ms");
+                }
+                notifyStatistics();
+                sendNext();
+            }
+        }, ackTimeout, TimeUnit.MILLISECONDS);
+    }
+
+    private void cancelAckTimeout() {
+        if (ackTimeoutFuture != null) {
+            ackTimeoutFuture.cancel(false);
+            ackTimeoutFuture = null;
+        }
+    }
+
+    private Transmission poll() {
+        for (Deque<Transmission> queue : queues) {
+            Transmission transmission = queue.pollFirst();
+            if (transmission != null) {
+                return transmission;
+            }
+        }
+        return null;
+    }
+
+    private void notifyStatistics() {
+        try {
+            callback.statisticsChanged(getQueueSize(), getLastLatency());
+        } catch (Exception e) {
+            logger.debug("Error updating transmit statistics", e);
+        }
+    }
+
+    private static int getPriority(PacketType packetType) {
+        if (SECURITY_PACKET_TYPES.contains(packetType)) {
+            return PRIORITY_SECURITY;
+        } else if (LIGHTING_PACKET_TYPES.contains(packetType)) {
+            return PRIORITY_LIGHTING;
+        }
+        return PRIORITY_OTHER;
+    }
+
+    private static String getDeviceKey(RFXComBaseMessage msg) {
+        return msg.packetType + ID_DELIMITER + msg.getDeviceId();
+    }
+
+    /**
+     * Returns true if the message sets the device to a state regardless of its current state.
+     */
+    private static boolean isAbsoluteCommand(RFXComBaseMessage msg) {
+        Enum<?> command = null;
+        if (msg instanceof RFXComLighting1Message) {
+            command = ((RFXComLighting1Message) msg).command;
+        } else if (msg instanceof RFXComLighting2Message) {
+            command = ((RFXComLighting2Message) msg).command;
+        } else if (msg instanceof RFXComLighting5Message) {
+            command = ((RFXComLighting5Message) msg).command;
+        } else if (msg instanceof RFXComLighting6Message) {
+            command = ((RFXComLighting6Message) msg).command;
+        } else if (msg instanceof RFXComHomeConfortMessage) {
+            command = ((RFXComHomeConfortMessage) msg).command;
+        }
+
+        return command != null && ABSOLUTE_COMMANDS.contains(command.name());
+    }
+
+    private static class Transmission {
+        private final String deviceKey;
+        private final boolean absolute;
+        private final long enqueued = System.nanoTime();
+        private RFXComBaseMessage msg;
+        private int retries;
+
+        public Transmission(RFXComBaseMessage msg, String deviceKey, boolean absolute) {
+            this.msg = msg;
+            this.deviceKey = deviceKey;
+            this.absolute = absolute;
+        }
+    }
+
+    /**
+     * Callback interface for the {@link TransmitScheduler}.
+     *
+     * @author agent - Initial contribution
+     */
+    public interface TransmitCallback {
+
+        /**
+         * Sends the data to the transceiver.
+         */
+        void transmit(byte[] data) throws IOException;
+
+        /**
+         * Called if the data could not be sent, the message stays queued.
+         */
+        void transmitFailed(IOException e);
+
+        /**
+         * Called when the queue size or the latency has changed.
+         */
+        void statisticsChanged(int queueSize, long lastLatency);
+    }
+}
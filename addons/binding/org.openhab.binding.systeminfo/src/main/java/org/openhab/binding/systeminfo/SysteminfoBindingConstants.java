@@ -22,6 +22,8 @@ public class SysteminfoBindingConstants {
 
     public static final ThingTypeUID THING_TYPE_COMPUTER = new ThingTypeUID(BINDING_ID, "computer");
 
+    public static final ThingTypeUID THING_TYPE_JVM = new ThingTypeUID(BINDING_ID, "jvm");
+
     // Thing properties
     /**
      * Number of CPU logical cores
@@ -301,6 +303,78 @@ public class SysteminfoBindingConstants {
      */
     public static final String CHANNEL_PROCESS_PATH = "process#path";
 
+    // List of all Channel IDs of the jvm thing
+
+    /**
+     * Used heap memory of the openHAB JVM
+     */
+    public static final String CHANNEL_JVM_HEAP_USED = "heapUsed";
+
+    /**
+     * Maximum heap memory of the openHAB JVM
+     */
+    public static final String CHANNEL_JVM_HEAP_MAX = "heapMax";
+
+    /**
+     * Used non heap memory (metaspace, code cache) of the openHAB JVM
+     */
+    public static final String CHANNEL_JVM_NON_HEAP_USED = "nonHeapUsed";
+
+    /**
+     * Memory used by direct and mapped buffers of the openHAB JVM
+     */
+    public static final String CHANNEL_JVM_BUFFERS_USED = "buffersUsed";
+
+    /**
+     * Number of garbage collections in the last interval
+     */
+    public static final String CHANNEL_JVM_GC_COUNT = "gcCount";
+
+    /**
+     * Garbage collection time in the last interval
+     */
+    public static final String CHANNEL_JVM_GC_TIME = "gcTime";
+
+    /**
+     * Allocated memory per second in the last interval
+     */
+    public static final String CHANNEL_JVM_ALLOCATION_RATE = "allocationRate";
+
+    /**
+     * Minimum used heap memory within the sample history
+     */
+    public static final String CHANNEL_JVM_HEAP_USED_MIN = "heapUsedMin";
+
+    /**
+     * Maximum used heap memory within the sample history
+     */
+    public static final String CHANNEL_JVM_HEAP_USED_MAX = "heapUsedMax";
+
+    /**
+     * Percentage of the time spent in garbage collection within the sample history
+     */
+    public static final String CHANNEL_JVM_GC_LOAD = "gcLoad";
+
+    /**
+     * Average allocated memory per second within the sample history
+     */
+    public static final String CHANNEL_JVM_AVERAGE_ALLOCATION_RATE = "averageAllocationRate";
+
+    /**
+     * Number of live threads of the openHAB JVM
+     */
+    public static final String CHANNEL_JVM_THREADS = "threads";
+
+    /**
+     * Number of threads by thread pool
+     */
+    public static final String CHANNEL_JVM_THREAD_POOLS = "threadPools";
+
+    /**
+     * Thread pools with the highest CPU usage in the last interval
+     */
+    public static final String CHANNEL_JVM_THREAD_POOL_LOAD = "threadPoolLoad";
+
     // Thing configuraion
     /**
      * Name of the configuration parameter of the thing that defines refresh time for High priority channels
@@ -312,6 +386,16 @@ public class SysteminfoBindingConstants {
      */
     public static final String MEDIUM_PRIORITY_REFRESH_TIME = "interval_medium";
 
+    /**
+     * Name of the configuration parameter of the thing that defines the number of kept snapshots
+     */
+    public static final String HISTORY_SIZE = "history_size";
+
+    /**
+     * Name of the configuration parameter of the jvm thing that defines the sample interval
+     */
+    public static final String JVM_REFRESH_TIME = "interval";
+
     // Channel configuration
 
     /**
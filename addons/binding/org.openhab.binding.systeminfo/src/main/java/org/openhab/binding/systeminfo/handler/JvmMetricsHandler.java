@@ -0,0 +1,269 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.systeminfo.handler;
+
+import static org.openhab.binding.systeminfo.SysteminfoBindingConstants.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.library.types.StringType;
+import org.eclipse.smarthome.core.thing.Channel;
+import org.eclipse.smarthome.core.thing.ChannelUID;
+import org.eclipse.smarthome.core.thing.Thing;
+import org.eclipse.smarthome.core.thing.ThingStatus;
+import org.eclipse.smarthome.core.thing.ThingStatusDetail;
+import org.eclipse.smarthome.core.thing.binding.BaseThingHandler;
+import org.eclipse.smarthome.core.types.Command;
+import org.eclipse.smarthome.core.types.RefreshType;
+import org.eclipse.smarthome.core.types.State;
+import org.eclipse.smarthome.core.types.UnDefType;
+import org.openhab.binding.systeminfo.model.JvmMetricsSampler;
+import org.openhab.binding.systeminfo.model.JvmMetricsSampler.JvmMetricsSample;
+import org.openhab.binding.systeminfo.model.JvmMetricsSampler.PoolUsage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link JvmMetricsHandler} is responsible for providing information about the Java virtual machine, which runs
+ * openHAB (memory, garbage collection, allocation rate and threads). The values are sampled at the configured
+ * interval, values of an interval are calculated from the last two samples. The minimum, maximum and average values
+ * are calculated from all samples in the history.
+ *
+ * @author agent - Initial contribution
+ */
+public class JvmMetricsHandler extends BaseThingHandler {
+
+    /**
+     * Default sample interval in seconds
+     */
+    private static final int DEFAULT_INTERVAL = 10;
+
+    /**
+     * Default number of samples kept in the ring buffer
+     */
+    private static final int DEFAULT_HISTORY_SIZE = 60;
+
+    /**
+     * Maximum number of thread pools shown in the thread pool channels
+     */
+    private static final int MAX_THREAD_POOLS = 10;
+
+    private static final long BYTES_PER_MB = 1024 * 1024;
+
+    private Logger logger = LoggerFactory.getLogger(JvmMetricsHandler.class);
+
+    private JvmMetricsSampler sampler;
+
+    ScheduledFuture<?> sampleTask;
+
+    public JvmMetricsHandler(Thing thing) {
+        super(thing);
+    }
+
+    @Override
+    public void initialize() {
+        logger.debug("Start initializing!");
+
+        int interval = getConfigValue(JVM_REFRESH_TIME, DEFAULT_INTERVAL);
+        int historySize = getConfigValue(HISTORY_SIZE, DEFAULT_HISTORY_SIZE);
+        if (interval <= 0) {
+            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.CONFIGURATION_ERROR,
+                    "Refresh time must be positive number!");
+            return;
+        }
+
+        sampler = new JvmMetricsSampler(historySize);
+        sampler.sample();
+
+        logger.debug("Schedule JVM sampling at fixed rate {} s.", interval);
+        sampleTask = scheduler.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    sampler.sample();
+                    publishData();
+                } catch (Exception e) {
+                    logger.error("Unexpected error occurred while sampling the JVM metrics!", e);
+                }
+            }
+        }, interval, interval, TimeUnit.SECONDS);
+
+        updateStatus(ThingStatus.ONLINE);
+    }
+
+    private int getConfigValue(String key, int defaultValue) {
+        Object value = getThing().getConfiguration().get(key);
+        return value instanceof BigDecimal ? ((BigDecimal) value).intValue() : defaultValue;
+    }
+
+    private void publishData() {
+        for (Channel channel : getThing().getChannels()) {
+            String channelID = channel.getUID().getId();
+            if (isLinked(channelID)) {
+                updateState(channelID, getInfoForChannel(channelID));
+            }
+        }
+    }
+
+    private State getInfoForChannel(String channelID) {
+        List<JvmMetricsSample> samples = sampler.getSamples();
+        if (samples.isEmpty()) {
+            return UnDefType.UNDEF;
+        }
+        JvmMetricsSample sample = samples.get(0);
+
+        switch (channelID) {
+            case CHANNEL_JVM_HEAP_USED:
+                return new DecimalType(sample.getHeapUsed() / BYTES_PER_MB);
+            case CHANNEL_JVM_HEAP_MAX:
+                return sample.getHeapMax() < 0 ? UnDefType.UNDEF
+                        : new DecimalType(sample.getHeapMax() / BYTES_PER_MB);
+            case CHANNEL_JVM_NON_HEAP_USED:
+                return new DecimalType(sample.getNonHeapUsed() / BYTES_PER_MB);
+            case CHANNEL_JVM_BUFFERS_USED:
+                return new DecimalType(sample.getBufferPoolsUsed() / BYTES_PER_MB);
+            case CHANNEL_JVM_THREADS:
+                return new DecimalType(sample.getThreadCount());
+            case CHANNEL_JVM_THREAD_POOLS:
+                return new StringType(formatThreadPools(sample.getThreadsByPool()));
+            case CHANNEL_JVM_HEAP_USED_MIN:
+            case CHANNEL_JVM_HEAP_USED_MAX:
+                return new DecimalType(getHeapUsedExtreme(samples, CHANNEL_JVM_HEAP_USED_MAX.equals(channelID))
+                        / BYTES_PER_MB);
+            default:
+                break;
+        }
+
+        if (samples.size() < 2) {
+            // values of an interval need two samples
+            return UnDefType.UNDEF;
+        }
+
+        JvmMetricsSample previous = samples.get(1);
+        JvmMetricsSample oldest = samples.get(samples.size() - 1);
+        double historySeconds = (sample.getTimestamp() - oldest.getTimestamp()) / 1e9;
+        double seconds = (sample.getTimestamp() - previous.getTimestamp()) / 1e9;
+        switch (channelID) {
+            case CHANNEL_JVM_GC_COUNT:
+                return new DecimalType(sample.getGcCount() - previous.getGcCount());
+            case CHANNEL_JVM_GC_TIME:
+                return new DecimalType(sample.getGcTime() - previous.getGcTime());
+            case CHANNEL_JVM_ALLOCATION_RATE:
+                long allocated = sample.getAllocatedBytesSince(previous);
+                return allocated < 0 || seconds <= 0 ? UnDefType.UNDEF
+                        : new DecimalType(getRounded(allocated / seconds / BYTES_PER_MB));
+            case CHANNEL_JVM_THREAD_POOL_LOAD:
+                return seconds <= 0 ? UnDefType.UNDEF
+                        : new StringType(formatThreadPoolLoad(sample.getPoolUsageSince(previous), seconds));
+            case CHANNEL_JVM_GC_LOAD:
+                return historySeconds <= 0 ? UnDefType.UNDEF
+                        : new DecimalType(getRounded((sample.getGcTime() - oldest.getGcTime()) / historySeconds / 10));
+            case CHANNEL_JVM_AVERAGE_ALLOCATION_RATE:
+                long allocatedInHistory = sample.getAllocatedBytesSince(oldest);
+                return allocatedInHistory < 0 || historySeconds <= 0 ? UnDefType.UNDEF
+                        : new DecimalType(getRounded(allocatedInHistory / historySeconds / BYTES_PER_MB));
+            default:
+                logger.error("Channel with unknown ID: {} !", channelID);
+                return UnDefType.UNDEF;
+        }
+    }
+
+    /**
+     * Returns the minimum or maximum used heap memory of the samples.
+     */
+    private long getHeapUsedExtreme(List<JvmMetricsSample> samples, boolean max) {
+        long result = samples.get(0).getHeapUsed();
+        for (JvmMetricsSample sample : samples) {
+            result = max ? Math.max(result, sample.getHeapUsed()) : Math.min(result, sample.getHeapUsed());
+        }
+        return result;
+    }
+
+    /**
+     * Formats the thread pools with the most threads, e.g. "ESH-thingHandler: 5, safeCall: 3".
+     */
+    private String formatThreadPools(final Map<String, Integer> threadsByPool) {
+        List<String> pools = new ArrayList<>(threadsByPool.keySet());
+        Collections.sort(pools, new Comparator<String>() {
+            @Override
+            public int compare(String pool1, String pool2) {
+                return threadsByPool.get(pool2).compareTo(threadsByPool.get(pool1));
+            }
+        });
+
+        StringBuilder result = new StringBuilder();
+        for (String pool : pools.subList(0, Math.min(MAX_THREAD_POOLS, pools.size()))) {
+            if (result.length() > 0) {
+                result.append(", ");
+            }
+            result.append(pool).append(": ").append(threadsByPool.get(pool));
+        }
+        return result.toString();
+    }
+
+    /**
+     * Formats the thread pools with the highest CPU usage, e.g. "ESH-thingHandler: 12.5 % 3.1 MB/s".
+     */
+    private String formatThreadPoolLoad(final Map<String, PoolUsage> usageByPool, double seconds) {
+        List<String> pools = new ArrayList<>(usageByPool.keySet());
+        Collections.sort(pools, new Comparator<String>() {
+            @Override
+            public int compare(String pool1, String pool2) {
+                return Long.compare(usageByPool.get(pool2).cpuTime, usageByPool.get(pool1).cpuTime);
+            }
+        });
+
+        StringBuilder result = new StringBuilder();
+        for (String pool : pools.subList(0, Math.min(MAX_THREAD_POOLS, pools.size()))) {
+            PoolUsage usage = usageByPool.get(pool);
+            if (usage.cpuTime <= 0) {
+                break;
+            }
+            if (result.length() > 0) {
+                result.append(", ");
+            }
+            result.append(pool).append(": ").append(getRounded(usage.cpuTime / seconds / 1e7)).append(" %");
+            if (usage.allocatedBytes >= 0) {
+                result.append(' ').append(getRounded(usage.allocatedBytes / seconds / BYTES_PER_MB)).append(" MB/s");
+            }
+        }
+        return result.toString();
+    }
+
+    private BigDecimal getRounded(double value) {
+        return new BigDecimal(value).setScale(1, BigDecimal.ROUND_HALF_UP);
+    }
+
+    @Override
+    public void handleCommand(ChannelUID channelUID, Command command) {
+        if (command instanceof RefreshType) {
+            if (sampler != null) {
+                updateState(channelUID, getInfoForChannel(channelUID.getId()));
+            }
+        } else {
+            logger.debug("Unsupported command {}! Supported commands: REFRESH", command);
+        }
+    }
+
+    @Override
+    public void dispose() {
+        if (sampleTask != null) {
+            sampleTask.cancel(true);
+            sampleTask = null;
+        }
+    }
+}
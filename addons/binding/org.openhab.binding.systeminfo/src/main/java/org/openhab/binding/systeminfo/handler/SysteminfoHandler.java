@@ -83,13 +83,25 @@ public class SysteminfoHandler extends BaseThingHandler {
 
     private OshiSysteminfo systeminfo;
 
+    /**
+     * Maximum age of the shared snapshot in milliseconds, which is used instead of a new snapshot. This way all
+     * channels and things updated at the same time read the same snapshot.
+     */
+    private long maxSnapshotAge;
+
     ScheduledFuture<?> highPriorityTasks;
     ScheduledFuture<?> mediumPriorityTasks;
 
     private Logger logger = LoggerFactory.getLogger(SysteminfoHandler.class);
 
-    public SysteminfoHandler(Thing thing) {
+    /**
+     * Creates a handler, which reads the system information from the given (shared) {@link OshiSysteminfo}.
+     *
+     * @param systeminfo - the system information or null, if the library could not be instantiated
+     */
+    public SysteminfoHandler(Thing thing, OshiSysteminfo systeminfo) {
         super(thing);
+        this.systeminfo = systeminfo;
     }
 
     @Override
@@ -109,14 +121,11 @@ public class SysteminfoHandler extends BaseThingHandler {
     }
 
     private boolean instantiateSysteminfoLibrary() {
-        try {
-            this.systeminfo = new OshiSysteminfo();
-            logger.debug("OSHI Systeminfo library is instatiated!");
-            return true;
-        } catch (Exception e) {
-            logger.error("Can not instantate Systeminfo object!", e);
+        if (systeminfo == null) {
+            logger.error("Can not instantate Systeminfo object!");
             return false;
         }
+        return true;
     }
 
     private boolean isConfigurationValid() {
@@ -131,6 +140,12 @@ public class SysteminfoHandler extends BaseThingHandler {
             }
             logger.debug("Refresh time for medium priority channels set to {} s", refreshIntervalMediumPriority);
             logger.debug("Refresh time for high priority channels set to {} s", refreshIntervalHighPriority);
+            maxSnapshotAge = TimeUnit.SECONDS.toMillis(refreshIntervalHighPriority.intValue()) / 2;
+
+            BigDecimal historySize = (BigDecimal) this.thing.getConfiguration().get(HISTORY_SIZE);
+            systeminfo.requestHistorySize(this,
+                    historySize != null ? historySize.intValue() : OshiSysteminfo.DEFAULT_HISTORY_SIZE);
+            logger.debug("Snapshot history size set to {}", systeminfo.getHistorySize());
             return true;
         } catch (IllegalArgumentException e) {
             logger.error("Refresh time value is invalid! Please change the thing configuration!", e);
@@ -214,6 +229,7 @@ public class SysteminfoHandler extends BaseThingHandler {
         highPriorityTasks = scheduler.scheduleAtFixedRate(new Runnable() {
             @Override
             public void run() {
+                systeminfo.updateSnapshot(maxSnapshotAge);
                 publishData(highPriorityChannels);
             }
         }, WAIT_TIME_CHANNEL_ITEM_LINK_INIT, refreshIntervalHighPriority.intValue(), TimeUnit.SECONDS);
@@ -223,6 +239,8 @@ public class SysteminfoHandler extends BaseThingHandler {
             @Override
             public void run() {
                 systeminfo.updateStaticObjects();
+                // the updated devices are read only by a new snapshot
+                systeminfo.updateSnapshot(0);
                 publishData(mediumPriorityChannels);
             }
         }, WAIT_TIME_CHANNEL_ITEM_LINK_INIT, refreshIntervalMediumPriority.intValue(), TimeUnit.SECONDS);
@@ -501,6 +519,7 @@ public class SysteminfoHandler extends BaseThingHandler {
         if (thing.getStatus().equals(ThingStatus.ONLINE)) {
             if (command instanceof RefreshType) {
                 logger.debug("Refresh command received for channel {}!", channelUID);
+                systeminfo.updateSnapshot(maxSnapshotAge);
                 publishDataForChannel(channelUID);
             } else {
                 logger.debug("Unsupported command {}! Supported commands: REFRESH", command);
@@ -588,6 +607,9 @@ public class SysteminfoHandler extends BaseThingHandler {
     @Override
     public void dispose() {
         stopScheduledUpdates();
+        if (systeminfo != null) {
+            systeminfo.releaseHistorySize(this);
+        }
     }
 
 }
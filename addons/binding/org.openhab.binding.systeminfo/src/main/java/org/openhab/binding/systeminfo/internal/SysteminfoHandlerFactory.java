@@ -10,14 +10,19 @@ package org.openhab.binding.systeminfo.internal;
 
 import static org.openhab.binding.systeminfo.SysteminfoBindingConstants.*;
 
-import java.util.Collections;
 import java.util.Set;
 
-import org.openhab.binding.systeminfo.handler.SysteminfoHandler;
 import org.eclipse.smarthome.core.thing.Thing;
 import org.eclipse.smarthome.core.thing.ThingTypeUID;
 import org.eclipse.smarthome.core.thing.binding.BaseThingHandlerFactory;
 import org.eclipse.smarthome.core.thing.binding.ThingHandler;
+import org.openhab.binding.systeminfo.handler.JvmMetricsHandler;
+import org.openhab.binding.systeminfo.handler.SysteminfoHandler;
+import org.openhab.binding.systeminfo.model.OshiSysteminfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableSet;
 
 /**
  * The {@link SysteminfoHandlerFactory} is responsible for creating things and thing 
@@ -27,7 +32,15 @@ import org.eclipse.smarthome.core.thing.binding.ThingHandler;
  */
 public class SysteminfoHandlerFactory extends BaseThingHandlerFactory {
     
-    private static final Set<ThingTypeUID> SUPPORTED_THING_TYPES_UIDS = Collections.singleton(THING_TYPE_COMPUTER);
+    private static final Set<ThingTypeUID> SUPPORTED_THING_TYPES_UIDS = ImmutableSet.of(THING_TYPE_COMPUTER,
+            THING_TYPE_JVM);
+
+    private final Logger logger = LoggerFactory.getLogger(SysteminfoHandlerFactory.class);
+
+    /**
+     * The system information is shared by all things, so that they can use the same snapshots.
+     */
+    private OshiSysteminfo systeminfo;
     
     @Override
     public boolean supportsThingType(ThingTypeUID thingTypeUID) {
@@ -40,10 +53,24 @@ public class SysteminfoHandlerFactory extends BaseThingHandlerFactory {
         ThingTypeUID thingTypeUID = thing.getThingTypeUID();
 
         if (thingTypeUID.equals(THING_TYPE_COMPUTER)) {
-            return new SysteminfoHandler(thing);
+            return new SysteminfoHandler(thing, getSysteminfo());
+        } else if (thingTypeUID.equals(THING_TYPE_JVM)) {
+            return new JvmMetricsHandler(thing);
         }
 
         return null;
     }
+
+    private synchronized OshiSysteminfo getSysteminfo() {
+        if (systeminfo == null) {
+            try {
+                systeminfo = new OshiSysteminfo();
+                logger.debug("OSHI Systeminfo library is instatiated!");
+            } catch (Exception e) {
+                logger.error("Can not instantate Systeminfo object!", e);
+            }
+        }
+        return systeminfo;
+    }
 }
 
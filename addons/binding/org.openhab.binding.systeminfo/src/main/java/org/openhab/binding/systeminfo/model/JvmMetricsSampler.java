@@ -0,0 +1,312 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.systeminfo.model;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link JvmMetricsSampler} samples the metrics of the Java virtual machine, which runs openHAB, through the
+ * platform MXBeans and keeps the samples in a ring buffer. Threads are grouped by their pool, which is the thread
+ * name without the trailing number, to show which bindings create load.
+ *
+ * The allocated bytes of the threads are only available if the platform ThreadMXBean implements the supported
+ * com.sun.management.ThreadMXBean interface, e.g. on HotSpot based virtual machines. Its methods are looked up by
+ * reflection, so the binding does not depend on the interface, and the allocated bytes are reported as -1 otherwise.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+public class JvmMetricsSampler {
+
+    private static final Pattern THREAD_NUMBER = Pattern.compile("[-#_\\s]*\\d+$");
+
+    private final Logger logger = LoggerFactory.getLogger(JvmMetricsSampler.class);
+
+    private final MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+    private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    private final List<GarbageCollectorMXBean> gcBeans = ManagementFactory.getGarbageCollectorMXBeans();
+    private final List<BufferPoolMXBean> bufferPools = ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class);
+
+    private Method threadAllocatedBytes;
+    private Method threadCpuTime;
+
+    private final Map<Long, String[]> poolNames = new HashMap<>();
+    private final JvmMetricsSample[] history;
+    private int next;
+    private int count;
+
+    /**
+     * @param historySize - number of samples kept in the ring buffer, at least 2
+     */
+    public JvmMetricsSampler(int historySize) {
+        history = new JvmMetricsSample[Math.max(2, historySize)];
+
+        try {
+            Class<?> hotspotThreadBean = Class.forName("com.sun.management.ThreadMXBean");
+            if (hotspotThreadBean.isInstance(threadBean)) {
+                threadAllocatedBytes = hotspotThreadBean.getMethod("getThreadAllocatedBytes", long[].class);
+                threadCpuTime = hotspotThreadBean.getMethod("getThreadCpuTime", long[].class);
+            }
+        } catch (Exception e) {
+            logger.debug("Thread allocation statistics are not available: {}", e.getMessage());
+            threadAllocatedBytes = null;
+            threadCpuTime = null;
+        }
+    }
+
+    /**
+     * Takes a new sample and adds it to the ring buffer.
+     */
+    public synchronized JvmMetricsSample sample() {
+        JvmMetricsSample sample = new JvmMetricsSample();
+        sample.heapUsed = memoryBean.getHeapMemoryUsage().getUsed();
+        sample.heapMax = memoryBean.getHeapMemoryUsage().getMax();
+        sample.nonHeapUsed = memoryBean.getNonHeapMemoryUsage().getUsed();
+        for (BufferPoolMXBean bufferPool : bufferPools) {
+            sample.bufferPoolsUsed += bufferPool.getMemoryUsed();
+        }
+        for (GarbageCollectorMXBean gcBean : gcBeans) {
+            sample.gcCount += Math.max(0, gcBean.getCollectionCount());
+            sample.gcTime += Math.max(0, gcBean.getCollectionTime());
+        }
+        sampleThreads(sample);
+
+        history[next] = sample;
+        next = (next + 1) % history.length;
+        count = Math.min(count + 1, history.length);
+        return sample;
+    }
+
+    /**
+     * Returns all samples in the ring buffer, the latest first.
+     */
+    public synchronized List<JvmMetricsSample> getSamples() {
+        List<JvmMetricsSample> samples = new ArrayList<>(count);
+        for (int age = 0; age < count; age++) {
+            samples.add(history[(next - 1 - age + history.length) % history.length]);
+        }
+        return samples;
+    }
+
+    private void sampleThreads(JvmMetricsSample sample) {
+        long[] ids = threadBean.getAllThreadIds();
+        ThreadInfo[] infos = threadBean.getThreadInfo(ids);
+        long[] cpuTimes = getThreadValues(threadCpuTime, ids);
+        long[] allocatedBytes = getThreadValues(threadAllocatedBytes, ids);
+        boolean cpuTimeEnabled = threadBean.isThreadCpuTimeSupported() && threadBean.isThreadCpuTimeEnabled();
+
+        Map<Long, String[]> currentPoolNames = new HashMap<>(ids.length * 2);
+        sample.threads = new HashMap<>(ids.length * 2);
+        for (int i = 0; i < ids.length; i++) {
+            ThreadInfo info = infos[i];
+            if (info == null) {
+                // the thread has terminated
+                continue;
+            }
+
+            String pool = getPoolName(ids[i], info.getThreadName());
+            currentPoolNames.put(ids[i], new String[] { info.getThreadName(), pool });
+
+            long cpuTime = -1;
+            if (cpuTimes != null) {
+                cpuTime = cpuTimes[i];
+            } else if (cpuTimeEnabled) {
+                cpuTime = threadBean.getThreadCpuTime(ids[i]);
+            }
+            long allocated = allocatedBytes != null ? allocatedBytes[i] : -1;
+            sample.threads.put(ids[i], new ThreadSample(pool, cpuTime, allocated));
+        }
+        poolNames.clear();
+        poolNames.putAll(currentPoolNames);
+    }
+
+    private String getPoolName(long id, String threadName) {
+        String[] cached = poolNames.get(id);
+        if (cached != null && cached[0].equals(threadName)) {
+            return cached[1];
+        }
+        String pool = THREAD_NUMBER.matcher(threadName).replaceFirst("");
+        return pool.isEmpty() ? threadName : pool;
+    }
+
+    private long[] getThreadValues(Method method, long[] ids) {
+        if (method == null) {
+            return null;
+        }
+        try {
+            return (long[]) method.invoke(threadBean, (Object) ids);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * The usage of one thread pool between two samples.
+     */
+    public static class PoolUsage {
+        /**
+         * Number of threads in the newer sample
+         */
+        public int threads;
+
+        /**
+         * CPU time in nanoseconds, -1 if not available
+         */
+        public long cpuTime;
+
+        /**
+         * Allocated bytes, -1 if not available
+         */
+        public long allocatedBytes;
+    }
+
+    /**
+     * The metrics of the Java virtual machine at one point in time.
+     */
+    public static class JvmMetricsSample {
+        private final long timestamp = System.nanoTime();
+        private long heapUsed;
+        private long heapMax;
+        private long nonHeapUsed;
+        private long bufferPoolsUsed;
+        private long gcCount;
+        private long gcTime;
+        private Map<Long, ThreadSample> threads = Collections.emptyMap();
+
+        /**
+         * Returns the value of {@link System#nanoTime()} at the time of the sample.
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public long getHeapUsed() {
+            return heapUsed;
+        }
+
+        /**
+         * @return the maximum heap size in bytes or -1 if undefined
+         */
+        public long getHeapMax() {
+            return heapMax;
+        }
+
+        public long getNonHeapUsed() {
+            return nonHeapUsed;
+        }
+
+        /**
+         * Returns the memory used by direct and mapped buffers in bytes.
+         */
+        public long getBufferPoolsUsed() {
+            return bufferPoolsUsed;
+        }
+
+        /**
+         * Returns the number of garbage collections since the start of the virtual machine.
+         */
+        public long getGcCount() {
+            return gcCount;
+        }
+
+        /**
+         * Returns the accumulated garbage collection time in milliseconds since the start of the virtual machine.
+         */
+        public long getGcTime() {
+            return gcTime;
+        }
+
+        public int getThreadCount() {
+            return threads.size();
+        }
+
+        /**
+         * Returns the number of threads by thread pool.
+         */
+        public Map<String, Integer> getThreadsByPool() {
+            Map<String, Integer> result = new HashMap<>();
+            for (ThreadSample thread : threads.values()) {
+                Integer poolCount = result.get(thread.pool);
+                result.put(thread.pool, poolCount == null ? 1 : poolCount + 1);
+            }
+            return result;
+        }
+
+        /**
+         * Returns the bytes allocated by all threads since the previous sample or -1 if not available. Threads
+         * terminated between the samples are not included.
+         */
+        public long getAllocatedBytesSince(JvmMetricsSample previous) {
+            long allocated = 0;
+            for (PoolUsage usage : getPoolUsageSince(previous).values()) {
+                if (usage.allocatedBytes < 0) {
+                    return -1;
+                }
+                allocated += usage.allocatedBytes;
+            }
+            return allocated;
+        }
+
+        /**
+         * Returns the CPU time and the allocated bytes by thread pool since the previous sample.
+         */
+        public Map<String, PoolUsage> getPoolUsageSince(JvmMetricsSample previous) {
+            Map<String, PoolUsage> result = new HashMap<>();
+            for (Map.Entry<Long, ThreadSample> entry : threads.entrySet()) {
+                ThreadSample thread = entry.getValue();
+                ThreadSample before = previous.threads.get(entry.getKey());
+
+                PoolUsage usage = result.get(thread.pool);
+                if (usage == null) {
+                    usage = new PoolUsage();
+                    result.put(thread.pool, usage);
+                }
+                usage.threads++;
+                usage.cpuTime = add(usage.cpuTime, thread.cpuTime, before == null ? 0 : before.cpuTime);
+                usage.allocatedBytes = add(usage.allocatedBytes, thread.allocatedBytes,
+                        before == null ? 0 : before.allocatedBytes);
+            }
+            return result;
+        }
+
+        private static long add(long sum, long value, long previousValue) {
+            if (sum < 0 || value < 0 || previousValue < 0) {
+                return -1;
+            }
+            return sum + Math.max(0, value - previousValue);
+        }
+    }
+
+    private static class ThreadSample {
+        private final String pool;
+        private final long cpuTime;
+        private final long allocatedBytes;
+
+        ThreadSample(String pool, long cpuTime, long allocatedBytes) {
+            this.pool = pool;
+            this.cpuTime = cpuTime;
+            this.allocatedBytes = allocatedBytes;
+        }
+    }
+}
@@ -9,10 +9,20 @@
 package org.openhab.binding.systeminfo.model;
 
 import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.lang.ArrayUtils;
 import org.eclipse.smarthome.core.library.types.DecimalType;
 import org.eclipse.smarthome.core.library.types.StringType;
+import org.openhab.binding.systeminfo.model.SysteminfoSnapshot.MemorySample;
+import org.openhab.binding.systeminfo.model.SysteminfoSnapshot.ProcessSample;
+import org.openhab.binding.systeminfo.model.SysteminfoSnapshot.StorageSample;
 
 import oshi.SystemInfo;
 import oshi.hardware.CentralProcessor;
@@ -24,7 +34,6 @@ import oshi.hardware.NetworkIF;
 import oshi.hardware.PowerSource;
 import oshi.hardware.Sensors;
 import oshi.software.os.OSFileStore;
-import oshi.software.os.OSProcess;
 import oshi.software.os.OperatingSystem;
 import oshi.util.EdidUtil;
 
@@ -32,6 +41,10 @@ import oshi.util.EdidUtil;
  * This implementation of {@link SysteminfoInterface} is using the open source library OSHI to provide system
  * information. OSHI is a free JNA-based (native) Operating System and Hardware Information library for Java.
  *
+ * The dynamic information is read from a {@link SysteminfoSnapshot}, which is replaced by
+ * {@link #updateSnapshot(long)}. The last snapshots are kept in a history, which is used to calculate the CPU usage
+ * of processes between two snapshots. The size of the history is the largest size requested by the things.
+ *
  * @author Svilen Valkanov
  *
  * @see <a href="https://github.com/oshi/oshi">OSHI github repository</a>
@@ -56,6 +69,16 @@ public class OshiSysteminfo implements SysteminfoInterface {
 
     public static final int PRECISION_AFTER_DECIMAl_SIGN = 1;
 
+    /**
+     * Default number of snapshots kept in the history
+     */
+    public static final int DEFAULT_HISTORY_SIZE = 120;
+
+    private final Deque<SysteminfoSnapshot> history = new ArrayDeque<>();
+    private final Map<Object, Integer> requestedHistorySizes = new HashMap<>();
+    private int historySize = DEFAULT_HISTORY_SIZE;
+    private SysteminfoSnapshot snapshot;
+
     /**
      * Some of the methods used in this constructor execute native code and require execute permissions
      *
@@ -83,6 +106,68 @@ public class OshiSysteminfo implements SysteminfoInterface {
         drives = hal.getDiskStores();
     }
 
+    /**
+     * Creates a new snapshot of the dynamic system information, if the current snapshot is older than the given
+     * age. All getters return the information of the current snapshot.
+     *
+     * @param maxAgeMillis - maximum age of the current snapshot in milliseconds
+     * @return the current snapshot
+     */
+    public synchronized SysteminfoSnapshot updateSnapshot(long maxAgeMillis) {
+        if (snapshot == null || System.currentTimeMillis() - snapshot.getTimestamp() >= maxAgeMillis) {
+            snapshot = new SysteminfoSnapshot(memory, cpu, operatingSystem, fileStores, networks);
+            history.addFirst(snapshot);
+            while (history.size() > historySize) {
+                history.removeLast();
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Returns the snapshots in the history, the newest first.
+     */
+    public synchronized List<SysteminfoSnapshot> getHistory() {
+        return new ArrayList<>(history);
+    }
+
+    /**
+     * Sets the number of snapshots needed by a consumer, e.g. a thing handler. The history keeps the largest number
+     * requested by the registered consumers, or {@link #DEFAULT_HISTORY_SIZE} snapshots if there is none.
+     *
+     * @param consumer - the consumer of the history
+     * @param historySize - number of snapshots needed by the consumer
+     */
+    public synchronized void requestHistorySize(Object consumer, int historySize) {
+        requestedHistorySizes.put(consumer, Math.max(2, historySize));
+        updateHistorySize();
+    }
+
+    /**
+     * Removes the number of snapshots requested by the consumer, the history may shrink afterwards.
+     */
+    public synchronized void releaseHistorySize(Object consumer) {
+        if (requestedHistorySizes.remove(consumer) != null) {
+            updateHistorySize();
+        }
+    }
+
+    private void updateHistorySize() {
+        historySize = requestedHistorySizes.isEmpty() ? DEFAULT_HISTORY_SIZE
+                : Collections.max(requestedHistorySizes.values());
+        while (history.size() > historySize) {
+            history.removeLast();
+        }
+    }
+
+    public synchronized int getHistorySize() {
+        return historySize;
+    }
+
+    private synchronized SysteminfoSnapshot getSnapshot() {
+        return snapshot != null ? snapshot : updateSnapshot(0);
+    }
+
     @SuppressWarnings("null")
     private Object getDevice(Object[] devices, int index) throws DeviceNotFoundException {
         if ((devices != null) && (devices.length <= index)) {
@@ -91,14 +176,6 @@ public class OshiSysteminfo implements SysteminfoInterface {
         return devices[index];
     }
 
-    private OSProcess getProcess(int pid) throws DeviceNotFoundException {
-        OSProcess process = operatingSystem.getProcess(pid);
-        if (process == null) {
-            throw new DeviceNotFoundException("Error while getting information for process with PID " + pid);
-        }
-        return process;
-    }
-
     @Override
     public StringType getOsFamily() {
         String osFamily = operatingSystem.getFamily();
@@ -152,29 +229,30 @@ public class OshiSysteminfo implements SysteminfoInterface {
 
     @Override
     public DecimalType getCpuLoad() {
-        double processorLoad = cpu.getSystemCpuLoad();
+        double processorLoad = getSnapshot().getCpuLoad();
         BigDecimal processorLoadPercent = getPercentsValue(processorLoad);
         return new DecimalType(processorLoadPercent);
     }
 
     @Override
     public DecimalType getMemoryTotal() {
-        long totalMemory = memory.getTotal();
+        long totalMemory = getSnapshot().getMemory().total;
         totalMemory = getSizeInMB(totalMemory);
         return new DecimalType(totalMemory);
     }
 
     @Override
     public DecimalType getMemoryAvailable() {
-        long availableMemory = memory.getAvailable();
+        long availableMemory = getSnapshot().getMemory().available;
         availableMemory = getSizeInMB(availableMemory);
         return new DecimalType(availableMemory);
     }
 
     @Override
     public DecimalType getMemoryUsed() {
-        long totalMemory = memory.getTotal();
-        long availableMemory = memory.getAvailable();
+        MemorySample memorySample = getSnapshot().getMemory();
+        long totalMemory = memorySample.total;
+        long availableMemory = memorySample.available;
         long usedMemory = totalMemory - availableMemory;
         usedMemory = getSizeInMB(usedMemory);
         return new DecimalType(usedMemory);
@@ -182,25 +260,23 @@ public class OshiSysteminfo implements SysteminfoInterface {
 
     @Override
     public DecimalType getStorageTotal(int index) throws DeviceNotFoundException {
-        OSFileStore fileStore = (OSFileStore) getDevice(fileStores, index);
-        long totalSpace = fileStore.getTotalSpace();
+        long totalSpace = getSnapshot().getStorage(index).total;
         totalSpace = getSizeInMB(totalSpace);
         return new DecimalType(totalSpace);
     }
 
     @Override
     public DecimalType getStorageAvailable(int index) throws DeviceNotFoundException {
-        OSFileStore fileStore = (OSFileStore) getDevice(fileStores, index);
-        long freeSpace = fileStore.getUsableSpace();
+        long freeSpace = getSnapshot().getStorage(index).usable;
         freeSpace = getSizeInMB(freeSpace);
         return new DecimalType(freeSpace);
     }
 
     @Override
     public DecimalType getStorageUsed(int index) throws DeviceNotFoundException {
-        OSFileStore fileStore = (OSFileStore) getDevice(fileStores, index);
-        long totalSpace = fileStore.getTotalSpace();
-        long freeSpace = fileStore.getUsableSpace();
+        StorageSample storageSample = getSnapshot().getStorage(index);
+        long totalSpace = storageSample.total;
+        long freeSpace = storageSample.usable;
         long usedSpace = totalSpace - freeSpace;
         usedSpace = getSizeInMB(usedSpace);
         return new DecimalType(usedSpace);
@@ -208,9 +284,9 @@ public class OshiSysteminfo implements SysteminfoInterface {
 
     @Override
     public DecimalType getStorageAvailablePercent(int deviceIndex) throws DeviceNotFoundException {
-        OSFileStore fileStore = (OSFileStore) getDevice(fileStores, deviceIndex);
-        long totalSpace = fileStore.getTotalSpace();
-        long freeSpace = fileStore.getUsableSpace();
+        StorageSample storageSample = getSnapshot().getStorage(deviceIndex);
+        long totalSpace = storageSample.total;
+        long freeSpace = storageSample.usable;
         if (totalSpace > 0) {
             double freePercentDecimal = (double) freeSpace / (double) totalSpace;
             BigDecimal freePercent = getPercentsValue(freePercentDecimal);
@@ -222,9 +298,9 @@ public class OshiSysteminfo implements SysteminfoInterface {
 
     @Override
     public DecimalType getStorageUsedPercent(int deviceIndex) throws DeviceNotFoundException {
-        OSFileStore fileStore = (OSFileStore) getDevice(fileStores, deviceIndex);
-        long totalSpace = fileStore.getTotalSpace();
-        long freeSpace = fileStore.getUsableSpace();
+        StorageSample storageSample = getSnapshot().getStorage(deviceIndex);
+        long totalSpace = storageSample.total;
+        long freeSpace = storageSample.usable;
         long usedSpace = totalSpace - freeSpace;
         if (totalSpace > 0) {
             double usedPercentDecimal = (double) usedSpace / (double) totalSpace;
@@ -341,8 +417,9 @@ public class OshiSysteminfo implements SysteminfoInterface {
 
     @Override
     public DecimalType getMemoryAvailablePercent() {
-        long availableMemory = memory.getAvailable();
-        long totalMemory = memory.getTotal();
+        MemorySample memorySample = getSnapshot().getMemory();
+        long availableMemory = memorySample.available;
+        long totalMemory = memorySample.total;
         if (totalMemory > 0) {
             double freePercentDecimal = (double) availableMemory / (double) totalMemory;
             BigDecimal freePercent = getPercentsValue(freePercentDecimal);
@@ -354,8 +431,9 @@ public class OshiSysteminfo implements SysteminfoInterface {
 
     @Override
     public DecimalType getMemoryUsedPercent() {
-        long availableMemory = memory.getAvailable();
-        long totalMemory = memory.getTotal();
+        MemorySample memorySample = getSnapshot().getMemory();
+        long availableMemory = memorySample.available;
+        long totalMemory = memorySample.total;
         long usedMemory = totalMemory - availableMemory;
         if (totalMemory > 0) {
             double usedPercentDecimal = (double) usedMemory / (double) totalMemory;
@@ -389,15 +467,16 @@ public class OshiSysteminfo implements SysteminfoInterface {
 
     @Override
     public DecimalType getSwapTotal() {
-        long swapTotal = memory.getSwapTotal();
+        long swapTotal = getSnapshot().getMemory().swapTotal;
         swapTotal = getSizeInMB(swapTotal);
         return swapTotal > 0 ? new DecimalType(swapTotal) : null;
     }
 
     @Override
     public DecimalType getSwapAvailable() {
-        long swapTotal = memory.getSwapTotal();
-        long swapUsed = memory.getSwapUsed();
+        MemorySample memorySample = getSnapshot().getMemory();
+        long swapTotal = memorySample.swapTotal;
+        long swapUsed = memorySample.swapUsed;
         long swapAvaialble = swapTotal - swapUsed;
         swapAvaialble = getSizeInMB(swapAvaialble);
         return swapAvaialble > 0 ? new DecimalType(swapAvaialble) : null;
@@ -405,15 +484,16 @@ public class OshiSysteminfo implements SysteminfoInterface {
 
     @Override
     public DecimalType getSwapUsed() {
-        long swapTotal = memory.getSwapUsed();
+        long swapTotal = getSnapshot().getMemory().swapUsed;
         swapTotal = getSizeInMB(swapTotal);
         return swapTotal > 0 ? new DecimalType(swapTotal) : null;
     }
 
     @Override
     public DecimalType getSwapAvailablePercent() {
-        long usedSwap = memory.getSwapUsed();
-        long totalSwap = memory.getSwapTotal();
+        MemorySample memorySample = getSnapshot().getMemory();
+        long usedSwap = memorySample.swapUsed;
+        long totalSwap = memorySample.swapTotal;
         long freeSwap = totalSwap - usedSwap;
         if (totalSwap > 0) {
             double freePercentDecimal = (double) freeSwap / (double) totalSwap;
@@ -426,8 +506,9 @@ public class OshiSysteminfo implements SysteminfoInterface {
 
     @Override
     public DecimalType getSwapUsedPercent() {
-        long usedSwap = memory.getSwapUsed();
-        long totalSwap = memory.getSwapTotal();
+        MemorySample memorySample = getSnapshot().getMemory();
+        long usedSwap = memorySample.swapUsed;
+        long totalSwap = memorySample.swapTotal;
         if (totalSwap > 0) {
             double usedPercentDecimal = (double) usedSwap / (double) totalSwap;
             BigDecimal usedPercent = getPercentsValue(usedPercentDecimal);
@@ -502,7 +583,7 @@ public class OshiSysteminfo implements SysteminfoInterface {
             default:
                 index = 2;
         }
-        double processorLoads[] = cpu.getSystemLoadAverage(index + 1);
+        double processorLoads[] = getSnapshot().getLoadAverage();
         BigDecimal result = new BigDecimal(processorLoads[index]);
         result = result.setScale(PRECISION_AFTER_DECIMAl_SIGN, BigDecimal.ROUND_HALF_UP);
         return result;
@@ -510,13 +591,13 @@ public class OshiSysteminfo implements SysteminfoInterface {
 
     @Override
     public DecimalType getCpuUptime() {
-        long seconds = cpu.getSystemUptime();
+        long seconds = getSnapshot().getUptime();
         return new DecimalType(getTimeInMinutes(seconds));
     }
 
     @Override
     public DecimalType getCpuThreads() {
-        int threadCount = operatingSystem.getThreadCount();
+        int threadCount = getSnapshot().getThreadCount();
         return new DecimalType(threadCount);
     }
 
@@ -529,41 +610,32 @@ public class OshiSysteminfo implements SysteminfoInterface {
 
     @Override
     public DecimalType getNetworkPacketsReceived(int networkIndex) throws DeviceNotFoundException {
-        NetworkIF network = (NetworkIF) getDevice(networks, networkIndex);
-        network.updateNetworkStats();
-        long packRecv = network.getPacketsRecv();
+        long packRecv = getSnapshot().getNetwork(networkIndex).packetsReceived;
         return new DecimalType(packRecv);
     }
 
     @Override
     public DecimalType getNetworkPacketsSent(int networkIndex) throws DeviceNotFoundException {
-        NetworkIF network = (NetworkIF) getDevice(networks, networkIndex);
-        network.updateNetworkStats();
-        long packSent = network.getPacketsSent();
+        long packSent = getSnapshot().getNetwork(networkIndex).packetsSent;
         return new DecimalType(packSent);
     }
 
     @Override
     public DecimalType getNetworkDataSent(int networkIndex) throws DeviceNotFoundException {
-        NetworkIF network = (NetworkIF) getDevice(networks, networkIndex);
-        network.updateNetworkStats();
-        long bytesSent = network.getBytesSent();
+        long bytesSent = getSnapshot().getNetwork(networkIndex).bytesSent;
         return new DecimalType(getSizeInMB(bytesSent));
     }
 
     @Override
     public DecimalType getNetworkDataReceived(int networkIndex) throws DeviceNotFoundException {
-        NetworkIF network = (NetworkIF) getDevice(networks, networkIndex);
-        network.updateNetworkStats();
-        long bytesRecv = network.getBytesRecv();
+        long bytesRecv = getSnapshot().getNetwork(networkIndex).bytesReceived;
         return new DecimalType(getSizeInMB(bytesRecv));
     }
 
     @Override
     public StringType getProcessName(int pid) throws DeviceNotFoundException {
         if (pid > 0) {
-            OSProcess process = getProcess(pid);
-            String name = process.getName();
+            String name = getSnapshot().getProcess(pid).name;
             return new StringType(name);
         } else {
             return null;
@@ -573,8 +645,7 @@ public class OshiSysteminfo implements SysteminfoInterface {
     @Override
     public DecimalType getProcessCpuUsage(int pid) throws DeviceNotFoundException {
         if (pid > 0) {
-            OSProcess process = getProcess(pid);
-            double cpuUsageRaw = (process.getKernelTime() + process.getUserTime()) / process.getUpTime();
+            double cpuUsageRaw = getProcessCpuUsageRaw(pid);
             BigDecimal cpuUsage = getPercentsValue(cpuUsageRaw);
             return new DecimalType(cpuUsage);
         } else {
@@ -582,11 +653,30 @@ public class OshiSysteminfo implements SysteminfoInterface {
         }
     }
 
+    /**
+     * Returns the CPU time of the process divided by the elapsed time since the last snapshot in the history, which
+     * contains the same process. Without such a snapshot, the average since the process start is returned.
+     */
+    private double getProcessCpuUsageRaw(int pid) throws DeviceNotFoundException {
+        SysteminfoSnapshot current = getSnapshot();
+        ProcessSample sample = current.getProcess(pid);
+        for (SysteminfoSnapshot previous : getHistory()) {
+            if (previous == current) {
+                continue;
+            }
+            ProcessSample previousSample = previous.findProcess(pid);
+            if (previousSample != null && previousSample.startTime == sample.startTime
+                    && sample.upTime > previousSample.upTime) {
+                return (double) (sample.cpuTime - previousSample.cpuTime) / (sample.upTime - previousSample.upTime);
+            }
+        }
+        return sample.upTime > 0 ? (double) sample.cpuTime / sample.upTime : 0;
+    }
+
     @Override
     public DecimalType getProcessMemoryUsage(int pid) throws DeviceNotFoundException {
         if (pid > 0) {
-            OSProcess process = getProcess(pid);
-            long memortInBytes = process.getResidentSetSize();
+            long memortInBytes = getSnapshot().getProcess(pid).residentSetSize;
             long memoryInMB = getSizeInMB(memortInBytes);
             return new DecimalType(memoryInMB);
         } else {
@@ -597,8 +687,7 @@ public class OshiSysteminfo implements SysteminfoInterface {
     @Override
     public StringType getProcessPath(int pid) throws DeviceNotFoundException {
         if (pid > 0) {
-            OSProcess process = getProcess(pid);
-            String path = process.getPath();
+            String path = getSnapshot().getProcess(pid).path;
             return new StringType(path);
         } else {
             return null;
@@ -608,8 +697,7 @@ public class OshiSysteminfo implements SysteminfoInterface {
     @Override
     public DecimalType getProcessThreads(int pid) throws DeviceNotFoundException {
         if (pid > 0) {
-            OSProcess process = getProcess(pid);
-            int threadCount = process.getThreadCount();
+            int threadCount = getSnapshot().getProcess(pid).threadCount;
             return new DecimalType(threadCount);
         } else {
             return null;
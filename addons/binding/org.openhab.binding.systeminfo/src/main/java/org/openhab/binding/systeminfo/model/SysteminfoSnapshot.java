@@ -0,0 +1,210 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.systeminfo.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import oshi.hardware.CentralProcessor;
+import oshi.hardware.GlobalMemory;
+import oshi.hardware.NetworkIF;
+import oshi.software.os.OSFileStore;
+import oshi.software.os.OSProcess;
+import oshi.software.os.OperatingSystem;
+
+/**
+ * The {@link SysteminfoSnapshot} holds the dynamic system information of one point in time. Every part of the
+ * snapshot (memory, CPU, a storage, a network interface or a process) is read from OSHI at the first access and
+ * all following accesses return the same values. This way all channels updated with the same snapshot show
+ * consistent values and OSHI is queried at most once per part and snapshot.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+public class SysteminfoSnapshot {
+
+    private final long timestamp = System.currentTimeMillis();
+
+    private final GlobalMemory memory;
+    private final CentralProcessor cpu;
+    private final OperatingSystem operatingSystem;
+    private final OSFileStore[] fileStores;
+    private final NetworkIF[] networks;
+
+    private MemorySample memorySample;
+    private Double cpuLoad;
+    private double[] loadAverage;
+    private Long uptime;
+    private Integer threadCount;
+    private final Map<Integer, StorageSample> storageSamples = new HashMap<>();
+    private final Map<Integer, NetworkSample> networkSamples = new HashMap<>();
+    private final Map<Integer, ProcessSample> processSamples = new HashMap<>();
+
+    SysteminfoSnapshot(GlobalMemory memory, CentralProcessor cpu, OperatingSystem operatingSystem,
+            OSFileStore[] fileStores, NetworkIF[] networks) {
+        this.memory = memory;
+        this.cpu = cpu;
+        this.operatingSystem = operatingSystem;
+        this.fileStores = fileStores;
+        this.networks = networks;
+    }
+
+    /**
+     * Returns the time of the snapshot creation in milliseconds since the epoch.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    synchronized MemorySample getMemory() {
+        if (memorySample == null) {
+            memorySample = new MemorySample(memory.getTotal(), memory.getAvailable(), memory.getSwapTotal(),
+                    memory.getSwapUsed());
+        }
+        return memorySample;
+    }
+
+    synchronized double getCpuLoad() {
+        if (cpuLoad == null) {
+            cpuLoad = cpu.getSystemCpuLoad();
+        }
+        return cpuLoad;
+    }
+
+    /**
+     * Returns the load averages for the last 1, 5 and 15 minutes.
+     */
+    synchronized double[] getLoadAverage() {
+        if (loadAverage == null) {
+            loadAverage = cpu.getSystemLoadAverage(3);
+        }
+        return loadAverage;
+    }
+
+    synchronized long getUptime() {
+        if (uptime == null) {
+            uptime = cpu.getSystemUptime();
+        }
+        return uptime;
+    }
+
+    synchronized int getThreadCount() {
+        if (threadCount == null) {
+            threadCount = operatingSystem.getThreadCount();
+        }
+        return threadCount;
+    }
+
+    synchronized StorageSample getStorage(int index) throws DeviceNotFoundException {
+        StorageSample sample = storageSamples.get(index);
+        if (sample == null) {
+            OSFileStore fileStore = (OSFileStore) getDevice(fileStores, index);
+            sample = new StorageSample(fileStore.getTotalSpace(), fileStore.getUsableSpace());
+            storageSamples.put(index, sample);
+        }
+        return sample;
+    }
+
+    synchronized NetworkSample getNetwork(int index) throws DeviceNotFoundException {
+        NetworkSample sample = networkSamples.get(index);
+        if (sample == null) {
+            NetworkIF network = (NetworkIF) getDevice(networks, index);
+            network.updateNetworkStats();
+            sample = new NetworkSample(network.getBytesSent(), network.getBytesRecv(), network.getPacketsSent(),
+                    network.getPacketsRecv());
+            networkSamples.put(index, sample);
+        }
+        return sample;
+    }
+
+    synchronized ProcessSample getProcess(int pid) throws DeviceNotFoundException {
+        ProcessSample sample = processSamples.get(pid);
+        if (sample == null) {
+            OSProcess process = operatingSystem.getProcess(pid);
+            if (process == null) {
+                throw new DeviceNotFoundException("Error while getting information for process with PID " + pid);
+            }
+            sample = new ProcessSample(process);
+            processSamples.put(pid, sample);
+        }
+        return sample;
+    }
+
+    /**
+     * Returns the process information, if it was already read for this snapshot, otherwise null.
+     */
+    synchronized ProcessSample findProcess(int pid) {
+        return processSamples.get(pid);
+    }
+
+    private static Object getDevice(Object[] devices, int index) throws DeviceNotFoundException {
+        if (devices == null || devices.length <= index) {
+            throw new DeviceNotFoundException("Device with index: " + index + " can not be found!");
+        }
+        return devices[index];
+    }
+
+    static class MemorySample {
+        final long total;
+        final long available;
+        final long swapTotal;
+        final long swapUsed;
+
+        MemorySample(long total, long available, long swapTotal, long swapUsed) {
+            this.total = total;
+            this.available = available;
+            this.swapTotal = swapTotal;
+            this.swapUsed = swapUsed;
+        }
+    }
+
+    static class StorageSample {
+        final long total;
+        final long usable;
+
+        StorageSample(long total, long usable) {
+            this.total = total;
+            this.usable = usable;
+        }
+    }
+
+    static class NetworkSample {
+        final long bytesSent;
+        final long bytesReceived;
+        final long packetsSent;
+        final long packetsReceived;
+
+        NetworkSample(long bytesSent, long bytesReceived, long packetsSent, long packetsReceived) {
+            this.bytesSent = bytesSent;
+            this.bytesReceived = bytesReceived;
+            this.packetsSent = packetsSent;
+            this.packetsReceived = packetsReceived;
+        }
+    }
+
+    static class ProcessSample {
+        final String name;
+        final String path;
+        final long residentSetSize;
+        final int threadCount;
+        final long startTime;
+        final long upTime;
+        final long cpuTime;
+
+        ProcessSample(OSProcess process) {
+            name = process.getName();
+            path = process.getPath();
+            residentSetSize = process.getResidentSetSize();
+            threadCount = process.getThreadCount();
+            startTime = process.getStartTime();
+            upTime = process.getUpTime();
+            cpuTime = process.getKernelTime() + process.getUserTime();
+        }
+    }
+}
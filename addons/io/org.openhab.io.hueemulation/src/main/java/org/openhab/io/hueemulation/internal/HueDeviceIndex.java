@@ -0,0 +1,224 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.hueemulation.internal;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang.ArrayUtils;
+import org.eclipse.smarthome.core.items.GenericItem;
+import org.eclipse.smarthome.core.items.Item;
+import org.eclipse.smarthome.core.items.ItemRegistry;
+import org.eclipse.smarthome.core.items.ItemRegistryChangeListener;
+import org.eclipse.smarthome.core.items.StateChangeListener;
+import org.eclipse.smarthome.core.types.State;
+import org.openhab.io.hueemulation.internal.api.HueDataStore;
+import org.openhab.io.hueemulation.internal.api.HueDevice;
+import org.openhab.io.hueemulation.internal.api.HueGroup;
+import org.openhab.io.hueemulation.internal.api.HueState;
+
+import com.google.gson.Gson;
+
+/**
+ * Index of all items with a supported tag, which is maintained from item registry events, so that requests do not
+ * have to scan the item registry. The JSON responses of the device listings are created once and reused until an
+ * indexed item or its state changes.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+public class HueDeviceIndex implements ItemRegistryChangeListener, StateChangeListener {
+
+    /**
+     * Converts indexed items to Hue devices
+     */
+    public interface DeviceConverter {
+        HueDevice toDevice(Item item);
+    }
+
+    private final ItemRegistry itemRegistry;
+    private final String[] supportedTags;
+    private final DeviceConverter converter;
+    private final Gson gson;
+
+    private final Map<String, Item> items = new ConcurrentHashMap<String, Item>();
+
+    // distinguishes the ETags of different runs, as the version starts at 0 again
+    private final String instanceId = Long.toHexString(System.currentTimeMillis());
+    private final AtomicLong version = new AtomicLong();
+    private volatile Snapshot snapshot;
+
+    public HueDeviceIndex(ItemRegistry itemRegistry, String[] supportedTags, DeviceConverter converter, Gson gson) {
+        this.itemRegistry = itemRegistry;
+        this.supportedTags = supportedTags;
+        this.converter = converter;
+        this.gson = gson;
+    }
+
+    /**
+     * Builds the index and starts listening to item registry events
+     */
+    public void start() {
+        itemRegistry.addRegistryChangeListener(this);
+        allItemsChanged(null);
+    }
+
+    /**
+     * Stops listening to item registry events and state changes
+     */
+    public void stop() {
+        itemRegistry.removeRegistryChangeListener(this);
+        for (Item item : items.values()) {
+            unlisten(item);
+        }
+        items.clear();
+        invalidate();
+    }
+
+    /**
+     * Returns the current JSON responses, which are rebuilt if an indexed item has changed
+     */
+    public Snapshot getSnapshot() {
+        long currentVersion = version.get();
+        Snapshot current = snapshot;
+        if (current != null && current.version == currentVersion) {
+            return current;
+        }
+
+        Map<String, HueDevice> devices = new HashMap<String, HueDevice>();
+        Map<String, String> names = new HashMap<String, String>();
+        for (Item item : items.values()) {
+            devices.put(item.getName(), converter.toDevice(item));
+            names.put(item.getName(), item.getLabel());
+        }
+        HueDataStore dataStore = new HueDataStore();
+        dataStore.lights = devices;
+        HueGroup groupZero = new HueGroup("0", names.keySet().toArray(new String[0]), new HueState());
+
+        current = new Snapshot(currentVersion, "\"" + instanceId + "-" + currentVersion + "\"", gson.toJson(names),
+                gson.toJson(groupZero), gson.toJson(dataStore));
+        if (version.get() == currentVersion) {
+            // do not publish the snapshot, if an item has changed while building it
+            snapshot = current;
+        }
+        return current;
+    }
+
+    /**
+     * Returns the item names and labels of all indexed items
+     */
+    public Map<String, String> getDeviceNames() {
+        Map<String, String> names = new HashMap<String, String>();
+        for (Item item : items.values()) {
+            names.put(item.getName(), item.getLabel());
+        }
+        return names;
+    }
+
+    private boolean isTagged(Item item) {
+        for (String tag : item.getTags()) {
+            if (ArrayUtils.contains(supportedTags, tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void invalidate() {
+        version.incrementAndGet();
+        snapshot = null;
+    }
+
+    private void listen(Item item) {
+        if (item instanceof GenericItem) {
+            ((GenericItem) item).addStateChangeListener(this);
+        }
+    }
+
+    private void unlisten(Item item) {
+        if (item instanceof GenericItem) {
+            ((GenericItem) item).removeStateChangeListener(this);
+        }
+    }
+
+    @Override
+    public void added(Item item) {
+        if (isTagged(item)) {
+            Item previous = items.put(item.getName(), item);
+            if (previous != null && previous != item) {
+                unlisten(previous);
+            }
+            listen(item);
+            invalidate();
+        }
+    }
+
+    @Override
+    public void removed(Item item) {
+        Item previous = items.remove(item.getName());
+        if (previous != null) {
+            unlisten(previous);
+            invalidate();
+        }
+        unlisten(item);
+    }
+
+    @Override
+    public void updated(Item oldItem, Item item) {
+        removed(oldItem);
+        added(item);
+    }
+
+    @Override
+    public void allItemsChanged(Collection<String> oldItemNames) {
+        for (Item item : items.values()) {
+            unlisten(item);
+        }
+        items.clear();
+        for (Item item : itemRegistry.getItems()) {
+            if (isTagged(item)) {
+                items.put(item.getName(), item);
+                listen(item);
+            }
+        }
+        invalidate();
+    }
+
+    @Override
+    public void stateChanged(Item item, State oldState, State newState) {
+        invalidate();
+    }
+
+    @Override
+    public void stateUpdated(Item item, State state) {
+        // the Hue state only changes with the item state
+    }
+
+    /**
+     * The JSON responses of one version of the index
+     */
+    public static class Snapshot {
+        private final long version;
+        public final String eTag;
+        public final String lights;
+        public final String groupZero;
+        public final String dataStore;
+
+        private Snapshot(long version, String eTag, String lights, String groupZero, String dataStore) {
+            this.version = version;
+            this.eTag = eTag;
+            this.lights = lights;
+            this.groupZero = groupZero;
+            this.dataStore = dataStore;
+        }
+    }
+}
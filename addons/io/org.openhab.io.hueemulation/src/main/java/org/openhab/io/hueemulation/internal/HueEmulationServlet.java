@@ -14,12 +14,8 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.net.InetAddress;
-import java.util.Collection;
 import java.util.Dictionary;
-import java.util.HashMap;
 import java.util.Hashtable;
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -31,7 +27,6 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.apache.commons.io.IOUtils;
-import org.apache.commons.lang.ArrayUtils;
 import org.eclipse.smarthome.config.core.ConfigConstants;
 import org.eclipse.smarthome.core.events.EventPublisher;
 import org.eclipse.smarthome.core.items.Item;
@@ -45,10 +40,8 @@ import org.eclipse.smarthome.core.types.Command;
 import org.eclipse.smarthome.core.types.State;
 import org.eclipse.smarthome.core.types.TypeParser;
 import org.openhab.io.hueemulation.internal.api.HueCreateUser;
-import org.openhab.io.hueemulation.internal.api.HueDataStore;
 import org.openhab.io.hueemulation.internal.api.HueDevice;
 import org.openhab.io.hueemulation.internal.api.HueErrorResponse;
-import org.openhab.io.hueemulation.internal.api.HueGroup;
 import org.openhab.io.hueemulation.internal.api.HueState;
 import org.osgi.service.component.ComponentContext;
 import org.osgi.service.http.HttpService;
@@ -86,6 +79,7 @@ public class HueEmulationServlet extends HttpServlet {
     private Gson gson = new Gson();
     private HttpService httpService;
     private ItemRegistry itemRegistry;
+    private HueDeviceIndex deviceIndex;
     private EventPublisher eventPublisher;
     private HueEmulationUpnpServer disco;
     private String udn;
@@ -155,9 +149,20 @@ public class HueEmulationServlet extends HttpServlet {
 
     protected void setItemRegistry(ItemRegistry itemRegistry) {
         this.itemRegistry = itemRegistry;
+        this.deviceIndex = new HueDeviceIndex(itemRegistry, SUPPORTED_TAGS, new HueDeviceIndex.DeviceConverter() {
+            @Override
+            public HueDevice toDevice(Item item) {
+                return itemToDevice(item);
+            }
+        }, gson);
+        this.deviceIndex.start();
     }
 
     protected void unsetItemRegistry(ItemRegistry itemRegistry) {
+        if (this.deviceIndex != null) {
+            this.deviceIndex.stop();
+            this.deviceIndex = null;
+        }
         this.itemRegistry = null;
     }
 
@@ -362,8 +367,12 @@ public class HueEmulationServlet extends HttpServlet {
      * @throws IOException
      */
     public void apiLights(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        HueDeviceIndex.Snapshot snapshot = deviceIndex.getSnapshot();
+        if (notModified(snapshot, req, resp)) {
+            return;
+        }
         PrintWriter out = resp.getWriter();
-        out.write(gson.toJson(getHueDeviceNames()));
+        out.write(snapshot.lights);
         out.close();
     }
 
@@ -375,10 +384,12 @@ public class HueEmulationServlet extends HttpServlet {
      * @throws IOException
      */
     public void apiGroupZero(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        HueDeviceIndex.Snapshot snapshot = deviceIndex.getSnapshot();
+        if (notModified(snapshot, req, resp)) {
+            return;
+        }
         PrintWriter out = resp.getWriter();
-        String[] lights = getHueDeviceNames().keySet().toArray(new String[0]);
-        HueState action = new HueState();
-        out.write(gson.toJson(new HueGroup("0", lights, action)));
+        out.write(snapshot.groupZero);
         out.close();
     }
 
@@ -390,10 +401,27 @@ public class HueEmulationServlet extends HttpServlet {
      * @throws IOException
      */
     public void apiDataStore(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        HueDeviceIndex.Snapshot snapshot = deviceIndex.getSnapshot();
+        if (notModified(snapshot, req, resp)) {
+            return;
+        }
         PrintWriter out = resp.getWriter();
-        HueDataStore ds = new HueDataStore();
-        ds.lights = getHueDevices();
-        out.write(gson.toJson(ds));
+        out.write(snapshot.dataStore);
+    }
+
+    /**
+     * Sets the ETag of the device snapshot and sends 304 (Not Modified), if the client has the current version
+     *
+     * @return true if the response is complete
+     */
+    private boolean notModified(HueDeviceIndex.Snapshot snapshot, HttpServletRequest req, HttpServletResponse resp) {
+        resp.setHeader("ETag", snapshot.eTag);
+        String ifNoneMatch = req.getHeader("If-None-Match");
+        if (ifNoneMatch != null && ifNoneMatch.contains(snapshot.eTag)) {
+            resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return true;
+        }
+        return false;
     }
 
     /**
@@ -475,40 +503,14 @@ public class HueEmulationServlet extends HttpServlet {
         out.close();
     }
 
-    /**
-     * Returns a map of all our items that have voice tags.
-     *
-     * @param username
-     * @return
-     *         Map <item name, HueDevice>
-     */
-    private Map<String, HueDevice> getHueDevices() {
-        Collection<Item> items = getTaggedItems();
-        Map<String, HueDevice> devices = new HashMap<String, HueDevice>();
-        Iterator<Item> it = items.iterator();
-        while (it.hasNext()) {
-            Item item = it.next();
-            devices.put(item.getName(), itemToDevice(item));
-        }
-        return devices;
-    }
-
     /**
      * Returns the item name and voice name of each item
      *
-     * @param username
      * @return
      *         Map<item name, item voice tag>
      */
     public Map<String, String> getHueDeviceNames() {
-        Collection<Item> items = getTaggedItems();
-        Map<String, String> devices = new HashMap<String, String>();
-        Iterator<Item> it = items.iterator();
-        while (it.hasNext()) {
-            Item item = it.next();
-            devices.put(item.getName(), item.getLabel());
-        }
-        return devices;
+        return deviceIndex.getDeviceNames();
     }
 
     /**
@@ -538,24 +540,6 @@ public class HueEmulationServlet extends HttpServlet {
         return d;
     }
 
-    /**
-     * Gets all items that match our tag
-     *
-     * @return
-     */
-    private Collection<Item> getTaggedItems() {
-        Collection<Item> items = new LinkedList<Item>();
-        for (Item item : itemRegistry.getItems()) {
-            for (String tag : item.getTags()) {
-                if (ArrayUtils.contains(SUPPORTED_TAGS, tag)) {
-                    items.add(item);
-                    break;
-                }
-            }
-        }
-        return items;
-    }
-
     /**
      * Checks if the username exists in our user list
      *
@@ -111,7 +111,7 @@ public class ImperiHomeApiServlet extends HttpServlet {
         actionRegistry = new ActionRegistry(eventPublisher, deviceRegistry);
         itemProcessor = new ItemProcessor(itemRegistry, deviceRegistry, actionRegistry, imperiHomeConfig);
         roomListHandler = new RoomListHandler(deviceRegistry);
-        devicesListHandler = new DevicesListHandler(deviceRegistry);
+        devicesListHandler = new DevicesListHandler(deviceRegistry, gson);
         deviceActionHandler = new DeviceActionHandler(deviceRegistry);
         deviceHistoryHandler = new DeviceHistoryHandler(deviceRegistry, persistenceServiceRegistry);
 
@@ -201,7 +201,8 @@ public class ImperiHomeApiServlet extends HttpServlet {
         if (URL_PATTERN_ROOMS.matcher(path).matches()) {
             response = roomListHandler.handle(req);
         } else if (URL_PATTERN_DEVICES.matcher(path).matches()) {
-            response = devicesListHandler.handle(req);
+            writeDevices(req, resp, devicesListHandler.handle(req));
+            return;
         } else if (actionMatcher.matches()) {
             deviceActionHandler.handle(req, actionMatcher);
         } else if (historyMatcher.matches()) {
@@ -215,6 +216,16 @@ public class ImperiHomeApiServlet extends HttpServlet {
         resp.getWriter().write(gson.toJson(response));
     }
 
+    private void writeDevices(HttpServletRequest req, HttpServletResponse resp, DevicesListHandler.Response devices)
+            throws IOException {
+        resp.setHeader("ETag", devices.getETag());
+        if (devices.getETag().equals(req.getHeader("If-None-Match"))) {
+            resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        resp.getWriter().write(devices.getJson());
+    }
+
     private void setHeaders(HttpServletResponse response) {
         response.setCharacterEncoding(CHARSET);
         response.setContentType(APPLICATION_JSON);
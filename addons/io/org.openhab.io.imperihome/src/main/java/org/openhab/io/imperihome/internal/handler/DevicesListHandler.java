@@ -18,8 +18,10 @@ import org.openhab.io.imperihome.internal.processor.DeviceRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.gson.Gson;
+
 /**
- * Device list request handler.
+ * Device list request handler. The serialized device list is cached until the version of the device registry changes.
  *
  * @author Pepijn de Geus - Initial contribution
  */
@@ -28,23 +30,72 @@ public class DevicesListHandler {
     private final Logger logger = LoggerFactory.getLogger(DevicesListHandler.class);
 
     private final DeviceRegistry deviceRegistry;
+    private final Gson gson;
+
+    // Distinguishes the ETags of different runs, as the registry version starts at 0 again
+    private final String instanceId = Long.toHexString(System.currentTimeMillis());
 
-    public DevicesListHandler(DeviceRegistry deviceRegistry) {
+    private volatile Response cached;
+
+    public DevicesListHandler(DeviceRegistry deviceRegistry, Gson gson) {
         this.deviceRegistry = deviceRegistry;
+        this.gson = gson;
     }
 
-    public DeviceList handle(HttpServletRequest req) {
-        DeviceList response = new DeviceList();
+    public Response handle(HttpServletRequest req) {
+        long version = deviceRegistry.getVersion();
+        Response response = cached;
+        if (response != null && response.version == version) {
+            return response;
+        }
+
+        synchronized (this) {
+            response = cached;
+            if (response != null && response.version == version) {
+                return response;
+            }
+
+            DeviceList deviceList = new DeviceList();
+
+            Collection<AbstractDevice> devices = deviceRegistry.getDevices().values();
+            for (AbstractDevice device : devices) {
+                device.updateParams();
+            }
+
+            deviceList.setDevices(devices);
 
-        Collection<AbstractDevice> devices = deviceRegistry.getDevices().values();
-        for (AbstractDevice device : devices) {
-            device.updateParams();
+            logger.debug("Device list response: {}", deviceList);
+            response = new Response(version, "\"" + instanceId + "-" + version + "\"", gson.toJson(deviceList));
+
+            // Do not cache the response if a device has changed while serializing
+            if (deviceRegistry.getVersion() == version) {
+                cached = response;
+            }
+            return response;
         }
+    }
 
-        response.setDevices(devices);
+    /**
+     * Serialized device list of one registry version.
+     */
+    public static class Response {
+        private final long version;
+        private final String eTag;
+        private final String json;
+
+        private Response(long version, String eTag, String json) {
+            this.version = version;
+            this.eTag = eTag;
+            this.json = json;
+        }
 
-        logger.debug("Device list response: {}", response);
-        return response;
+        public String getETag() {
+            return eTag;
+        }
+
+        public String getJson() {
+            return json;
+        }
     }
 
 }
@@ -53,6 +53,30 @@ public abstract class AbstractDevice implements StateChangeListener {
     private transient DeviceRegistry deviceRegistry;
     private transient ActionRegistry actionRegistry;
 
+    /**
+     * Forwards state events to this device and notifies the registry afterwards, so that the registry version never
+     * changes before the device parameters have been updated.
+     */
+    private final transient StateChangeListener itemListener = new StateChangeListener() {
+        private State lastState;
+
+        @Override
+        public void stateChanged(Item item, State oldState, State newState) {
+            AbstractDevice.this.stateChanged(item, oldState, newState);
+        }
+
+        @Override
+        public void stateUpdated(Item item, State newState) {
+            AbstractDevice.this.stateUpdated(item, newState);
+
+            DeviceRegistry registry = deviceRegistry;
+            if (registry != null && newState != null && !newState.equals(lastState)) {
+                lastState = newState;
+                registry.markChanged();
+            }
+        }
+    };
+
     public AbstractDevice(DeviceType type, Item item) {
         this.type = type;
         this.item = item;
@@ -60,13 +84,13 @@ public abstract class AbstractDevice implements StateChangeListener {
         links = new HashMap<>();
 
         if (item instanceof GenericItem) {
-            ((GenericItem) item).addStateChangeListener(this);
+            ((GenericItem) item).addStateChangeListener(itemListener);
         }
     }
 
     public void destroy() {
         if (item instanceof GenericItem) {
-            ((GenericItem) item).removeStateChangeListener(this);
+            ((GenericItem) item).removeStateChangeListener(itemListener);
         }
 
         deviceRegistry = null;
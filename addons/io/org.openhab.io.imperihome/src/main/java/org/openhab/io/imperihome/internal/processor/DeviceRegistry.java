@@ -15,6 +15,7 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.openhab.io.imperihome.internal.model.Room;
 import org.openhab.io.imperihome.internal.model.device.AbstractDevice;
@@ -22,7 +23,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * The device registry stores created devices by ID.
+ * The device registry stores created devices by ID. Its version is incremented whenever a device is added or removed
+ * or the state of a device has changed.
  *
  * @author Pepijn de Geus - Initial contribution
  */
@@ -32,6 +34,7 @@ public class DeviceRegistry implements Iterable<AbstractDevice> {
 
     private final Map<String, AbstractDevice> devices;
     private Set<Room> rooms;
+    private final AtomicLong version = new AtomicLong();
 
     public DeviceRegistry() {
         devices = new ConcurrentHashMap<>();
@@ -67,6 +70,7 @@ public class DeviceRegistry implements Iterable<AbstractDevice> {
 
         devices.put(device.getId(), device);
         updateRooms();
+        markChanged();
 
         logger.debug("Device {} added, registry now contains {} total", device.getName(), devices.size());
     }
@@ -75,6 +79,7 @@ public class DeviceRegistry implements Iterable<AbstractDevice> {
         AbstractDevice removed = devices.remove(deviceId);
         if (removed != null) {
             updateRooms();
+            markChanged();
             logger.debug("Device {} removed, registry now contains {} total", removed.getName(), devices.size());
         }
         return removed;
@@ -94,10 +99,25 @@ public class DeviceRegistry implements Iterable<AbstractDevice> {
         if (rooms != null) {
             rooms.clear();
         }
+        markChanged();
 
         logger.debug("Device registry cleared");
     }
 
+    /**
+     * @return Version of the registry contents, which changes with every added, removed or changed device.
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Increments the version after the state of a device has changed.
+     */
+    public void markChanged() {
+        version.incrementAndGet();
+    }
+
     private void updateRooms() {
         Set<Room> newRooms = new HashSet<>();
         for (AbstractDevice device : devices.values()) {
@@ -11,9 +11,11 @@ package org.openhab.io.imperihome.internal.processor;
 import java.util.Collection;
 import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.lang.BooleanUtils;
 import org.apache.commons.lang.StringUtils;
@@ -111,6 +113,8 @@ public class ItemProcessor implements ItemRegistryChangeListener {
                 device.setName(getLabel(item, issTags));
                 device.setInverted(isInverted(issTags));
                 device.setActionRegistry(actionRegistry);
+                // Pass device registry to device for linked device lookup and change notification
+                device.setDeviceRegistry(deviceRegistry);
 
                 setIcon(device, issTags);
                 setDeviceRoom(device, issTags);
@@ -236,9 +240,6 @@ public class ItemProcessor implements ItemRegistryChangeListener {
 
     private void setDeviceLinks(AbstractDevice device, Item item, Map<TagType, List<String>> issTags) {
         if (issTags.containsKey(TagType.LINK)) {
-            // Pass device registry to device for linked device lookup
-            device.setDeviceRegistry(deviceRegistry);
-
             // Parse link tags
             for (String link : issTags.get(TagType.LINK)) {
                 String[] parts = link.split(":");
@@ -338,19 +339,18 @@ public class ItemProcessor implements ItemRegistryChangeListener {
 
         for (String tag : item.getTags()) {
             if (tag.startsWith(PREFIX_ISS)) {
-                String issTag = tag.substring(PREFIX_ISS.length());
-                for (TagType tagType : TagType.values()) {
-                    if (issTag.startsWith(tagType.getPrefix() + ':')) {
-                        String tagValue = issTag.substring(tagType.getPrefix().length() + 1);
-                        if (!tags.containsKey(tagType)) {
-                            tags.put(tagType, new LinkedList<String>());
-                        } else if (!tagType.isMultiValue()) {
-                            logger.error("Found multiple values for tag {} - only first value is used",
-                                    tagType.getPrefix());
-                        }
-                        tags.get(tagType).add(tagValue);
-                        break;
+                int separator = tag.indexOf(':', PREFIX_ISS.length());
+                TagType tagType = separator < 0 ? null
+                        : TagType.forPrefix(tag.substring(PREFIX_ISS.length(), separator));
+                if (tagType != null) {
+                    String tagValue = tag.substring(separator + 1);
+                    if (!tags.containsKey(tagType)) {
+                        tags.put(tagType, new LinkedList<String>());
+                    } else if (!tagType.isMultiValue()) {
+                        logger.error("Found multiple values for tag {} - only first value is used",
+                                tagType.getPrefix());
                     }
+                    tags.get(tagType).add(tagValue);
                 }
             }
         }
@@ -423,27 +423,56 @@ public class ItemProcessor implements ItemRegistryChangeListener {
         parseItem(newItem);
     }
 
+    /**
+     * Only re-parses Items which have been replaced by a new instance. Devices of Items which are unchanged are kept,
+     * devices of Items which no longer exist are removed.
+     */
     @Override
     public void allItemsChanged(Collection<String> oldItems) {
         synchronized (deviceRegistry) {
             logger.debug("Processing allItemsChanged event");
 
-            if (oldItems != null) {
-                for (String oldItem : oldItems) {
-                    removeItem(oldItem);
+            Set<String> keptDeviceIds = new HashSet<>();
+            int parsed = 0;
+            for (Item item : itemRegistry.getItems()) {
+                String deviceId = getDeviceId(item);
+                AbstractDevice device = deviceRegistry.getDevice(deviceId);
+                if (device != null && device.getItem() == item) {
+                    keptDeviceIds.add(deviceId);
+                    continue;
+                }
+
+                if (device != null) {
+                    removeItem(item);
+                }
+                if (hasIssTags(item)) {
+                    parseItem(item);
+                    keptDeviceIds.add(deviceId);
+                    parsed++;
                 }
             }
 
-            if (deviceRegistry.hasDevices()) {
-                logger.warn("There are still Devices left after processing all Items from allItemsChanged(): {}",
-                        deviceRegistry.getDevices());
-                deviceRegistry.clear();
+            for (String deviceId : deviceRegistry.getDevices().keySet()) {
+                if (!keptDeviceIds.contains(deviceId)) {
+                    AbstractDevice device = deviceRegistry.remove(deviceId);
+                    if (device != null) {
+                        logger.debug("Removing Device from ISS registry for removed Item: {}", device.getName());
+                        device.destroy();
+                    }
+                }
             }
 
-            for (Item item : itemRegistry.getItems()) {
-                parseItem(item);
+            logger.debug("Parsed {} changed Items, kept {} Devices", parsed, keptDeviceIds.size() - parsed);
+        }
+    }
+
+    private boolean hasIssTags(Item item) {
+        for (String tag : item.getTags()) {
+            if (tag.startsWith(PREFIX_ISS)) {
+                return true;
             }
         }
+        return false;
     }
 
 }
@@ -8,6 +8,9 @@
  */
 package org.openhab.io.imperihome.internal.processor;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * ISS tag types enumeration.
  *
@@ -29,6 +32,14 @@ public enum TagType {
     MAX_VAL("maxVal", false),
     MODES("modes", false);
 
+    private static final Map<String, TagType> BY_PREFIX = new HashMap<>();
+
+    static {
+        for (TagType tagType : values()) {
+            BY_PREFIX.put(tagType.prefix, tagType);
+        }
+    }
+
     private final String prefix;
     private final boolean multiValue;
 
@@ -51,4 +62,12 @@ public enum TagType {
         return multiValue;
     }
 
+    /**
+     * @param prefix Tag prefix.
+     * @return The tag type with the given prefix, or null if there is none.
+     */
+    public static TagType forPrefix(String prefix) {
+        return BY_PREFIX.get(prefix);
+    }
+
 }
@@ -16,18 +16,18 @@ import java.net.URLEncoder;
 import java.net.MalformedURLException;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 import org.eclipse.jetty.client.HttpClient;
 import org.eclipse.jetty.client.api.Request;
 import org.eclipse.jetty.client.api.Request.FailureListener;
 import org.eclipse.jetty.client.api.Response;
-import org.eclipse.jetty.client.api.Response.ContentListener;
+import org.eclipse.jetty.client.api.Response.AsyncContentListener;
 import org.eclipse.jetty.client.api.Response.HeadersListener;
 import org.eclipse.jetty.client.api.Result;
 import org.eclipse.jetty.client.util.BytesContentProvider;
@@ -36,6 +36,7 @@ import org.eclipse.jetty.http.HttpFields;
 import org.eclipse.jetty.http.HttpMethod;
 import org.eclipse.jetty.http.HttpStatus;
 import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.URIUtil;
 import org.eclipse.smarthome.core.common.ThreadPoolManager;
 import org.json.JSONException;
@@ -49,6 +50,7 @@ import io.socket.client.Manager;
 import io.socket.client.Socket;
 import io.socket.emitter.Emitter;
 import io.socket.engineio.client.Transport;
+import io.socket.thread.EventThread;
 
 /**
  * This class provides communication between openHAB and the openHAB Cloud service.
@@ -79,6 +81,23 @@ public class CloudClient {
      */
     private static final int HTTP_CLIENT_TIMEOUT = 30000;
 
+    /*
+     * This constant defines the maximum number of proxied requests which are running at the same time
+     */
+    private static final int MAX_RUNNING_REQUESTS = HTTP_CLIENT_MAX_CONNECTIONS_PER_DEST;
+
+    /*
+     * Text responses smaller than this number of bytes are not compressed
+     */
+    private static final int MIN_COMPRESS_SIZE = 1024;
+
+    /*
+     * These constants define the defaults for buffering item updates sent to the openHAB Cloud
+     */
+    public static final long DEFAULT_ITEM_UPDATE_INTERVAL = 0;
+    public static final int DEFAULT_ITEM_UPDATE_BATCH_SIZE = 100;
+    public static final int DEFAULT_ITEM_UPDATE_BACKLOG = 1000;
+
     /*
      * This variable holds base URL for the openHAB Cloud connections
      */
@@ -105,9 +124,10 @@ public class CloudClient {
     private HttpClient jettyClient;
 
     /*
-     * This hashmap holds HTTP requests to local openHAB which are currently running
+     * This map holds HTTP requests to local openHAB which are currently running, it is accessed
+     * from Socket.IO and Jetty threads
      */
-    private HashMap<Integer, Request> runningRequests;
+    private final Map<Integer, Request> runningRequests = new ConcurrentHashMap<Integer, Request>();
 
     /*
      * This variable indicates if connection to the openHAB Cloud is currently in an established state
@@ -138,6 +158,11 @@ public class CloudClient {
     private boolean remoteAccessEnabled;
     private Set<String> exposedItems;
 
+    /*
+     * This variable holds the buffer which coalesces item updates before they are sent to the openHAB Cloud
+     */
+    private ItemUpdateBuffer itemUpdates;
+
     /**
      * Constructor of CloudClient
      *
@@ -155,10 +180,27 @@ public class CloudClient {
         this.localBaseUrl = localBaseUrl;
         this.remoteAccessEnabled = remoteAccessEnabled;
         this.exposedItems = exposedItems;
-        runningRequests = new HashMap<Integer, Request>();
         jettyClient = new HttpClient();
         jettyClient.setMaxConnectionsPerDestination(HTTP_CLIENT_MAX_CONNECTIONS_PER_DEST);
         jettyClient.setConnectTimeout(HTTP_CLIENT_TIMEOUT);
+        setItemUpdateOptions(DEFAULT_ITEM_UPDATE_INTERVAL, DEFAULT_ITEM_UPDATE_BATCH_SIZE,
+                DEFAULT_ITEM_UPDATE_BACKLOG);
+    }
+
+    /**
+     * Configures how item updates are sent to the openHAB Cloud, must be called before connecting
+     *
+     * @param interval milliseconds between sending buffered updates, 0 sends every update immediately
+     * @param batchSize maximum number of updates sent per interval
+     * @param backlog maximum number of updates buffered while not connected
+     */
+    public void setItemUpdateOptions(long interval, int batchSize, int backlog) {
+        itemUpdates = new ItemUpdateBuffer(new ItemUpdateBuffer.Sender() {
+            @Override
+            public void send(String itemName, String itemState) {
+                emitItemUpdate(itemName, itemState);
+            }
+        }, interval, batchSize, backlog);
     }
 
     /**
@@ -241,10 +283,13 @@ public class CloudClient {
     public void onConnect() {
         logger.info("Connected to the openHAB Cloud service (UUID = {}, base URL = {})", this.uuid, this.localBaseUrl);
         isConnected = true;
+        itemUpdates.connected();
         // On connect start jetty client to process local requests to openHAB
         if (jettyClient != null) {
             try {
                 jettyClient.start();
+                // Forward compressed responses of openHAB as they are instead of decoding them
+                jettyClient.getContentDecoderFactories().clear();
             } catch (Exception e) {
                 logger.error("Could not start Jetty client: {}", e.getMessage());
             }
@@ -259,6 +304,7 @@ public class CloudClient {
         logger.info("Disconnected from the openHAB Cloud service (UUID = {}, base URL = {})", this.uuid,
                 this.localBaseUrl);
         isConnected = false;
+        itemUpdates.disconnected();
         // On disconnect stop jetty client to shutdown all ongoing requests if there were any
         if (jettyClient != null) {
             try {
@@ -268,9 +314,10 @@ public class CloudClient {
             }
         }
         // And clean up the list of running requests
-        if (runningRequests != null) {
-            runningRequests.clear();
+        for (Request request : runningRequests.values()) {
+            request.abort(new InterruptedException());
         }
+        runningRequests.clear();
     }
 
     /**
@@ -307,6 +354,12 @@ public class CloudClient {
             // Get unique request Id
             int requestId = data.getInt("id");
             logger.debug("Got request {}", requestId);
+            if (runningRequests.size() >= MAX_RUNNING_REQUESTS) {
+                logger.warn("Rejecting request {}, {} requests are already running", requestId,
+                        runningRequests.size());
+                sendResponseError(requestId, "openHAB connection error: too many requests");
+                return;
+            }
             // Get request path
             String requestPath = data.getString("path");
             // Get request method
@@ -360,11 +413,12 @@ public class CloudClient {
                 logger.error("Unsupported request method {}", requestMethod);
                 return;
             }
-            ResponseListener listener = new ResponseListener(requestId);
-            request.onResponseHeaders(listener).onResponseContent(listener).onRequestFailure(listener).send(listener);
-            // If successfully submitted request to http client, add it to the list of currently
-            // running requests to be able to cancel it if needed
+            ResponseListener listener = new ResponseListener(requestId, acceptsGzip(requestHeadersJson));
+            // Add the request to the list of currently running requests to be able to cancel it if needed,
+            // before sending it, as it may complete immediately
             runningRequests.put(requestId, request);
+            request.onResponseHeaders(listener).onResponseContentAsync(listener).onRequestFailure(listener)
+                    .send(listener);
         } catch (JSONException e) {
             logger.error("{}", e.getMessage());
         } catch (IOException e) {
@@ -393,15 +447,38 @@ public class CloudClient {
         }
     }
 
+    private boolean acceptsGzip(JSONObject requestHeadersJson) {
+        @SuppressWarnings("unchecked")
+        Iterator<String> headersIterator = requestHeadersJson.keys();
+        while (headersIterator.hasNext()) {
+            String headerName = headersIterator.next();
+            if (headerName.equalsIgnoreCase("Accept-Encoding")) {
+                String value = requestHeadersJson.optString(headerName);
+                return value != null && value.toLowerCase().contains("gzip");
+            }
+        }
+        return false;
+    }
+
+    private void sendResponseError(int requestId, String statusText) {
+        JSONObject responseJson = new JSONObject();
+        try {
+            responseJson.put("id", requestId);
+            responseJson.put("responseStatusText", statusText);
+            socket.emit("responseError", responseJson);
+        } catch (JSONException e) {
+            logger.error("{}", e.getMessage());
+        }
+    }
+
     private void handleCancelEvent(JSONObject data) {
         try {
             int requestId = data.getInt("id");
             logger.debug("Received cancel for request {}", requestId);
             // Find and abort running request
-            if (runningRequests.containsKey(requestId)) {
-                Request request = runningRequests.get(requestId);
+            Request request = runningRequests.remove(requestId);
+            if (request != null) {
                 request.abort(new InterruptedException());
-                runningRequests.remove(requestId);
             }
         } catch (JSONException e) {
             logger.error("{}", e.getMessage());
@@ -499,13 +576,18 @@ public class CloudClient {
     }
 
     /**
-     * Send item update to openHAB Cloud
+     * Send item update to openHAB Cloud. Updates are buffered, so that only the latest state
+     * of an item is sent per interval, and kept while the connection is down.
      *
      * @param itemName the name of the item
      * @param itemState updated item state
      *
      */
     public void sendItemUpdate(String itemName, String itemState) {
+        itemUpdates.add(itemName, itemState);
+    }
+
+    private void emitItemUpdate(String itemName, String itemState) {
         if (isConnected()) {
             logger.debug("Sending update '{}' for item '{}'", itemState, itemName);
             JSONObject itemUpdateMessage = new JSONObject();
@@ -533,6 +615,7 @@ public class CloudClient {
      */
     public void shutdown() {
         logger.info("Shutting down openHAB Cloud service connection");
+        itemUpdates.shutdown();
         try {
             jettyClient.stop();
         } catch (Exception e) {
@@ -554,25 +637,64 @@ public class CloudClient {
     }
 
     /*
-     * An internal class which forwards response headers and data back to the openHAB Cloud
+     * An internal class which forwards response headers and data back to the openHAB Cloud.
+     * Jetty does not read further content of a response until the previous chunk has been
+     * handed over to the Socket.IO event thread, so slow cloud connections throttle the
+     * local requests instead of piling up chunks in memory.
      */
     private class ResponseListener
-            implements Response.CompleteListener, HeadersListener, ContentListener, FailureListener {
+            implements Response.CompleteListener, HeadersListener, AsyncContentListener, FailureListener {
 
         private static final String THREADPOOL_OPENHABCLOUD = "openhabcloud";
         private int mRequestId;
         private boolean mHeadersSent = false;
+        private boolean mAcceptsGzip;
+        private GzipChunkEncoder mEncoder;
 
-        public ResponseListener(int requestId) {
+        public ResponseListener(int requestId, boolean acceptsGzip) {
             mRequestId = requestId;
+            mAcceptsGzip = acceptsGzip;
+        }
+
+        private boolean shouldCompress(Response response) {
+            if (!mAcceptsGzip || !hasBody(response)) {
+                return false;
+            }
+            HttpFields fields = response.getHeaders();
+            if (fields.containsKey("Content-Encoding")
+                    || !GzipChunkEncoder.isCompressible(fields.get("Content-Type"))) {
+                return false;
+            }
+            try {
+                long length = fields.getLongField("Content-Length");
+                return length < 0 || length >= MIN_COMPRESS_SIZE;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+
+        /**
+         * Returns false for responses, which never have a body (HEAD requests, 1xx, 204 and 304 statuses)
+         */
+        private boolean hasBody(Response response) {
+            int status = response.getStatus();
+            return !HttpMethod.HEAD.is(response.getRequest().getMethod()) && status >= HttpStatus.OK_200
+                    && status != HttpStatus.NO_CONTENT_204 && status != HttpStatus.NOT_MODIFIED_304;
         }
 
         private JSONObject getJSONHeaders(HttpFields httpFields) {
             JSONObject headersJSON = new JSONObject();
             try {
                 for (HttpField field : httpFields) {
+                    if (mEncoder != null && field.getName().equalsIgnoreCase("Content-Length")) {
+                        continue;
+                    }
                     headersJSON.put(field.getName(), field.getValue());
                 }
+                if (mEncoder != null) {
+                    headersJSON.put("Content-Encoding", "gzip");
+                    headersJSON.put("Vary", "Accept-Encoding");
+                }
             } catch (JSONException e) {
                 logger.error("Error forming response headers: {}", e.getMessage());
             }
@@ -583,6 +705,17 @@ public class CloudClient {
         public void onComplete(Result result) {
             // Remove this request from list of running requests
             runningRequests.remove(mRequestId);
+            if (mEncoder != null) {
+                try {
+                    if (!result.isFailed() && mEncoder.hasEncoded()) {
+                        emitContent(mEncoder.finish());
+                    }
+                } catch (IOException e) {
+                    logger.error("Error compressing response to request {}: {}", mRequestId, e.getMessage());
+                } finally {
+                    mEncoder.close();
+                }
+            }
             if (result.isFailed() && result.getResponse().getStatus() != HttpStatus.OK_200) {
                 logger.warn("Jetty request {} failed: {}", mRequestId, result.getFailure().getMessage());
                 logger.warn("{}", result.getRequestFailure().getMessage());
@@ -613,23 +746,37 @@ public class CloudClient {
         @Override
         public synchronized void onFailure(Request request, Throwable failure) {
             logger.error("{}", failure.getMessage());
-            JSONObject responseJson = new JSONObject();
-            try {
-                responseJson.put("id", mRequestId);
-                responseJson.put("responseStatusText", "openHAB connection error: " + failure.getMessage());
-                socket.emit("responseError", responseJson);
-            } catch (JSONException e) {
-                logger.error("{}", e.getMessage());
-            }
+            sendResponseError(mRequestId, "openHAB connection error: " + failure.getMessage());
         }
 
         @Override
-        public void onContent(Response response, ByteBuffer content) {
+        public void onContent(Response response, ByteBuffer content, final Callback callback) {
             logger.debug("Jetty received response content of size {}", String.valueOf(content.remaining()));
+            try {
+                // The content buffer is reused by Jetty, so it has to be copied before returning
+                emitContent(mEncoder != null ? mEncoder.encode(content) : BufferUtil.toArray(content));
+            } catch (IOException e) {
+                logger.error("Error compressing response to request {}: {}", mRequestId, e.getMessage());
+                callback.failed(e);
+                return;
+            }
+            // Events are processed in order, so this runs after the content has been passed to the transport
+            EventThread.exec(new Runnable() {
+                @Override
+                public void run() {
+                    callback.succeeded();
+                }
+            });
+        }
+
+        private void emitContent(byte[] body) {
+            if (body.length == 0) {
+                return;
+            }
             JSONObject responseJson = new JSONObject();
             try {
                 responseJson.put("id", mRequestId);
-                responseJson.put("body", BufferUtil.toArray(content));
+                responseJson.put("body", body);
                 socket.emit("responseContentBinary", responseJson);
                 logger.debug("Sent content to request {}", mRequestId);
             } catch (JSONException e) {
@@ -643,6 +790,13 @@ public class CloudClient {
                 logger.debug("Jetty finished receiving response header");
                 JSONObject responseJson = new JSONObject();
                 mHeadersSent = true;
+                if (shouldCompress(response)) {
+                    try {
+                        mEncoder = new GzipChunkEncoder();
+                    } catch (IOException e) {
+                        logger.debug("Not compressing response to request {}: {}", mRequestId, e.getMessage());
+                    }
+                }
                 try {
                     responseJson.put("id", mRequestId);
                     responseJson.put("headers", getJSONHeaders(response.getHeaders()));
@@ -60,6 +60,9 @@ public class CloudService implements ActionService, CloudClientListener, EventSu
     private static final String CFG_EXPOSE = "expose";
     private static final String CFG_BASE_URL = "baseURL";
     private static final String CFG_MODE = "mode";
+    private static final String CFG_UPDATE_INTERVAL = "updateInterval";
+    private static final String CFG_UPDATE_BATCH_SIZE = "updateBatchSize";
+    private static final String CFG_UPDATE_BACKLOG = "updateBacklog";
     private static final String SECRET_FILE_NAME = "openhabcloud" + File.separator + "secret";
     private static final String DEFAULT_URL = "https://myopenhab.org/";
 
@@ -194,11 +197,32 @@ public class CloudService implements ActionService, CloudClientListener, EventSu
         cloudClient = new CloudClient(InstanceUUID.get(), getSecret(), cloudBaseUrl, localBaseUrl, remoteAccessEnabled,
                 exposedItems);
         cloudClient.setOpenHABVersion(OpenHAB.getVersion());
+        cloudClient.setItemUpdateOptions(
+                getNumber(config, CFG_UPDATE_INTERVAL, CloudClient.DEFAULT_ITEM_UPDATE_INTERVAL).longValue(),
+                getNumber(config, CFG_UPDATE_BATCH_SIZE, CloudClient.DEFAULT_ITEM_UPDATE_BATCH_SIZE).intValue(),
+                getNumber(config, CFG_UPDATE_BACKLOG, CloudClient.DEFAULT_ITEM_UPDATE_BACKLOG).intValue());
         cloudClient.connect();
         cloudClient.setListener(this);
         NotificationAction.cloudService = this;
     }
 
+    /**
+     * Reads a numeric configuration value, which is either a number or a string
+     */
+    private Number getNumber(Map<String, ?> config, String key, Number defaultValue) {
+        Object value = config.get(key);
+        if (value instanceof Number) {
+            return (Number) value;
+        } else if (value instanceof String && StringUtils.isNotBlank((String) value)) {
+            try {
+                return Long.valueOf(((String) value).trim());
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid value '{}' for '{}', using default {}", value, key, defaultValue);
+            }
+        }
+        return defaultValue;
+    }
+
     @Override
     public String getActionClassName() {
         return NotificationAction.class.getCanonicalName();
@@ -0,0 +1,141 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.openhabcloud.internal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * This class gzip compresses a proxied response chunk by chunk. Every chunk is flushed, so that streamed
+ * responses like long polling requests are not delayed by the compression.
+ *
+ * The scratch buffers used to feed the compressor are pooled and shared by all requests.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+public class GzipChunkEncoder {
+
+    private static final int SCRATCH_BUFFER_SIZE = 16 * 1024;
+    private static final int MAX_POOLED_BUFFERS = 32;
+
+    private static final Queue<byte[]> scratchBuffers = new ConcurrentLinkedQueue<byte[]>();
+    private static final AtomicInteger pooledBuffers = new AtomicInteger();
+
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream(SCRATCH_BUFFER_SIZE);
+    private final GZIPOutputStream gzip;
+    private boolean finished;
+    private boolean encoded;
+
+    public GzipChunkEncoder() throws IOException {
+        gzip = new GZIPOutputStream(output, SCRATCH_BUFFER_SIZE, true);
+    }
+
+    /**
+     * Returns true if responses with the given content type are worth compressing
+     *
+     * @param contentType the content type of the response, may be null
+     */
+    public static boolean isCompressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        String type = contentType.toLowerCase();
+        return type.startsWith("text/") || type.contains("json") || type.contains("javascript")
+                || type.contains("xml") || type.contains("svg");
+    }
+
+    /**
+     * Compresses a chunk and returns the compressed bytes, which may be empty
+     *
+     * @param content the chunk, which is fully consumed
+     */
+    public byte[] encode(ByteBuffer content) throws IOException {
+        encoded = true;
+        if (content.hasArray()) {
+            gzip.write(content.array(), content.arrayOffset() + content.position(), content.remaining());
+            content.position(content.limit());
+        } else {
+            byte[] scratch = acquire();
+            try {
+                while (content.hasRemaining()) {
+                    int length = Math.min(scratch.length, content.remaining());
+                    content.get(scratch, 0, length);
+                    gzip.write(scratch, 0, length);
+                }
+            } finally {
+                release(scratch);
+            }
+        }
+        gzip.flush();
+        return drain();
+    }
+
+    /**
+     * Returns true if at least one chunk has been encoded. Otherwise nothing has been sent yet and the compressed
+     * stream must not be finished, as it would send the gzip header and trailer for an empty body.
+     */
+    public boolean hasEncoded() {
+        return encoded;
+    }
+
+    /**
+     * Finishes the compressed stream and returns the remaining bytes. The encoder can not be used afterwards.
+     */
+    public byte[] finish() throws IOException {
+        if (finished) {
+            return new byte[0];
+        }
+        finished = true;
+        gzip.close();
+        return drain();
+    }
+
+    /**
+     * Releases the resources of the compressor, if the response was not finished
+     */
+    public void close() {
+        if (!finished) {
+            finished = true;
+            try {
+                gzip.close();
+            } catch (IOException e) {
+                // nothing is written anymore
+            }
+        }
+    }
+
+    private byte[] drain() {
+        byte[] bytes = output.toByteArray();
+        output.reset();
+        return bytes;
+    }
+
+    private static byte[] acquire() {
+        byte[] buffer = scratchBuffers.poll();
+        if (buffer == null) {
+            return new byte[SCRATCH_BUFFER_SIZE];
+        }
+        pooledBuffers.decrementAndGet();
+        return buffer;
+    }
+
+    private static void release(byte[] buffer) {
+        if (pooledBuffers.incrementAndGet() <= MAX_POOLED_BUFFERS) {
+            scratchBuffers.offer(buffer);
+        } else {
+            pooledBuffers.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,215 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.openhabcloud.internal;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.smarthome.core.common.ThreadPoolManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class buffers item updates for the openHAB Cloud. Only the latest state of an item is kept, so an item
+ * changing several times within one flush interval is sent only once. While the connection is down, the buffer
+ * serves as backlog, which is sent after reconnecting. The backlog is bounded, the oldest updates are dropped if
+ * it is full. Batches are sent one after another in the order they were taken from the buffer, so a newer state
+ * of an item is never overtaken by an older one.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+public class ItemUpdateBuffer {
+
+    /**
+     * Sends a single item update to the openHAB Cloud
+     */
+    public interface Sender {
+        void send(String itemName, String itemState);
+    }
+
+    private static final String THREADPOOL_OPENHABCLOUD = "openhabcloud";
+
+    private final Logger logger = LoggerFactory.getLogger(ItemUpdateBuffer.class);
+
+    private final Sender sender;
+    private final long flushInterval;
+    private final int maxBatchSize;
+    private final int maxBacklog;
+
+    /*
+     * Latest state per item name, ordered by the time of the first buffered update
+     */
+    private final LinkedHashMap<String, String> pending = new LinkedHashMap<String, String>();
+
+    /*
+     * Serializes the flushes, it is always acquired before the monitor of the buffer
+     */
+    private final Object sendLock = new Object();
+
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    private boolean connected;
+    private ScheduledFuture<?> flushJob;
+
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * @param sender the {@link Sender} emitting the updates
+     * @param flushInterval milliseconds between two flushes, 0 sends every update immediately
+     * @param maxBatchSize maximum number of updates sent per flush
+     * @param maxBacklog maximum number of buffered updates
+     */
+    public ItemUpdateBuffer(Sender sender, long flushInterval, int maxBatchSize, int maxBacklog) {
+        this.sender = sender;
+        this.flushInterval = Math.max(0, flushInterval);
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxBacklog = Math.max(1, maxBacklog);
+    }
+
+    /**
+     * Buffers the update of an item, replacing a buffered update of the same item
+     *
+     * @param itemName the name of the item
+     * @param itemState updated item state
+     */
+    public void add(String itemName, String itemState) {
+        boolean sendNow;
+        synchronized (this) {
+            if (pending.put(itemName, itemState) != null) {
+                coalesced.incrementAndGet();
+            } else if (pending.size() > maxBacklog) {
+                Iterator<String> iterator = pending.keySet().iterator();
+                String oldest = iterator.next();
+                iterator.remove();
+                dropped.incrementAndGet();
+                logger.debug("Item update backlog is full, dropped update for item '{}'", oldest);
+            }
+            sendNow = connected && flushInterval == 0;
+            if (!sendNow) {
+                scheduleFlush();
+            }
+        }
+        if (sendNow) {
+            flush();
+        }
+    }
+
+    /**
+     * Sends the buffered updates after the connection to the openHAB Cloud has been established
+     */
+    public synchronized void connected() {
+        connected = true;
+        if (!pending.isEmpty()) {
+            logger.debug("Sending {} buffered item updates", pending.size());
+            cancelFlush();
+            flushJob = ThreadPoolManager.getScheduledPool(THREADPOOL_OPENHABCLOUD).schedule(flushTask, 0,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Keeps all further updates in the backlog until the connection is established again
+     */
+    public synchronized void disconnected() {
+        connected = false;
+        cancelFlush();
+    }
+
+    /**
+     * Stops sending and discards all buffered updates
+     */
+    public synchronized void shutdown() {
+        connected = false;
+        cancelFlush();
+        pending.clear();
+        logger.debug("Item updates: {}", this);
+    }
+
+    /**
+     * Sends up to maxBatchSize buffered updates and schedules the next flush if updates are left
+     */
+    void flush() {
+        synchronized (sendLock) {
+            List<Map.Entry<String, String>> batch;
+            synchronized (this) {
+                flushJob = null;
+                if (!connected || pending.isEmpty()) {
+                    return;
+                }
+                batch = new ArrayList<Map.Entry<String, String>>(Math.min(maxBatchSize, pending.size()));
+                Iterator<Map.Entry<String, String>> iterator = pending.entrySet().iterator();
+                while (iterator.hasNext() && batch.size() < maxBatchSize) {
+                    Map.Entry<String, String> entry = iterator.next();
+                    batch.add(new AbstractMap.SimpleImmutableEntry<String, String>(entry));
+                    iterator.remove();
+                }
+                scheduleFlush();
+            }
+            for (Map.Entry<String, String> entry : batch) {
+                sender.send(entry.getKey(), entry.getValue());
+            }
+            sent.addAndGet(batch.size());
+        }
+    }
+
+    private void scheduleFlush() {
+        if (connected && flushJob == null && !pending.isEmpty()) {
+            flushJob = ThreadPoolManager.getScheduledPool(THREADPOOL_OPENHABCLOUD).schedule(flushTask, flushInterval,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void cancelFlush() {
+        if (flushJob != null) {
+            flushJob.cancel(false);
+            flushJob = null;
+        }
+    }
+
+    /**
+     * Returns the number of updates sent to the openHAB Cloud
+     */
+    public long getSent() {
+        return sent.get();
+    }
+
+    /**
+     * Returns the number of updates replaced by a later update of the same item
+     */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    /**
+     * Returns the number of updates dropped because the backlog was full
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "pending=" + pending.size() + ", sent=" + sent + ", coalesced=" + coalesced + ", dropped=" + dropped;
+    }
+}
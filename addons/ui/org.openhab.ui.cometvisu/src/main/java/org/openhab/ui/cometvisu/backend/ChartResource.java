@@ -8,20 +8,24 @@
  */
 package org.openhab.ui.cometvisu.backend;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.TreeMap;
 
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
@@ -68,16 +72,32 @@ public class ChartResource implements RESTResource {
     // pattern RRDTool uses to format doubles in XML files
     static final String PATTERN = "0.0000000000E00";
 
-    static final DecimalFormat df;
+    // DecimalFormat is not thread safe
+    static final ThreadLocal<DecimalFormat> df = new ThreadLocal<DecimalFormat>() {
+        @Override
+        protected DecimalFormat initialValue() {
+            DecimalFormat format = (DecimalFormat) NumberFormat.getNumberInstance(Locale.ENGLISH);
+            format.applyPattern(PATTERN);
+            return format;
+        }
+    };
 
     protected static final String RRD_FOLDER = org.eclipse.smarthome.config.core.ConfigConstants.getUserDataFolder()
             + File.separator + "persistence" + File.separator + "rrd4j";
 
-    static {
-        df = (DecimalFormat) NumberFormat.getNumberInstance(Locale.ENGLISH);
-        df.applyPattern(PATTERN);
-        // df.setPositivePrefix("+");
-    }
+    // identical requests of multiple clients within this time are served from the result cache
+    private static final long RESULT_CACHE_TTL = 10000;
+    private static final int RESULT_CACHE_SIZE = 32;
+
+    private final Map<String, CachedResult> resultCache = new LinkedHashMap<String, CachedResult>(16, 0.75f,
+            true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedResult> eldest) {
+            return size() > RESULT_CACHE_SIZE;
+        }
+    };
 
     protected static Map<String, QueryablePersistenceService> persistenceServices = new HashMap<String, QueryablePersistenceService>();
 
@@ -118,6 +138,13 @@ public class ChartResource implements RESTResource {
         }
         String responseType = MediaType.APPLICATION_JSON;
 
+        String cacheKey = itemName + "|" + consFunction + "|" + start + "|" + end + "|" + resolution;
+        byte[] cached = getCachedResult(cacheKey);
+        if (cached != null) {
+            logger.debug("serving chart data of '{}' from cache", itemName);
+            return Response.ok(cached, responseType).build();
+        }
+
         // RRD specific: no equivalent in PersistenceService known
         ConsolFun consilidationFunction = ConsolFun.valueOf(consFunction);
 
@@ -157,23 +184,81 @@ public class ChartResource implements RESTResource {
                     throw new IllegalArgumentException("No Persistence service found.");
                 }
             }
-            Object data = null;
+            List<ChartSeries> series;
             if (persistenceService.getId().equals("rrd4j")) {
-                data = getRrdSeries(persistenceService, item, consilidationFunction, startTime, endTime, resolution);
+                series = getRrdSeries(persistenceService, item, consilidationFunction, startTime, endTime,
+                        resolution);
             } else {
-                data = getPersistenceSeries(persistenceService, item, startTime, endTime, resolution);
+                series = getPersistenceSeries(persistenceService, item, startTime, endTime, resolution);
             }
+            byte[] data = toJson(downsample(series, startTime, endTime, resolution));
+            putCachedResult(cacheKey, data);
             return Response.ok(data, responseType).build();
         } catch (ItemNotFoundException e1) {
             logger.error("Item '{}' not found error while requesting series data.", itemName);
-
+        } catch (IOException e) {
+            logger.error("Error while serializing series data of '{}': {}", itemName, e.getMessage());
         }
         return Response.serverError().build();
     }
 
-    public Object getPersistenceSeries(QueryablePersistenceService persistenceService, Item item, Date timeBegin,
-            Date timeEnd, long resolution) {
-        Map<Long, ArrayList<String>> data = new HashMap<Long, ArrayList<String>>();
+    /**
+     * reduces every series to one value per requested resolution step. A single
+     * series keeps its shape, multiple series are averaged in aligned buckets,
+     * so that they can be merged by timestamp
+     */
+    private List<ChartSeries> downsample(List<ChartSeries> series, Date timeBegin, Date timeEnd, long resolution) {
+        if (resolution <= 0) {
+            return series;
+        }
+        long range = timeEnd.getTime() - timeBegin.getTime();
+        int threshold = (int) Math.min(Integer.MAX_VALUE, Math.max(3, range / (resolution * 1000L)));
+        List<ChartSeries> result = new ArrayList<ChartSeries>(series.size());
+        for (ChartSeries s : series) {
+            if (series.size() == 1) {
+                result.add(s.downsample(threshold));
+            } else {
+                result.add(s.aggregate(threshold, timeBegin.getTime(), resolution * 1000L));
+            }
+        }
+        return result;
+    }
+
+    private byte[] toJson(List<ChartSeries> series) throws IOException {
+        int rows = 0;
+        for (ChartSeries s : series) {
+            rows = Math.max(rows, s.size());
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(rows * (series.size() * 20 + 20) + 2);
+        try (Writer writer = new OutputStreamWriter(bytes, StandardCharsets.UTF_8)) {
+            ChartSeries.writeJson(series, writer);
+        }
+        return bytes.toByteArray();
+    }
+
+    private byte[] getCachedResult(String key) {
+        synchronized (resultCache) {
+            CachedResult result = resultCache.get(key);
+            if (result == null) {
+                return null;
+            }
+            if (System.currentTimeMillis() - result.created > RESULT_CACHE_TTL) {
+                resultCache.remove(key);
+                return null;
+            }
+            return result.data;
+        }
+    }
+
+    private void putCachedResult(String key, byte[] data) {
+        synchronized (resultCache) {
+            resultCache.put(key, new CachedResult(data));
+        }
+    }
+
+    public List<ChartSeries> getPersistenceSeries(QueryablePersistenceService persistenceService, Item item,
+            Date timeBegin, Date timeEnd, long resolution) {
+        ChartSeries series = new ChartSeries(256);
 
         // Define the data filter
         FilterCriteria filter = new FilterCriteria();
@@ -193,18 +278,19 @@ public class ChartResource implements RESTResource {
             HistoricItem historicItem = it.next();
             org.eclipse.smarthome.core.types.State state = historicItem.getState();
             if (state instanceof DecimalType) {
-                ArrayList<String> vals = new ArrayList<String>();
-                vals.add(formatDouble(((DecimalType) state).doubleValue(), "null", true));
-                data.put(historicItem.getTimestamp().getTime(), vals);
+                series.add(historicItem.getTimestamp().getTime(), ((DecimalType) state).doubleValue());
             }
         }
         logger.debug("'{}' querying item '{}' from '{}' to '{}' => '{}' results", persistenceService.getId(),
                 filter.getItemName(), filter.getBeginDate(), filter.getEndDate(), dataCounter);
-        return convertToRrd(data);
+        List<ChartSeries> data = new ArrayList<ChartSeries>(1);
+        data.add(series);
+        return data;
     }
 
     /**
-     * returns a rrd series data, an array of [[timestamp,data1,data2,...]]
+     * returns the rrd series data, one series per data source of the item
+     * or of all group members
      *
      * @param persistenceService
      * @param item
@@ -214,9 +300,9 @@ public class ChartResource implements RESTResource {
      * @param resolution
      * @return
      */
-    public Object getRrdSeries(QueryablePersistenceService persistenceService, Item item,
+    public List<ChartSeries> getRrdSeries(QueryablePersistenceService persistenceService, Item item,
             ConsolFun consilidationFunction, Date timeBegin, Date timeEnd, long resolution) {
-        Map<Long, ArrayList<String>> data = new TreeMap<Long, ArrayList<String>>();
+        List<ChartSeries> data = new ArrayList<ChartSeries>();
         try {
             List<String> itemNames = new ArrayList<String>();
 
@@ -240,51 +326,33 @@ public class ChartResource implements RESTResource {
             logger.error("{}: fallback to generic persistance service", e.getLocalizedMessage());
             return getPersistenceSeries(persistenceService, item, timeBegin, timeEnd, resolution);
         }
-        return convertToRrd(data);
-    }
-
-    private ArrayList<Object> convertToRrd(Map<Long, ArrayList<String>> data) {
-        // sort data by key
-        Map<Long, ArrayList<String>> treeMap = new TreeMap<Long, ArrayList<String>>(data);
-        ArrayList<Object> rrd = new ArrayList<Object>();
-        for (Long time : treeMap.keySet()) {
-            Object[] entry = new Object[2];
-            entry[0] = time;
-            entry[1] = data.get(time);
-            rrd.add(entry);
-        }
-        return rrd;
+        return data;
     }
 
-    private Map<Long, ArrayList<String>> addRrdData(Map<Long, ArrayList<String>> data, String itemName,
-            ConsolFun consilidationFunction, Date timeBegin, Date timeEnd, long resolution) throws IOException {
+    private void addRrdData(List<ChartSeries> data, String itemName, ConsolFun consilidationFunction,
+            Date timeBegin, Date timeEnd, long resolution) throws IOException {
         RrdDb rrdDb = new RrdDb(RRD_FOLDER + File.separator + itemName + ".rrd");
-        FetchRequest fetchRequest = rrdDb.createFetchRequest(consilidationFunction, Util.getTimestamp(timeBegin),
-                Util.getTimestamp(timeEnd), resolution);
-        FetchData fetchData = fetchRequest.fetchData();
-        // logger.info(fetchData.toString());
-        long[] timestamps = fetchData.getTimestamps();
-        double[][] values = fetchData.getValues();
-
-        logger.debug("RRD fetch returned '{}' rows and '{}' columns", fetchData.getRowCount(),
-                fetchData.getColumnCount());
-
-        for (int row = 0; row < fetchData.getRowCount(); row++) {
-            // change to microseconds
-            long time = timestamps[row] * 1000;
-
-            if (!data.containsKey(time)) {
-                data.put(time, new ArrayList<String>());
-            }
-            ArrayList<String> vals = data.get(time);
-            int indexOffset = vals.size();
+        try {
+            FetchRequest fetchRequest = rrdDb.createFetchRequest(consilidationFunction, Util.getTimestamp(timeBegin),
+                    Util.getTimestamp(timeEnd), resolution);
+            FetchData fetchData = fetchRequest.fetchData();
+            long[] timestamps = fetchData.getTimestamps();
+            double[][] values = fetchData.getValues();
+
+            logger.debug("RRD fetch returned '{}' rows and '{}' columns", fetchData.getRowCount(),
+                    fetchData.getColumnCount());
+
             for (int dsIndex = 0; dsIndex < fetchData.getColumnCount(); dsIndex++) {
-                vals.add(dsIndex + indexOffset, formatDouble(values[dsIndex][row], "null", true));
+                ChartSeries series = new ChartSeries(fetchData.getRowCount());
+                for (int row = 0; row < fetchData.getRowCount(); row++) {
+                    // change to milliseconds
+                    series.add(timestamps[row] * 1000, values[dsIndex][row]);
+                }
+                data.add(series);
             }
+        } finally {
+            rrdDb.close();
         }
-        rrdDb.close();
-
-        return data;
     }
 
     static String formatDouble(double x, String nanString, boolean forceExponents) {
@@ -292,8 +360,17 @@ public class ChartResource implements RESTResource {
             return nanString;
         }
         if (forceExponents) {
-            return df.format(x);
+            return df.get().format(x);
         }
         return "" + x;
     }
+
+    private static class CachedResult {
+        private final long created = System.currentTimeMillis();
+        private final byte[] data;
+
+        private CachedResult(byte[] data) {
+            this.data = data;
+        }
+    }
 }
@@ -0,0 +1,201 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.cometvisu.backend;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * One data series of a chart, stored in primitive arrays ordered by timestamp.
+ * Missing values are stored as {@link Double#NaN}.
+ *
+ * @author agent - Initial contribution
+ * @since 2.2.0
+ */
+class ChartSeries {
+
+    private long[] timestamps;
+    private double[] values;
+    private int size;
+
+    ChartSeries(int capacity) {
+        timestamps = new long[Math.max(16, capacity)];
+        values = new double[timestamps.length];
+    }
+
+    /**
+     * adds a value, timestamps must be added in ascending order. A value with
+     * the same timestamp as the last one replaces it.
+     */
+    void add(long timestamp, double value) {
+        if (size > 0 && timestamps[size - 1] == timestamp) {
+            values[size - 1] = value;
+            return;
+        }
+        if (size == timestamps.length) {
+            timestamps = Arrays.copyOf(timestamps, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        timestamps[size] = timestamp;
+        values[size] = value;
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long getTimestamp(int index) {
+        return timestamps[index];
+    }
+
+    double getValue(int index) {
+        return values[index];
+    }
+
+    /**
+     * Downsamples the series with the Largest-Triangle-Three-Buckets algorithm,
+     * which keeps the visual shape of the series.
+     *
+     * @param threshold
+     *            - the maximum number of points
+     * @return this series, if it is not larger than threshold, otherwise a new series
+     */
+    ChartSeries downsample(int threshold) {
+        if (threshold < 3 || size <= threshold) {
+            return this;
+        }
+        ChartSeries result = new ChartSeries(threshold);
+        result.add(timestamps[0], values[0]);
+
+        double bucketSize = (double) (size - 2) / (threshold - 2);
+        int selected = 0;
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            int from = (int) (bucket * bucketSize) + 1;
+            int to = (int) ((bucket + 1) * bucketSize) + 1;
+
+            // average of the next bucket (or the last point)
+            int nextFrom = to;
+            int nextTo = Math.min(size, (int) ((bucket + 2) * bucketSize) + 1);
+            double avgTime = 0;
+            double avgValue = 0;
+            int count = 0;
+            for (int i = nextFrom; i < nextTo; i++) {
+                if (!Double.isNaN(values[i])) {
+                    avgTime += timestamps[i];
+                    avgValue += values[i];
+                    count++;
+                }
+            }
+            if (count > 0) {
+                avgTime /= count;
+                avgValue /= count;
+            } else {
+                avgTime = timestamps[size - 1];
+                avgValue = values[size - 1];
+            }
+
+            // the point forming the largest triangle with the last selected point and the average
+            double selectedTime = timestamps[selected];
+            double selectedValue = values[selected];
+            int next = from;
+            double maxArea = -1;
+            for (int i = from; i < to; i++) {
+                double area = Math.abs((selectedTime - avgTime) * (values[i] - selectedValue)
+                        - (selectedTime - timestamps[i]) * (avgValue - selectedValue));
+                if (area > maxArea) {
+                    maxArea = area;
+                    next = i;
+                }
+            }
+            result.add(timestamps[next], values[next]);
+            selected = next;
+        }
+
+        result.add(timestamps[size - 1], values[size - 1]);
+        return result;
+    }
+
+    /**
+     * Aggregates the series to the average of buckets, which are aligned to
+     * the given start time. Series aggregated with the same start and bucket
+     * size have equal timestamps, so they can be merged without gaps.
+     *
+     * @return this series, if it is not larger than threshold, otherwise a new series
+     */
+    ChartSeries aggregate(int threshold, long start, long bucketMillis) {
+        if (bucketMillis <= 0 || size <= threshold) {
+            return this;
+        }
+        ChartSeries result = new ChartSeries(threshold);
+        int i = 0;
+        while (i < size) {
+            long bucket = Math.floorDiv(timestamps[i] - start, bucketMillis);
+            double sum = 0;
+            int count = 0;
+            for (; i < size && Math.floorDiv(timestamps[i] - start, bucketMillis) == bucket; i++) {
+                if (!Double.isNaN(values[i])) {
+                    sum += values[i];
+                    count++;
+                }
+            }
+            result.add(start + bucket * bucketMillis, count > 0 ? sum / count : Double.NaN);
+        }
+        return result;
+    }
+
+    /**
+     * Writes the series merged by timestamp in the CometVisu format
+     * [[timestamp,["value1","value2",...]],...]. A series without value for a
+     * timestamp is written as "null".
+     */
+    static void writeJson(List<ChartSeries> series, Writer writer) throws IOException {
+        int[] positions = new int[series.size()];
+        boolean first = true;
+        writer.write('[');
+        while (true) {
+            // the smallest timestamp not written yet
+            long time = Long.MAX_VALUE;
+            for (int s = 0; s < positions.length; s++) {
+                ChartSeries current = series.get(s);
+                if (positions[s] < current.size && current.timestamps[positions[s]] < time) {
+                    time = current.timestamps[positions[s]];
+                }
+            }
+            if (time == Long.MAX_VALUE) {
+                break;
+            }
+
+            if (!first) {
+                writer.write(',');
+            }
+            first = false;
+            writer.write('[');
+            writer.write(Long.toString(time));
+            writer.write(",[");
+            for (int s = 0; s < positions.length; s++) {
+                ChartSeries current = series.get(s);
+                double value = Double.NaN;
+                if (positions[s] < current.size && current.timestamps[positions[s]] == time) {
+                    value = current.values[positions[s]++];
+                }
+                if (s > 0) {
+                    writer.write(',');
+                }
+                writer.write('"');
+                writer.write(ChartResource.formatDouble(value, "null", true));
+                writer.write('"');
+            }
+            writer.write("]]");
+        }
+        writer.write(']');
+    }
+}
@@ -8,10 +8,7 @@
  */
 package org.openhab.ui.cometvisu.backend;
 
-import java.util.Map;
-
 import org.eclipse.smarthome.core.items.Item;
-import org.eclipse.smarthome.core.types.State;
 
 /**
  * Broadcast state change events of items to listening clients
@@ -55,12 +52,13 @@ public interface EventBroadcaster {
     public void registerItems();
 
     /**
-     * lists all client item names and the associated type which must be notified
-     * when the item changes
+     * sends the current state of the given item to all clients, which
+     * requested it
      *
      * @param item
-     *            - the item that is listened to
-     * @return
+     *            - the item that has changed
+     * @param typedOnly
+     *            - only notify clients, which requested the item with a state type
      */
-    public Map<String, Class<? extends State>> getClientItems(Item item);
+    public void broadcastState(Item item, boolean typedOnly);
 }
@@ -12,11 +12,16 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -35,7 +40,6 @@ import org.eclipse.smarthome.core.items.ItemRegistry;
 import org.eclipse.smarthome.core.types.State;
 import org.eclipse.smarthome.io.rest.RESTResource;
 import org.glassfish.jersey.media.sse.EventOutput;
-import org.glassfish.jersey.media.sse.SseBroadcaster;
 import org.glassfish.jersey.media.sse.SseFeature;
 import org.openhab.ui.cometvisu.backend.beans.StateBean;
 import org.openhab.ui.cometvisu.internal.Config;
@@ -55,16 +59,26 @@ import org.slf4j.LoggerFactory;
 public class ReadResource implements EventBroadcaster, RESTResource {
     private final Logger logger = LoggerFactory.getLogger(ReadResource.class);
 
-    private SseBroadcaster broadcaster = new SseBroadcaster();
+    /**
+     * state changes of a client within this delay are sent in one event
+     */
+    private static final long FLUSH_DELAY_MS = 50;
 
-    private final ExecutorService executorService;
+    private final ScheduledExecutorService executorService;
 
     private ItemRegistry itemRegistry;
 
     private StateEventListener stateEventListener;
 
-    private List<String> itemNames = new ArrayList<String>();
-    private Map<Item, Map<String, Class<? extends State>>> items = new HashMap<Item, Map<String, Class<? extends State>>>();
+    /**
+     * all connected clients
+     */
+    private final Set<Client> clients = ConcurrentHashMap.newKeySet();
+
+    /**
+     * the clients subscribed to an item by openHAB item name
+     */
+    private final Map<String, Set<Client>> subscribers = new ConcurrentHashMap<String, Set<Client>>();
 
     @Context
     private UriInfo uriInfo;
@@ -78,7 +92,7 @@ public class ReadResource implements EventBroadcaster, RESTResource {
     private Collection<ItemFactory> itemFactories = new CopyOnWriteArrayList<ItemFactory>();
 
     public ReadResource() {
-        this.executorService = Executors.newSingleThreadExecutor();
+        this.executorService = Executors.newSingleThreadScheduledExecutor();
         this.stateEventListener = new StateEventListener();
         this.stateEventListener.setEventBroadcaster(this);
     }
@@ -100,10 +114,11 @@ public class ReadResource implements EventBroadcaster, RESTResource {
     }
 
     /**
-     * Subscribes the connecting client to the stream of events filtered by the
-     * given eventFilter.
+     * Subscribes the connecting client to the state changes of the requested
+     * items. The client only receives updates of its own items.
      *
-     * @param eventFilter
+     * @param itemNames
+     *            - the CometVisu item names (optionally with type prefix)
      * @return {@link EventOutput} object associated with the incoming
      *         connection.
      * @throws IOException
@@ -114,69 +129,115 @@ public class ReadResource implements EventBroadcaster, RESTResource {
     public Object getStates(@QueryParam("a") List<String> itemNames, @QueryParam("i") long index,
             @QueryParam("t") long time) throws IOException, InterruptedException {
         final EventOutput eventOutput = new EventOutput();
+        final Client client = new Client(eventOutput);
 
-        this.itemNames = itemNames;
+        removeClosedClients();
 
-        broadcaster.add(eventOutput);
+        // map the requested items of the client
+        for (String cvItemName : itemNames) {
+            String[] parts = cvItemName.split(":");
+            String ohItemName = cvItemName;
+            Class<? extends State> stateClass = null;
+            if (parts.length == 2) {
+                String classPrefix = parts[0].toLowerCase();
+                if (Config.itemTypeMapper.containsKey(classPrefix)) {
+                    stateClass = Config.itemTypeMapper.get(classPrefix);
+                } else {
+                    logger.debug("no type found for '{}'", classPrefix);
+                }
+                ohItemName = parts[1];
+            }
+            if (!client.items.containsKey(ohItemName)) {
+                client.items.put(ohItemName, new HashMap<String, Class<? extends State>>());
+            }
+            client.items.get(ohItemName).put(cvItemName, stateClass);
+        }
+
+        clients.add(client);
+        for (String ohItemName : client.items.keySet()) {
+            subscribe(ohItemName, client);
+        }
 
-        // get all requested items and send their states to the client
-        items = new HashMap<Item, Map<String, Class<? extends State>>>();
         // send the current states of all items to the client
         if (this.itemRegistry != null) {
-            List<StateBean> states = new ArrayList<StateBean>();
-            for (String cvItemName : itemNames) {
+            int count = 0;
+            for (String ohItemName : client.items.keySet()) {
                 try {
-                    String[] parts = cvItemName.split(":");
-                    String ohItemName = cvItemName;
-                    Class<? extends State> stateClass = null;
-                    if (parts.length == 2) {
-                        String classPrefix = parts[0].toLowerCase();
-                        if (Config.itemTypeMapper.containsKey(classPrefix)) {
-                            stateClass = Config.itemTypeMapper.get(classPrefix);
-                            classPrefix += ":";
-                        } else {
-                            logger.debug("no type found for '{}'", classPrefix);
-                            classPrefix = "";
-                        }
-                        ohItemName = parts[1];
-                    }
                     Item item = this.itemRegistry.getItem(ohItemName);
-                    if (!items.containsKey(item)) {
-                        items.put(item, new HashMap<String, Class<? extends State>>());
-                    }
-                    items.get(item).put(cvItemName, stateClass);
-                    StateBean itemState = new StateBean();
-                    itemState.name = cvItemName;
-
-                    if (stateClass != null) {
-                        itemState.state = item.getStateAs(stateClass).toString();
-                        logger.trace("get state of '{}' as '{}' == '{}'", item, stateClass, itemState.state);
-                    } else {
-                        itemState.state = item.getState().toString();
-                    }
-                    states.add(itemState);
+                    count += client.queue(item, false);
                 } catch (ItemNotFoundException e) {
                     logger.error("{}", e.getLocalizedMessage());
                 }
             }
-            logger.debug("initially broadcasting {}/{} item states", states.size(), itemNames.size());
-            broadcaster.broadcast(SseUtil.buildEvent(states));
+            logger.debug("initially sending {}/{} item states", count, itemNames.size());
+            scheduleFlush(client, 0);
         }
-        // listen to state changes of the requested items
-        registerItems();
 
         return eventOutput;
     }
 
+    private void subscribe(String ohItemName, Client client) {
+        synchronized (subscribers) {
+            Set<Client> itemSubscribers = subscribers.get(ohItemName);
+            if (itemSubscribers == null) {
+                itemSubscribers = ConcurrentHashMap.newKeySet();
+                subscribers.put(ohItemName, itemSubscribers);
+                // listen to state changes of the requested item
+                listen(ohItemName);
+            }
+            itemSubscribers.add(client);
+        }
+    }
+
+    private void listen(String ohItemName) {
+        if (this.itemRegistry != null) {
+            Item item = this.itemRegistry.get(ohItemName);
+            if (item instanceof GenericItem) {
+                ((GenericItem) item).addStateChangeListener(stateEventListener);
+            }
+        }
+    }
+
+    /**
+     * removes the client and stops listening to items without subscribers
+     */
+    private void removeClient(Client client) {
+        if (!clients.remove(client)) {
+            return;
+        }
+        logger.debug("removing closed client with {} items", client.items.size());
+        synchronized (subscribers) {
+            for (String ohItemName : client.items.keySet()) {
+                Set<Client> itemSubscribers = subscribers.get(ohItemName);
+                if (itemSubscribers == null) {
+                    continue;
+                }
+                itemSubscribers.remove(client);
+                if (itemSubscribers.isEmpty()) {
+                    subscribers.remove(ohItemName);
+                    if (this.itemRegistry != null) {
+                        unregisterItem(this.itemRegistry.get(ohItemName));
+                    }
+                }
+            }
+        }
+    }
+
+    private void removeClosedClients() {
+        for (Client client : clients) {
+            if (client.eventOutput.isClosed()) {
+                removeClient(client);
+            }
+        }
+    }
+
     /**
      * listen for state changes from the requested items
      */
     @Override
     public void registerItems() {
-        for (Item item : items.keySet()) {
-            if (item instanceof GenericItem) {
-                ((GenericItem) item).addStateChangeListener(stateEventListener);
-            }
+        for (String ohItemName : subscribers.keySet()) {
+            listen(ohItemName);
         }
     }
 
@@ -189,7 +250,7 @@ public class ReadResource implements EventBroadcaster, RESTResource {
      */
     @Override
     public void registerItem(Item item) {
-        if (item == null || items.containsKey(item) || !itemNames.contains(item.getName())) {
+        if (item == null || !subscribers.containsKey(item.getName())) {
             return;
         }
         if (item instanceof GenericItem) {
@@ -198,20 +259,15 @@ public class ReadResource implements EventBroadcaster, RESTResource {
     }
 
     /**
-     * listens to state changes of the given item, if it is part of the
-     * requested items
+     * stops listening to state changes of the given item
      *
      * @param item
-     *            - the new item, that should be listened to
+     *            - the item, that should not be listened to anymore
      */
     @Override
     public void unregisterItem(Item item) {
-        if (item == null || items.containsKey(item) || !itemNames.contains(item.getName())) {
-            return;
-        }
         if (item instanceof GenericItem) {
             ((GenericItem) item).removeStateChangeListener(stateEventListener);
-            items.remove(item);
         }
     }
 
@@ -219,8 +275,6 @@ public class ReadResource implements EventBroadcaster, RESTResource {
      * Broadcasts an event described by the given parameters to all currently
      * listening clients.
      *
-     * @param item
-     *            - the item which has changed
      * @param eventObject
      *            - bean that can be converted to a JSON object.
      */
@@ -230,13 +284,131 @@ public class ReadResource implements EventBroadcaster, RESTResource {
 
             @Override
             public void run() {
-                broadcaster.broadcast(SseUtil.buildEvent(eventObject));
+                for (Client client : clients) {
+                    client.write(eventObject);
+                }
             }
         });
     }
 
+    /**
+     * Queues the state of the item for all clients, which subscribed to it.
+     * The changes of a client are sent in one event after a short delay.
+     *
+     * @param item
+     *            - the item which has changed
+     * @param typedOnly
+     *            - only notify subscriptions with a state type (e.g. group updates)
+     */
     @Override
-    public Map<String, Class<? extends State>> getClientItems(Item item) {
-        return items.get(item);
+    public void broadcastState(Item item, boolean typedOnly) {
+        Set<Client> itemSubscribers = subscribers.get(item.getName());
+        if (itemSubscribers == null) {
+            return;
+        }
+        for (Client client : itemSubscribers) {
+            if (client.queue(item, typedOnly) > 0) {
+                scheduleFlush(client, FLUSH_DELAY_MS);
+            }
+        }
+    }
+
+    private void scheduleFlush(final Client client, long delay) {
+        if (!client.flushScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        executorService.schedule(new Runnable() {
+
+            @Override
+            public void run() {
+                client.flushScheduled.set(false);
+                List<StateBean> states = client.drain();
+                if (!states.isEmpty()) {
+                    client.write(states);
+                }
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * A connected CometVisu client with its subscribed items and the state
+     * changes, which have not been sent yet.
+     */
+    private class Client {
+        private final EventOutput eventOutput;
+
+        /**
+         * CometVisu item names and their state class by openHAB item name
+         */
+        private final Map<String, Map<String, Class<? extends State>>> items = new HashMap<>();
+
+        private final Map<String, String> pendingStates = new LinkedHashMap<String, String>();
+
+        private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+        Client(EventOutput eventOutput) {
+            this.eventOutput = eventOutput;
+        }
+
+        /**
+         * queues the current state of the item for all subscribed CometVisu
+         * item names, a newer state replaces a pending one
+         *
+         * @return the number of queued states
+         */
+        int queue(Item item, boolean typedOnly) {
+            Map<String, Class<? extends State>> cvItems = items.get(item.getName());
+            if (cvItems == null) {
+                return 0;
+            }
+            int count = 0;
+            synchronized (pendingStates) {
+                for (Map.Entry<String, Class<? extends State>> cvItem : cvItems.entrySet()) {
+                    Class<? extends State> stateClass = cvItem.getValue();
+                    if (stateClass != null) {
+                        State state = item.getStateAs(stateClass);
+                        logger.trace("get state of '{}' as '{}' == '{}'", item, stateClass, state);
+                        pendingStates.put(cvItem.getKey(), String.valueOf(state));
+                    } else if (!typedOnly) {
+                        pendingStates.put(cvItem.getKey(), item.getState().toString());
+                    } else {
+                        continue;
+                    }
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        List<StateBean> drain() {
+            synchronized (pendingStates) {
+                List<StateBean> states = new ArrayList<StateBean>(pendingStates.size());
+                for (Map.Entry<String, String> pendingState : pendingStates.entrySet()) {
+                    StateBean stateBean = new StateBean();
+                    stateBean.name = pendingState.getKey();
+                    stateBean.state = pendingState.getValue();
+                    states.add(stateBean);
+                }
+                pendingStates.clear();
+                return states;
+            }
+        }
+
+        void write(Object eventObject) {
+            if (eventOutput.isClosed()) {
+                removeClient(this);
+                return;
+            }
+            try {
+                eventOutput.write(SseUtil.buildEvent(eventObject));
+            } catch (IOException e) {
+                logger.debug("closing client connection: {}", e.getMessage());
+                try {
+                    eventOutput.close();
+                } catch (IOException ignored) {
+                }
+                removeClient(this);
+            }
+        }
     }
 }
@@ -44,6 +44,13 @@ public class Config {
 
     public static String COMETVISU_WEBAPP_ALIAS = "/cometvisu";
 
+    public static final String COMETVISU_CACHE_SIZE_PROPERTY = "cacheSize";
+
+    /**
+     * maximum size of the static file cache in MB, 0 disables the cache
+     */
+    public static int COMETVISU_CACHE_SIZE = 32;
+
     public static String COMETVISU_WEBAPP_USERFILE_FOLDER = File.separator + "cometvisu";
 
     /*
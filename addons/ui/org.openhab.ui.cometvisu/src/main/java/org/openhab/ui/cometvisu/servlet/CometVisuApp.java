@@ -171,6 +171,15 @@ public class CometVisuApp {
             if (properties.get(Config.COMETVISU_WEBAPP_ALIAS_PROPERTY) != null) {
                 Config.COMETVISU_WEBAPP_ALIAS = (String) properties.get(Config.COMETVISU_WEBAPP_ALIAS_PROPERTY);
             }
+            if (properties.get(Config.COMETVISU_CACHE_SIZE_PROPERTY) != null) {
+                try {
+                    Config.COMETVISU_CACHE_SIZE = Integer
+                            .parseInt(properties.get(Config.COMETVISU_CACHE_SIZE_PROPERTY).toString());
+                } catch (NumberFormatException e) {
+                    logger.warn("Invalid value for {}: {}", Config.COMETVISU_CACHE_SIZE_PROPERTY,
+                            properties.get(Config.COMETVISU_CACHE_SIZE_PROPERTY));
+                }
+            }
             for (String key : properties.keySet()) {
                 String[] parts = key.split(">");
                 String propKey = parts.length > 1 ? parts[1] : parts[0];
@@ -247,12 +256,14 @@ public class CometVisuApp {
             return;
         }
         if (configProps.containsKey(Config.COMETVISU_WEBFOLDER_PROPERTY)
-                || configProps.containsKey(Config.COMETVISU_WEBAPP_ALIAS_PROPERTY)) {
+                || configProps.containsKey(Config.COMETVISU_WEBAPP_ALIAS_PROPERTY)
+                || configProps.containsKey(Config.COMETVISU_CACHE_SIZE_PROPERTY)) {
             unregisterServlet();
         }
         readConfiguration(configProps);
         if (configProps.containsKey(Config.COMETVISU_WEBFOLDER_PROPERTY)
-                || configProps.containsKey(Config.COMETVISU_WEBAPP_ALIAS_PROPERTY)) {
+                || configProps.containsKey(Config.COMETVISU_WEBAPP_ALIAS_PROPERTY)
+                || configProps.containsKey(Config.COMETVISU_CACHE_SIZE_PROPERTY)) {
             registerServlet();
         }
     }
@@ -101,6 +101,8 @@ public class CometVisuServlet extends HttpServlet {
 
     private CometVisuApp cometVisuApp;
 
+    private StaticResourceCache resourceCache;
+
     public CometVisuServlet(String filesystemDir, CometVisuApp cometVisuApp) {
         root = filesystemDir;
         rootFolder = new File(root);
@@ -108,6 +110,7 @@ public class CometVisuServlet extends HttpServlet {
                 + Config.COMETVISU_WEBAPP_USERFILE_FOLDER);
         defaultUserDir = System.getProperty("user.dir");
         this.cometVisuApp = cometVisuApp;
+        resourceCache = new StaticResourceCache(Config.COMETVISU_CACHE_SIZE * 1024L * 1024L);
 
         PHProvider prov = cometVisuApp.getPHProvider();
         if (prov != null) {
@@ -154,6 +157,12 @@ public class CometVisuServlet extends HttpServlet {
         }
     }
 
+    @Override
+    public void destroy() {
+        resourceCache.close();
+        super.destroy();
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -528,10 +537,12 @@ public class CometVisuServlet extends HttpServlet {
         }
 
         // Prepare some variables. The ETag is an unique identifier of the file.
+        // Small files are served from the cache, which is invalidated on file changes.
         String fileName = file.getName();
-        long length = file.length();
-        long lastModified = file.lastModified();
-        String eTag = fileName + "_" + length + "_" + lastModified;
+        StaticResourceCache.Entry cached = resourceCache.get(file);
+        long length = cached != null ? cached.getLength() : file.length();
+        long lastModified = cached != null ? cached.getLastModified() : file.lastModified();
+        String eTag = cached != null ? cached.getETag() : fileName + "_" + length + "_" + lastModified;
         long expires = System.currentTimeMillis() + DEFAULT_EXPIRE_TIME;
 
         // Validate request headers for caching
@@ -676,6 +687,7 @@ public class CometVisuServlet extends HttpServlet {
             String acceptEncoding = request.getHeader("Accept-Encoding");
             acceptsGzip = acceptEncoding != null && accepts(acceptEncoding, "gzip");
             contentType += ";charset=UTF-8";
+            response.setHeader("Vary", "Accept-Encoding");
         }
 
         // Else, expect for images, determine content disposition. If content
@@ -703,7 +715,9 @@ public class CometVisuServlet extends HttpServlet {
 
         try {
             // Open streams.
-            input = new RandomAccessFile(file, "r");
+            if (cached == null) {
+                input = new RandomAccessFile(file, "r");
+            }
             output = response.getOutputStream();
 
             if (ranges.isEmpty() || ranges.get(0) == full) {
@@ -713,7 +727,16 @@ public class CometVisuServlet extends HttpServlet {
                 response.setContentType(contentType);
                 response.setHeader("Content-Range", "bytes " + r.start + "-" + r.end + "/" + r.total);
 
-                if (content) {
+                if (content && cached != null) {
+                    // Write the cached content, the compressed variant is created once per file.
+                    byte[] data = cached.getContent();
+                    if (acceptsGzip) {
+                        response.setHeader("Content-Encoding", "gzip");
+                        data = resourceCache.getGzipContent(cached);
+                    }
+                    response.setHeader("Content-Length", String.valueOf(data.length));
+                    output.write(data);
+                } else if (content) {
                     if (acceptsGzip) {
                         // The browser accepts GZIP, so GZIP the content.
                         response.setHeader("Content-Encoding", "gzip");
@@ -741,7 +764,7 @@ public class CometVisuServlet extends HttpServlet {
 
                 if (content) {
                     // Copy single part range.
-                    copy(input, output, r.start, r.length);
+                    copy(cached, input, output, r.start, r.length);
                 }
 
             } else {
@@ -765,7 +788,7 @@ public class CometVisuServlet extends HttpServlet {
                         sos.println("Content-Range: bytes " + r.start + "-" + r.end + "/" + r.total);
 
                         // Copy single part range of multi part range.
-                        copy(input, output, r.start, r.length);
+                        copy(cached, input, output, r.start, r.length);
                     }
 
                     // End with multipart boundary.
@@ -1003,6 +1026,18 @@ public class CometVisuServlet extends HttpServlet {
         return (substring.length() > 0) ? Long.parseLong(substring) : -1;
     }
 
+    /**
+     * Copy the given byte range of the cached content or, if not cached, of the given input to the given output.
+     */
+    private static void copy(StaticResourceCache.Entry cached, RandomAccessFile input, OutputStream output,
+            long start, long length) throws IOException {
+        if (cached != null) {
+            output.write(cached.getContent(), (int) start, (int) length);
+        } else {
+            copy(input, output, start, length);
+        }
+    }
+
     /**
      * Copy the given byte range of the given input to the given output.
      *
@@ -0,0 +1,308 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.cometvisu.servlet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded LRU cache for the static files of the CometVisu client. The content of small files is kept in memory
+ * together with a gzip compressed variant, which is created at the first request of a client accepting gzip.
+ *
+ * Cached entries are invalidated by a {@link WatchService}, which watches the directories of all cached files. So
+ * a changed file is served from disk at the next request.
+ *
+ * @author agent - Initial contribution
+ */
+public class StaticResourceCache {
+    private final Logger logger = LoggerFactory.getLogger(StaticResourceCache.class);
+
+    private static final int MAX_FILE_SIZE = 2 * 1024 * 1024; // ..bytes = 2MB.
+
+    private final long maxSize;
+    private long size;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(64, 0.75f, true);
+    private final Map<Path, WatchKey> watchedDirectories = new HashMap<Path, WatchKey>();
+
+    private WatchService watchService;
+    private Thread watchThread;
+
+    /**
+     * incremented on every file change, used to detect changes while a file is read
+     */
+    private final AtomicLong changes = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * @param maxSize
+     *            - maximum size of all cached contents in bytes, 0 disables the cache
+     */
+    public StaticResourceCache(long maxSize) {
+        this.maxSize = maxSize;
+        if (maxSize <= 0) {
+            return;
+        }
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            watchThread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    processEvents();
+                }
+            }, "CometVisu-resource-cache");
+            watchThread.setDaemon(true);
+            watchThread.start();
+        } catch (IOException e) {
+            // without file watcher changed files would not be noticed, so do not cache at all
+            logger.warn("Static resource cache disabled, file watcher not available: {}", e.getMessage());
+            watchService = null;
+        }
+    }
+
+    /**
+     * Returns the cached file or reads it into the cache.
+     *
+     * @param file
+     *            - the existing file to serve
+     * @return the entry or null, if the file can not be cached
+     */
+    public Entry get(File file) {
+        if (watchService == null) {
+            return null;
+        }
+        Path path = file.toPath().toAbsolutePath().normalize();
+        String key = path.toString();
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                hits.incrementAndGet();
+                return entry;
+            }
+        }
+        misses.incrementAndGet();
+
+        long length = file.length();
+        if (length > MAX_FILE_SIZE || length > maxSize || !file.isFile()) {
+            return null;
+        }
+
+        try {
+            // register the watcher before reading, so that a change while reading invalidates the entry
+            Path directory = path.getParent();
+            synchronized (this) {
+                if (!watchedDirectories.containsKey(directory)) {
+                    watchedDirectories.put(directory, directory.register(watchService,
+                            StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE,
+                            StandardWatchEventKinds.ENTRY_MODIFY));
+                }
+            }
+            long changesBefore = changes.get();
+            long lastModified = file.lastModified();
+            Entry entry = new Entry(key, file.getName(), Files.readAllBytes(path), lastModified);
+
+            synchronized (this) {
+                if (watchedDirectories.containsKey(directory) && changes.get() == changesBefore) {
+                    Entry previous = entries.put(key, entry);
+                    size += entry.getSize() - (previous != null ? previous.getSize() : 0);
+                    evict();
+                }
+            }
+            return entry;
+        } catch (IOException | ClosedWatchServiceException e) {
+            logger.debug("Not caching '{}': {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Returns the gzip compressed content of the entry, which is created on the first call.
+     */
+    public byte[] getGzipContent(Entry entry) throws IOException {
+        byte[] gzipContent = entry.gzipContent;
+        if (gzipContent == null) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(entry.content.length / 3 + 64);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+                gzip.write(entry.content);
+            }
+            gzipContent = bytes.toByteArray();
+
+            synchronized (this) {
+                if (entry.gzipContent == null) {
+                    entry.gzipContent = gzipContent;
+                    if (entries.get(entry.key) == entry) {
+                        size += gzipContent.length;
+                        evict();
+                    }
+                }
+            }
+        }
+        return gzipContent;
+    }
+
+    private void evict() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (size > maxSize && iterator.hasNext()) {
+            size -= iterator.next().getSize();
+            iterator.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void processEvents() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            Path directory = (Path) key.watchable();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                changes.incrementAndGet();
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    invalidateDirectory(directory);
+                } else {
+                    invalidate(directory.resolve((Path) event.context()).toString());
+                }
+            }
+            if (!key.reset()) {
+                // directory deleted
+                changes.incrementAndGet();
+                synchronized (this) {
+                    watchedDirectories.remove(directory);
+                }
+                invalidateDirectory(directory);
+            }
+        }
+    }
+
+    private synchronized void invalidate(String key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            size -= entry.getSize();
+            invalidations.incrementAndGet();
+            logger.trace("'{}' changed, removed from cache", key);
+        }
+    }
+
+    private synchronized void invalidateDirectory(Path directory) {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Entry> entry = iterator.next();
+            if (directory.equals(new File(entry.getKey()).toPath().getParent())) {
+                size -= entry.getValue().getSize();
+                iterator.remove();
+                invalidations.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Stops the file watcher and clears the cache.
+     */
+    public void close() {
+        if (watchService == null) {
+            return;
+        }
+        try {
+            watchService.close();
+        } catch (IOException ignore) {
+        }
+        watchThread.interrupt();
+        synchronized (this) {
+            logger.debug("Closing static resource cache: {}", this);
+            entries.clear();
+            watchedDirectories.clear();
+            size = 0;
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public long getInvalidations() {
+        return invalidations.get();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "entries=" + entries.size() + ", size=" + size + ", hits=" + hits + ", misses=" + misses
+                + ", evictions=" + evictions + ", invalidations=" + invalidations;
+    }
+
+    /**
+     * The content of a cached file
+     */
+    public static class Entry {
+        private final String key;
+        private final String eTag;
+        private final byte[] content;
+        private final long lastModified;
+        private volatile byte[] gzipContent;
+
+        private Entry(String key, String fileName, byte[] content, long lastModified) {
+            this.key = key;
+            this.content = content;
+            this.lastModified = lastModified;
+            this.eTag = fileName + "_" + content.length + "_" + lastModified;
+        }
+
+        public String getETag() {
+            return eTag;
+        }
+
+        public byte[] getContent() {
+            return content;
+        }
+
+        public long getLength() {
+            return content.length;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        private long getSize() {
+            return content.length + (gzipContent != null ? gzipContent.length : 0);
+        }
+    }
+}